@@ -2,10 +2,13 @@ package com.powertrip.mod;
 
 import com.powertrip.mod.command.PowerTripCommands;
 import com.powertrip.mod.event.ServerTickHandler;
+import com.powertrip.mod.event.TimeJumped;
 import com.powertrip.mod.network.NetworkHandler;
 import com.powertrip.mod.power.PowerManager;
+import com.powertrip.mod.util.WorldClock;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
 import org.slf4j.Logger;
@@ -29,12 +32,15 @@ public class PowerTripMod implements ModInitializer {
     // Network handler for client-server communication
     public static final NetworkHandler NETWORK = new NetworkHandler();
     
+    // World time, sampled once per tick and shared by every subsystem
+    public static final WorldClock CLOCK = new WorldClock();
+    
     // Server tick handler for managing power cycles
     public static ServerTickHandler SERVER_TICK_HANDLER;
     
     // Power manager for centralized access
     public static PowerManager POWER_MANAGER;
-
+    
     @Override
     public void onInitialize() {
         LOGGER.info("Initializing PowerTrip Mod");
@@ -63,6 +69,24 @@ public class PowerTripMod implements ModInitializer {
         // Store the PowerManager reference for global access
         POWER_MANAGER = SERVER_TICK_HANDLER.getPowerManager();
         
+        // Time jumps reach the clock first, so every later listener sees the new time
+        TimeJumped.EVENT.register((server, oldTime, newTime) -> CLOCK.onTimeJumped(oldTime, newTime));
+        TimeJumped.EVENT.register(SERVER_TICK_HANDLER::onTimeJumped);
+        
+        // Restore the cycle saved with the world, and flush pending saves on shutdown
+        ServerLifecycleEvents.SERVER_STARTED.register(server -> SERVER_TICK_HANDLER.onServerStarted(server));
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> POWER_MANAGER.closeState());
+        
+        // Keep the roster current; clients subscribe to state pushes after joining and are forgotten when they leave
+        ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> {
+            NETWORK.onPlayerJoin(server, handler.getPlayer());
+            SERVER_TICK_HANDLER.onPlayerJoin(server, handler.getPlayer());
+        });
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> {
+            NETWORK.onPlayerLeave(server, handler.getPlayer());
+            SERVER_TICK_HANDLER.onPlayerLeave(server, handler.getPlayer());
+        });
+        
         LOGGER.info("Registered PowerTrip event handlers");
     }
     
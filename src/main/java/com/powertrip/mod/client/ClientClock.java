@@ -0,0 +1,119 @@
+package com.powertrip.mod.client;
+
+import com.powertrip.mod.network.ClockProbePayload;
+import com.powertrip.mod.network.ClockSyncPayload;
+import com.powertrip.mod.util.Trace;
+import com.powertrip.mod.util.TraceCategory;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+
+/**
+ * Client-side estimate of the server's tick counter
+ *
+ * The client probes the server right after joining and then every
+ * {@link #PROBE_INTERVAL_TICKS}. Each reply gives one offset sample, taken at the
+ * midpoint of the round trip. Samples with a much longer round trip than the best
+ * one seen are ignored, since queueing delay makes them lopsided. Roulette start
+ * and reveal are stamped in server ticks, so this lets every client show them at
+ * the same moment regardless of latency.
+ */
+@Environment(EnvType.CLIENT)
+public class ClientClock {
+    private static final double NANOS_PER_TICK = 50_000_000.0;
+    
+    // How often to refresh the estimate (30 seconds)
+    private static final int PROBE_INTERVAL_TICKS = 600;
+    
+    // Samples slower than this multiple of the best round trip are ignored...
+    private static final int MAX_RTT_FACTOR = 2;
+    
+    // ...unless this many in a row were, in which case the network got slower
+    private static final int MAX_REJECTED_SAMPLES = 4;
+    
+    // serverTick = nanoTime / NANOS_PER_TICK + offsetTicks
+    private static double offsetTicks = 0;
+    private static boolean synced = false;
+    private static long bestRttNanos = Long.MAX_VALUE;
+    private static int rejectedSamples = 0;
+    private static int ticksUntilProbe = 0;
+    
+    /**
+     * Register the connection and tick callbacks
+     */
+    public static void register() {
+        ClientPlayConnectionEvents.JOIN.register((handler, sender, client) -> {
+            reset();
+            probe();
+        });
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> reset());
+        
+        ClientTickEvents.END_CLIENT_TICK.register(client -> {
+            if (client.getNetworkHandler() != null && --ticksUntilProbe <= 0) {
+                probe();
+            }
+        });
+    }
+    
+    /**
+     * Folds a probe reply into the offset estimate
+     * @param payload The reply from the server
+     */
+    public static void accept(ClockSyncPayload payload) {
+        long now = System.nanoTime();
+        long rtt = now - payload.clientNanos();
+        if (rtt < 0) {
+            return;
+        }
+        
+        if (synced && rtt > bestRttNanos * MAX_RTT_FACTOR && ++rejectedSamples < MAX_REJECTED_SAMPLES) {
+            Trace.log(TraceCategory.NETWORK, "Ignoring clock sample with round trip {}ns", rtt);
+            return;
+        }
+        if (rejectedSamples >= MAX_REJECTED_SAMPLES) {
+            bestRttNanos = rtt;
+        }
+        rejectedSamples = 0;
+        bestRttNanos = Math.min(bestRttNanos, rtt);
+        
+        // The server answered roughly halfway through the round trip
+        double midpoint = (payload.clientNanos() + rtt / 2) / NANOS_PER_TICK;
+        double sample = payload.serverTick() - midpoint;
+        offsetTicks = synced ? offsetTicks + (sample - offsetTicks) / 4 : sample;
+        synced = true;
+        Trace.log(TraceCategory.NETWORK, "Clock sample {} (round trip {}ns), offset now {}", (long) sample, rtt, (long) offsetTicks);
+    }
+    
+    /**
+     * Checks whether at least one sample has been taken on this connection
+     * @return true if {@link #estimatedServerTick()} can be trusted
+     */
+    public static boolean isSynced() {
+        return synced;
+    }
+    
+    /**
+     * Estimates the server's current tick
+     * @return The estimated server tick, including the fraction into the current one
+     */
+    public static double estimatedServerTick() {
+        return System.nanoTime() / NANOS_PER_TICK + offsetTicks;
+    }
+    
+    private static void probe() {
+        ticksUntilProbe = PROBE_INTERVAL_TICKS;
+        if (ClientPlayNetworking.canSend(ClockProbePayload.ID)) {
+            ClientPlayNetworking.send(new ClockProbePayload(System.nanoTime()));
+        }
+    }
+    
+    private static void reset() {
+        offsetTicks = 0;
+        synced = false;
+        bestRttNanos = Long.MAX_VALUE;
+        rejectedSamples = 0;
+        ticksUntilProbe = 0;
+    }
+}
@@ -0,0 +1,116 @@
+package com.powertrip.mod.client;
+
+import com.powertrip.mod.network.RosterPayloads;
+import com.powertrip.mod.util.Trace;
+import com.powertrip.mod.util.TraceCategory;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Client-side mirror of the server's roster table
+ *
+ * Filled from a snapshot after subscribing and kept current by join/leave deltas.
+ * A delta that does not follow the local version means one was missed, so the
+ * client resubscribes to get a fresh snapshot.
+ */
+@Environment(EnvType.CLIENT)
+public class ClientRoster {
+    // Slot -> player name, null for a free slot
+    private static final List<String> names = new ArrayList<>();
+    
+    // Roster version held locally, or -1 before the first snapshot
+    private static long version = -1;
+    
+    /**
+     * Replaces the roster with a full snapshot
+     * @param snapshot The snapshot from the server
+     */
+    public static void applySnapshot(RosterPayloads.Snapshot snapshot) {
+        names.clear();
+        names.addAll(snapshot.slotNames());
+        version = snapshot.version();
+        Trace.log(TraceCategory.NETWORK, "Roster snapshot {} with {} slots", version, names.size());
+    }
+    
+    /**
+     * Applies a single join or leave
+     * @param delta The delta from the server
+     */
+    public static void applyDelta(RosterPayloads.Delta delta) {
+        if (version < 0 || delta.version() <= version) {
+            // No snapshot yet (it is on its way) or already included in it
+            return;
+        }
+        if (delta.version() != version + 1) {
+            Trace.log(TraceCategory.NETWORK, "Missed roster update (have {}, got {}), requesting resync", version, delta.version());
+            StatusSubscription.resync();
+            return;
+        }
+        
+        while (names.size() <= delta.slot()) {
+            names.add(null);
+        }
+        names.set(delta.slot(), delta.name());
+        version = delta.version();
+    }
+    
+    /**
+     * Gets the version of the local roster
+     * @return The version, or -1 before the first snapshot
+     */
+    public static long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Gets the name in a roster slot
+     * @param slot The slot
+     * @return The name, or null if the slot is free or unknown
+     */
+    public static String nameAt(int slot) {
+        return slot >= 0 && slot < names.size() ? names.get(slot) : null;
+    }
+    
+    /**
+     * Gets the names of all players in slot order
+     * @return A new list of names
+     */
+    public static List<String> liveNames() {
+        List<String> live = new ArrayList<>(names.size());
+        for (String name : names) {
+            if (name != null) {
+                live.add(name);
+            }
+        }
+        return live;
+    }
+    
+    /**
+     * Gets the names of all players except those in the given slots
+     * @param excludedSlots Slots to leave out, in ascending order
+     * @return A new list of the remaining names, in slot order
+     */
+    public static List<String> liveNamesExcept(int[] excludedSlots) {
+        List<String> live = new ArrayList<>(names.size());
+        for (int slot = 0, next = 0; slot < names.size(); slot++) {
+            while (next < excludedSlots.length && excludedSlots[next] < slot) {
+                next++;
+            }
+            if ((next >= excludedSlots.length || excludedSlots[next] != slot) && names.get(slot) != null) {
+                live.add(names.get(slot));
+            }
+        }
+        return live;
+    }
+    
+    /**
+     * Clears the roster - called on disconnect
+     */
+    public static void reset() {
+        names.clear();
+        version = -1;
+    }
+}
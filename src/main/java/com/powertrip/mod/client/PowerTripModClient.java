@@ -39,8 +39,11 @@ public class PowerTripModClient implements ClientModInitializer {
         // Register client-side network receivers
         com.powertrip.mod.network.NetworkHandler.registerClientReceiver();
         
-        // Register the client tick handler for status requests
-        ClientTickHandler.register();
+        // Subscribe to server state pushes after joining
+        StatusSubscription.register();
+        
+        // Keep an estimate of the server tick for synchronized reveals
+        ClientClock.register();
         
         PowerTripMod.LOGGER.info("Registered PowerTrip client components");
     }
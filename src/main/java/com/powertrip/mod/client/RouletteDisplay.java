@@ -1,7 +1,9 @@
 package com.powertrip.mod.client;
 
-import com.powertrip.mod.PowerTripMod;
 import com.powertrip.mod.config.ModConfig;
+import com.powertrip.mod.util.RouletteTimeline;
+import com.powertrip.mod.util.Trace;
+import com.powertrip.mod.util.TraceCategory;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
@@ -23,14 +25,12 @@ import net.minecraft.util.Formatting;
 import net.minecraft.util.Util;
 
 import java.util.List;
-import java.util.Random;
 
 /**
  * Handles the visual roulette effect on the client side
  */
 @Environment(EnvType.CLIENT)
 public class RouletteDisplay {
-    private static final Random random = new Random();
     private static boolean isClientAnimationActive = false;
     private static int displayResultTicks = 0;
     private static List<String> playerNames;
@@ -38,8 +38,11 @@ public class RouletteDisplay {
     private static String currentDisplayName;
     private static int currentColorIndex = 0;
     private static boolean hasPlayedWinSound = false;
-    private static long lastNameUpdateTime = 0; // Used for real-time based name cycling
-    private static long animationStartTime = 0; // When the animation started
+    private static RouletteTimeline timeline; // Name changes shared with the server and every other client
+    private static int animationTick = 0; // Ticks since the animation started
+    private static long animationStartTick = -1; // Server tick the animation started on, or -1 if unstamped
+    private static int revealAfterTicks = 0; // Ticks from the start until the winner is revealed
+    private static int nextEvent = 0; // Next timeline event to apply
     private static int currentNameIndex = 0; // Index to track current position in player name list
     private static boolean animationPhaseComplete = false; // Tracks if roulette animation is done
     private static boolean resultPhaseComplete = false; // Tracks if result display is done
@@ -50,11 +53,15 @@ public class RouletteDisplay {
      * @param players List of player names to include in the roulette
      * @param selected The pre-selected winner (determined server-side)
      * @param isBeginning Whether this is a beginning (true) or ending (false) animation
+     * @param seed The seed for the animation timeline, sent by the server
+     * @param startTick The server tick the animation started on, or -1 to start on arrival
+     * @param revealTick The server tick the winner is revealed on, or -1 to reveal when the animation stops
      */
-    public static void startRoulette(List<String> players, String selected, boolean isBeginning) {
+    public static void startRoulette(List<String> players, String selected, boolean isBeginning, long seed,
+                                     long startTick, long revealTick) {
         // If we already have an active animation, force it to complete first
         if (isClientAnimationActive) {
-            PowerTripMod.LOGGER.info("[ANIMATION DEBUG] Forcing completion of previous animation before starting new one");
+            Trace.log(TraceCategory.ANIMATION, "Forcing completion of previous animation before starting new one");
             // Force cleanup of the previous animation state
             isClientAnimationActive = false;
             resultPhaseComplete = true;
@@ -62,8 +69,9 @@ public class RouletteDisplay {
         }
         
         // Now start the new animation with clean state
-        PowerTripMod.LOGGER.info("[ANIMATION DEBUG] Starting roulette animation with " + players.size() + " players, selected: " + selected + ", isBeginning: " + isBeginning);
-        playerNames = players;
+        Trace.log(TraceCategory.ANIMATION, "Starting roulette animation with seed {}, {} players, selected: {}",
+                seed, players.size(), selected);
+        playerNames = RouletteTimeline.withWinner(players, selected);
         selectedPlayer = selected;
         isClientAnimationActive = true;
         displayResultTicks = 0;
@@ -77,23 +85,25 @@ public class RouletteDisplay {
         } else {
             animationPhaseComplete = false;
         }
-        PowerTripMod.LOGGER.info("[ANIMATION DEBUG] Animation state initialized at " + System.currentTimeMillis());
-        
-        // Start at a random position in the list for better unpredictability
-        if (!players.isEmpty()) {
-            currentNameIndex = new Random().nextInt(players.size());
-            currentDisplayName = players.get(currentNameIndex);
-        } else {
-            currentDisplayName = "No players";
-            currentNameIndex = 0;
-        }
         
+        // Every client derives the same name sequence from the seed, ending on the winner
+        timeline = RouletteTimeline.create(seed, playerNames.size(), playerNames.indexOf(selected), ModConfig.ROULETTE_DURATION_TICKS);
+        animationTick = 0;
+        nextEvent = 0;
+        currentNameIndex = timeline.getStartIndex();
+        currentDisplayName = playerNames.isEmpty() ? "No players" : playerNames.get(currentNameIndex);
         currentColorIndex = 0;
         
-        // Initialize animation timing
-        long currentTime = System.currentTimeMillis();
-        animationStartTime = currentTime; // Record when animation started
-        lastNameUpdateTime = currentTime; // Initialize the name update timer
+        // Stamped animations follow the server clock, so a late packet catches up instead of running late
+        animationStartTick = startTick >= 0 && ClientClock.isSynced() ? startTick : -1;
+        revealAfterTicks = startTick >= 0 && revealTick >= startTick
+                ? (int) (revealTick - startTick)
+                : timeline.getDurationTicks();
+        if (animationStartTick >= 0 && !animationPhaseComplete) {
+            syncAnimationTick();
+            Trace.log(TraceCategory.ANIMATION, "Roulette started {} ticks late, reveal after {}", animationTick, revealAfterTicks);
+            advanceTimeline();
+        }
         
         // Play a sound to indicate the roulette has started
         // Play the sound using our helper method
@@ -124,23 +134,68 @@ public class RouletteDisplay {
      * This runs at a fixed 20 ticks per second regardless of render FPS
      */
     private static void tickClientAnimation() {
-        if (isClientAnimationActive && animationPhaseComplete && !resultPhaseComplete) {
+        if (isClientAnimationActive && !animationPhaseComplete) {
+            if (animationStartTick >= 0) {
+                syncAnimationTick();
+            } else {
+                animationTick++;
+            }
+            advanceTimeline();
+            
+            // The timeline has stopped on the winner by now; the result appears on the reveal tick
+            if (animationTick >= revealAfterTicks) {
+                Trace.log(TraceCategory.ANIMATION, "Reveal tick reached, transitioning to result phase");
+                animationPhaseComplete = true;
+            }
+        } else if (isClientAnimationActive && !resultPhaseComplete) {
             // Only increment during the result display phase
             displayResultTicks++;
             
             if (displayResultTicks % 20 == 0) { // Log every second (20 ticks)
-                PowerTripMod.LOGGER.info("[ANIMATION DEBUG] Result display tick: " + displayResultTicks + "/" + ModConfig.RESULT_DISPLAY_DURATION);
+                Trace.log(TraceCategory.ANIMATION, "Result display tick: {}/{}", displayResultTicks, ModConfig.RESULT_DISPLAY_DURATION);
             }
             
             // Check if we've reached the end of the display duration
             if (displayResultTicks >= ModConfig.RESULT_DISPLAY_DURATION) {
-                PowerTripMod.LOGGER.info("[ANIMATION DEBUG] Animation ending at displayResultTicks=" + displayResultTicks);
+                Trace.log(TraceCategory.ANIMATION, "Animation ending at displayResultTicks={}", displayResultTicks);
                 resultPhaseComplete = true;
                 isClientAnimationActive = false;
             }
         }
     }
     
+    /**
+     * Sets the animation tick from the estimated server tick
+     */
+    private static void syncAnimationTick() {
+        long elapsed = (long) Math.floor(ClientClock.estimatedServerTick()) - animationStartTick;
+        animationTick = (int) Math.max(animationTick, Math.min(elapsed, revealAfterTicks));
+    }
+    
+    /**
+     * Applies every timeline event due by the current animation tick
+     * Only the last one is heard, so a client catching up doesn't play a burst of clicks
+     */
+    private static void advanceTimeline() {
+        int applied = -1;
+        while (nextEvent < timeline.getEventCount() && timeline.getEventTick(nextEvent) <= animationTick) {
+            applied = nextEvent++;
+            
+            // Cycle through colors
+            currentColorIndex = (currentColorIndex + 1) % ModConfig.ROULETTE_COLORS.length;
+        }
+        
+        if (applied >= 0) {
+            currentNameIndex = timeline.getNameIndex(applied);
+            if (!playerNames.isEmpty()) {
+                currentDisplayName = playerNames.get(currentNameIndex);
+            }
+            
+            // Play tick sound for each name change
+            playSound(SoundEvents.UI_BUTTON_CLICK, timeline.getPitch(applied));
+        }
+    }
+    
     /**
      * Renders the roulette animation and result on the HUD
      * @param drawContext The draw context
@@ -157,78 +212,16 @@ public class RouletteDisplay {
         
         // Log if we're in a game menu - this could affect rendering
         if (client.currentScreen != null) {
-            PowerTripMod.LOGGER.info("[ANIMATION DEBUG] Animation running while screen open: " + client.currentScreen.getClass().getSimpleName());
+            Trace.log(TraceCategory.ANIMATION, "Animation running while screen open: {}", client.currentScreen);
         }
         
         int screenWidth = client.getWindow().getScaledWidth();
         int screenHeight = client.getWindow().getScaledHeight();
         MatrixStack matrices = drawContext.getMatrices();
         
-        // Get current time in milliseconds for real-time animation 
-        long currentTime = System.currentTimeMillis();
-        
-        // Calculate how long the animation has been running
-        long animationElapsedTime = currentTime - animationStartTime;
-        long animationDurationMs = ModConfig.ROULETTE_DURATION_TICKS * 50; // Convert ticks to ms (1 tick = 50ms)
-        
-        // Render the roulette animation if not yet at the end of duration and animation phase not complete
-        if (animationElapsedTime < animationDurationMs && !animationPhaseComplete) {
-            // Calculate animation progress percentage (0-100)
-            int animationProgress = (int)((animationElapsedTime * 100) / animationDurationMs);
-            
-            // Use real-time based cycling regardless of frame rate
-            // Each name should display for about 500ms (1/2 second) in early stages
-            long nameTimeElapsed = currentTime - lastNameUpdateTime;
-            
-            // Determine name change delay based on animation progress
-            long nameChangeDelay;
-            if (animationProgress > 80) {
-                nameChangeDelay = 1000; // Slow near the end (1 second per name)
-            } else if (animationProgress > 60) {
-                nameChangeDelay = 500; // Medium speed in the middle (2 names per second)
-            } else {
-                nameChangeDelay = 250; // Fast cycling at the start (4 names per second)
-            }
-            
-            // Change the displayed name based on the appropriate delay
-            if (nameTimeElapsed >= nameChangeDelay) {
-                // Reset the name update timer
-                lastNameUpdateTime = currentTime;
-                
-                // During roulette animation, cycle through names in sequential order
-                if (!playerNames.isEmpty()) {
-                    // Gradually slow down the cycling as we progress
-                    if (animationProgress > 80) {
-                        // In the last 20%, slow down cycling and occasionally show winner
-                        if (random.nextInt(4) < 1) { // 25% chance to advance
-                            // Advance to next name in cycle
-                            currentNameIndex = (currentNameIndex + 1) % playerNames.size();
-                            currentDisplayName = playerNames.get(currentNameIndex);
-                        }
-                    } else if (animationProgress > 60) {
-                        // In 60-80% range, cycle somewhat slower
-                        if (random.nextInt(2) == 0) { // 50% chance to advance
-                            // Advance to next name in cycle
-                            currentNameIndex = (currentNameIndex + 1) % playerNames.size();
-                            currentDisplayName = playerNames.get(currentNameIndex);
-                        }
-                    } else {
-                        // In first 60%, cycle through all names at full speed
-                        // Advance to next name in cycle
-                        currentNameIndex = (currentNameIndex + 1) % playerNames.size();
-                        currentDisplayName = playerNames.get(currentNameIndex);
-                    }
-                }
-                
-                // Cycle through colors
-                currentColorIndex = (currentColorIndex + 1) % ModConfig.ROULETTE_COLORS.length;
-                
-                // Play tick sound for each name change
-                float randomPitch = 0.75F + random.nextFloat() * 0.5F;
-                // Play the sound using our helper method
-                playSound(SoundEvents.UI_BUTTON_CLICK, randomPitch); // Random pitch variation
-            }
-            
+        // Render the roulette animation until the timeline has run its course
+        // Name changes happen in tickClientAnimation, so this only draws the current state
+        if (!animationPhaseComplete) {
             // Prep for centered text drawing with scale
             matrices.push();
             matrices.translate(screenWidth / 2.0, screenHeight / 2.0, 0);
@@ -239,8 +232,8 @@ public class RouletteDisplay {
             
             // Calculate pulsing animation for the header
             // This varies the color between yellow and gold based on elapsed time
-            int pulseRateMs = 500; // Pulse rate in milliseconds (500ms = 2 pulses per second)
-            float pulsePhase = ((animationElapsedTime % pulseRateMs) / (float)pulseRateMs);
+            int pulseRateTicks = 10; // Pulse rate in ticks (10 ticks = 2 pulses per second)
+            float pulsePhase = (((animationTick % pulseRateTicks) + tickDelta) / pulseRateTicks) % 1.0F;
             int headerColor = pulsePhase < 0.5f ? 0xFFFF55 : 0xFFAA00; // Yellow to gold
             
             int headerWidth = textRenderer.getWidth(headerText);
@@ -276,22 +269,11 @@ public class RouletteDisplay {
             matrices.pop();
         }
         else {
-            // Automatically set animation phase as complete when animation time expires
-            if (!animationPhaseComplete) {
-                PowerTripMod.LOGGER.info("[ANIMATION DEBUG] Animation duration complete, transitioning to result phase");
-                animationPhaseComplete = true;
-            }
-            
             // Render the result after animation phase completes and until result display is done
             if (displayResultTicks < ModConfig.RESULT_DISPLAY_DURATION && !resultPhaseComplete) {
-            // Mark animation phase as complete when we enter result phase
-            if (!animationPhaseComplete) {
-                PowerTripMod.LOGGER.info("[ANIMATION DEBUG] Entering result display phase at tick " + displayResultTicks + ", time: " + System.currentTimeMillis());
-                animationPhaseComplete = true;
-            }
             // Play the firework sound when the winner is first displayed
             if (!hasPlayedWinSound) {
-                PowerTripMod.LOGGER.info("[ANIMATION DEBUG] Playing sounds at tick " + displayResultTicks);
+                Trace.log(TraceCategory.ANIMATION, "Playing sounds at tick {}", displayResultTicks);
                 
                 // Different sounds for beginning vs ending
                 if (isPowerTripBeginning) {
@@ -304,8 +286,7 @@ public class RouletteDisplay {
                 }
                 hasPlayedWinSound = true;
                 
-                // Set the result text to show the selected player (which might not match
-                // where the animation actually stopped, but that's part of the illusion)
+                // Set the result text to show the selected player - the timeline already stopped on them
                 currentDisplayName = selectedPlayer;
             }
             
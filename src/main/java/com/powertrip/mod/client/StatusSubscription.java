@@ -0,0 +1,66 @@
+package com.powertrip.mod.client;
+
+import com.powertrip.mod.network.PowerTripSubscribePayload;
+import com.powertrip.mod.util.Trace;
+import com.powertrip.mod.util.TraceCategory;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+
+/**
+ * Subscribes to PowerTrip state pushes once after joining a server
+ *
+ * Replaces the old 100-tick status polling. Servers without the mod never
+ * registered the channel, so nothing is sent to them at all. State updates
+ * carry a sequence number; a gap means an update was missed and triggers a resync.
+ */
+@Environment(EnvType.CLIENT)
+public class StatusSubscription {
+    // Last state sequence number received, or -1 before the first one
+    private static long lastSequence = -1;
+    
+    /**
+     * Register the connection callbacks
+     */
+    public static void register() {
+        ClientPlayConnectionEvents.JOIN.register((handler, sender, client) -> {
+            lastSequence = -1;
+            subscribe();
+        });
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> {
+            lastSequence = -1;
+            ClientRoster.reset();
+        });
+    }
+    
+    /**
+     * Records a received state sequence number, requesting a resync if any were skipped
+     * @param sequence The sequence number of the received state
+     */
+    public static void acceptSequence(long sequence) {
+        boolean missedUpdate = lastSequence >= 0 && sequence > lastSequence + 1;
+        lastSequence = Math.max(lastSequence, sequence);
+        
+        if (missedUpdate) {
+            Trace.log(TraceCategory.NETWORK, "Missed PowerTrip state update (got {}), requesting resync", sequence);
+            subscribe();
+        }
+    }
+    
+    /**
+     * Requests a fresh copy of all subscribed state (cycle anchor and roster)
+     */
+    public static void resync() {
+        subscribe();
+    }
+    
+    /**
+     * Sends the subscription (or resync) request if the server speaks PowerTrip
+     */
+    private static void subscribe() {
+        if (ClientPlayNetworking.canSend(PowerTripSubscribePayload.ID)) {
+            ClientPlayNetworking.send(new PowerTripSubscribePayload(PowerTripSubscribePayload.CURRENT_PROTOCOL));
+        }
+    }
+}
@@ -1,24 +1,68 @@
 package com.powertrip.mod.client;
 
-import com.powertrip.mod.PowerTripMod;
+import com.powertrip.mod.network.CycleAnchorPayload;
+import com.powertrip.mod.network.ReignAnchorPayload;
+import com.powertrip.mod.power.ReignScope;
+import com.powertrip.mod.util.Countdown;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
 import net.fabricmc.fabric.api.client.rendering.v1.HudRenderCallback;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.font.TextRenderer;
 import net.minecraft.client.gui.DrawContext;
+import net.minecraft.scoreboard.Team;
+
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Displays time remaining for PowerTrip above the hotbar
+ *
+ * The countdown is derived locally from a cycle anchor (end time and server world time)
+ * and the client world clock, so the server does not need to send periodic updates.
+ * Team and dimension reigns the player falls under are shown on extra lines above it,
+ * each extrapolated from its own {@link ReignAnchorPayload} the same way.
  */
 @Environment(EnvType.CLIENT)
 public class TimeDisplay {
-    // State for time display
+    // State for time display (used when the server only sends TimeRemainingPayload)
     private static int daysRemaining = 0;
     private static int hoursRemaining = 0;
     private static int minutesRemaining = 0;
     private static boolean isPowerTripActive = false;
     
+    // Countdown anchor received from the server
+    private static boolean hasAnchor = false;
+    private static long anchorCycleEndTime = -1;
+    private static long anchorWorldTime = 0;
+    private static long anchorClientWorldTime = 0;
+    private static int anchorTicksPerDay = Countdown.DEFAULT_TICKS_PER_DAY;
+    
+    /**
+     * A scoped reign's anchor and the client world time when it arrived, with its last rendered line
+     * The line is only rebuilt when the world time moves, and only reformatted when its countdown changes
+     */
+    private static final class ReignView {
+        final ReignAnchorPayload anchor;
+        final long clientWorldTime;
+        long lastTicksRemaining = Long.MIN_VALUE;
+        Countdown lastCountdown = null;
+        String cachedText = "";
+        
+        ReignView(ReignAnchorPayload anchor, long clientWorldTime) {
+            this.anchor = anchor;
+            this.clientWorldTime = clientWorldTime;
+        }
+    }
+    
+    // Scoped reigns by id, in id order so the lines keep their places
+    private static final Map<Integer, ReignView> reigns = new TreeMap<>();
+    
+    // Last rendered countdown, so the text is only rebuilt when it changes
+    private static Countdown lastCountdown = null;
+    private static String cachedTimeText = "";
+    
     /**
      * Register the HUD rendering callback for time display
      */
@@ -28,12 +72,20 @@ public class TimeDisplay {
             // The second parameter may be RenderTickCounter in your Minecraft version
             renderTimeRemaining(drawContext, tickCounter);
         });
+        
+        // The anchor belongs to the server we were connected to
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> reset());
     }
     
     /**
      * Updates the time values from server data
+     * Ignored once an anchor has been received, since the anchor is more precise
      */
     public static void updateTimeRemaining(int days, int hours, int minutes, boolean isActive) {
+        if (hasAnchor) {
+            return;
+        }
+        
         // Ensure no negative values can be set
         daysRemaining = Math.max(0, days);
         hoursRemaining = Math.max(0, hours);
@@ -42,35 +94,88 @@ public class TimeDisplay {
     }
     
     /**
-     * Renders the time remaining above the hotbar
+     * Re-anchors the countdown - called on join and whenever the cycle starts, ends or time jumps
+     * @param anchor The anchor sent by the server
      */
-    private static void renderTimeRemaining(DrawContext drawContext, Object tickCounter) {
-        // Only show time remaining if PowerTrip is active
-        if (!isPowerTripActive) {
+    public static void updateAnchor(CycleAnchorPayload anchor) {
+        MinecraftClient client = MinecraftClient.getInstance();
+        
+        hasAnchor = true;
+        isPowerTripActive = anchor.isPowerTripActive();
+        anchorCycleEndTime = anchor.cycleEndTime();
+        anchorWorldTime = anchor.worldTime();
+        anchorClientWorldTime = client.world != null ? client.world.getTimeOfDay() : anchor.worldTime();
+        anchorTicksPerDay = anchor.ticksPerDay() > 0 ? anchor.ticksPerDay() : Countdown.DEFAULT_TICKS_PER_DAY;
+    }
+    
+    /**
+     * Re-anchors a team or dimension reign, or forgets it once removed
+     * @param anchor The anchor sent by the server
+     */
+    public static void updateReignAnchor(ReignAnchorPayload anchor) {
+        if (anchor.removed()) {
+            reigns.remove(anchor.reignId());
             return;
         }
+        MinecraftClient client = MinecraftClient.getInstance();
+        long clientWorldTime = client.world != null ? client.world.getTimeOfDay() : anchor.worldTime();
+        reigns.put(anchor.reignId(), new ReignView(anchor, clientWorldTime));
+    }
+    
+    /**
+     * Forgets the anchor, e.g. when leaving a server
+     */
+    public static void reset() {
+        hasAnchor = false;
+        isPowerTripActive = false;
+        lastCountdown = null;
+        reigns.clear();
+    }
+    
+    /**
+     * Computes the current countdown
+     * @param client The Minecraft client
+     * @return The countdown to display
+     */
+    private static Countdown currentCountdown(MinecraftClient client) {
+        if (!hasAnchor || client.world == null) {
+            return new Countdown(daysRemaining, hoursRemaining, minutesRemaining);
+        }
         
+        // Advance the server's world time by however far our own clock has moved since the anchor
+        long elapsed = client.world.getTimeOfDay() - anchorClientWorldTime;
+        long ticksRemaining = anchorCycleEndTime - (anchorWorldTime + elapsed);
+        return Countdown.fromTicks(ticksRemaining, anchorTicksPerDay);
+    }
+    
+    /**
+     * Renders the time remaining above the hotbar
+     */
+    private static void renderTimeRemaining(DrawContext drawContext, Object tickCounter) {
         MinecraftClient client = MinecraftClient.getInstance();
-        TextRenderer textRenderer = client.textRenderer;
         
         // Don't render if a game menu is open
         if (client.currentScreen != null) {
             return;
         }
         
-        // Format the time text based on days/hours/minutes remaining
-        String timeText;
-        if (daysRemaining > 0) {
-            // Just show days
-            timeText = daysRemaining + " day" + (daysRemaining > 1 ? "s" : "");
-        } else if (hoursRemaining > 0) {
-            // Just show hours
-            timeText = hoursRemaining + " hour" + (hoursRemaining > 1 ? "s" : "");
-        } else {
-            // Use the minutes value received from the server
-            timeText = minutesRemaining + " minute" + (minutesRemaining > 1 ? "s" : "");
+        // Scoped reign lines stack upwards from just above the global countdown
+        renderReigns(drawContext, client);
+        
+        // Only show time remaining if PowerTrip is active
+        if (!isPowerTripActive) {
+            return;
         }
         
+        TextRenderer textRenderer = client.textRenderer;
+        
+        Countdown countdown = currentCountdown(client);
+        if (!countdown.equals(lastCountdown)) {
+            lastCountdown = countdown;
+            cachedTimeText = formatTimeText(countdown);
+        }
+        String timeText = cachedTimeText;
+        
         // Get screen dimensions
         int screenWidth = client.getWindow().getScaledWidth();
         int screenHeight = client.getWindow().getScaledHeight();
@@ -82,4 +187,63 @@ public class TimeDisplay {
         // Draw text with shadow
         drawContext.drawText(textRenderer, timeText, xPos, yPos, 0xFFFFFF, true);
     }
+    
+    /**
+     * Renders one line per ruled team or dimension reign the player falls under
+     */
+    private static void renderReigns(DrawContext drawContext, MinecraftClient client) {
+        if (reigns.isEmpty() || client.world == null || client.player == null) {
+            return;
+        }
+        
+        Team team = client.player.getScoreboardTeam();
+        String teamName = team != null ? team.getName() : null;
+        String dimensionId = client.world.getRegistryKey().getValue().toString();
+        long clientWorldTime = client.world.getTimeOfDay();
+        TextRenderer textRenderer = client.textRenderer;
+        int screenWidth = client.getWindow().getScaledWidth();
+        int yPos = client.getWindow().getScaledHeight() - 60;
+        
+        int lines = 0;
+        for (ReignView view : reigns.values()) {
+            ReignAnchorPayload anchor = view.anchor;
+            ReignScope scope = ReignScope.byId(anchor.scope());
+            if (anchor.endTime() < 0 || scope == null || !scope.matches(teamName, dimensionId, anchor.scopeKey())) {
+                continue;
+            }
+            
+            long ticksRemaining = anchor.endTime() - (anchor.worldTime() + clientWorldTime - view.clientWorldTime);
+            if (ticksRemaining != view.lastTicksRemaining) {
+                view.lastTicksRemaining = ticksRemaining;
+                Countdown countdown = Countdown.fromTicks(ticksRemaining, Countdown.DEFAULT_TICKS_PER_DAY);
+                if (!countdown.equals(view.lastCountdown)) {
+                    view.lastCountdown = countdown;
+                    view.cachedText = anchor.rulerName() + " (" + scope.getDescription() + " " + anchor.scopeKey() + "): "
+                            + formatTimeText(countdown);
+                }
+            }
+            String text = view.cachedText;
+            drawContext.drawText(textRenderer, text, screenWidth / 2 - textRenderer.getWidth(text) / 2,
+                    yPos - lines * 10, 0xFFAA00, true);
+            lines++;
+        }
+    }
+    
+    /**
+     * Formats the time text based on days/hours/minutes remaining
+     * @param countdown The countdown to format
+     * @return The text to display
+     */
+    private static String formatTimeText(Countdown countdown) {
+        if (countdown.days() > 0) {
+            // Just show days
+            return countdown.days() + " day" + (countdown.days() > 1 ? "s" : "");
+        } else if (countdown.hours() > 0) {
+            // Just show hours
+            return countdown.hours() + " hour" + (countdown.hours() > 1 ? "s" : "");
+        } else {
+            // Show minutes once less than an hour remains
+            return countdown.minutes() + " minute" + (countdown.minutes() > 1 ? "s" : "");
+        }
+    }
 }
@@ -3,13 +3,32 @@ package com.powertrip.mod.command;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.BoolArgumentType;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.authlib.GameProfile;
 import com.mojang.brigadier.context.CommandContext;
 import com.powertrip.mod.PowerTripMod;
+import com.powertrip.mod.config.ModConfig;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.powertrip.mod.power.CommandBudget;
+import com.powertrip.mod.power.PlayerStats;
 import com.powertrip.mod.power.PowerManager;
+import com.powertrip.mod.power.ReignEndReason;
+import com.powertrip.mod.power.ReignHistory;
+import com.powertrip.mod.power.ReignRegistry;
+import com.powertrip.mod.power.ReignScope;
+import com.powertrip.mod.util.Trace;
+import com.powertrip.mod.util.TraceCategory;
+import net.minecraft.command.argument.DimensionArgumentType;
+import net.minecraft.command.argument.TeamArgumentType;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.text.Text;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
 import static net.minecraft.server.command.CommandManager.argument;
 import static net.minecraft.server.command.CommandManager.literal;
 
@@ -17,6 +36,16 @@ import static net.minecraft.server.command.CommandManager.literal;
  * Registers and handles all PowerTrip mod commands
  */
 public class PowerTripCommands {
+    // Maximum number of reigns listed by /powertrip history
+    private static final int HISTORY_LIMIT = 10;
+    
+    // Window for /powertrip history recent when no day count is given (four weekly cycles)
+    private static final int DEFAULT_RECENT_DAYS = 28;
+    
+    private static final long TICKS_PER_DAY = 24000;
+    
+    // Number of players listed by /powertrip stats
+    private static final int STATS_LIMIT = 10;
     
     /**
      * Registers all commands
@@ -44,6 +73,18 @@ public class PowerTripCommands {
                         .executes(PowerTripCommands::executeAutostart)
                     )
                 )
+                .then(buildTraceCommand())
+                .then(buildHistoryCommand())
+                .then(buildReignCommand())
+                .then(literal("budget")
+                    .executes(PowerTripCommands::executeBudget)
+                )
+                .then(literal("stats")
+                    .executes(PowerTripCommands::executeStatsTop)
+                    .then(argument("player", StringArgumentType.word())
+                        .executes(PowerTripCommands::executeStatsPlayer)
+                    )
+                )
         );
         
         PowerTripMod.LOGGER.info("Registered PowerTrip commands");
@@ -167,4 +208,372 @@ public class PowerTripCommands {
                                          (enabled ? "enabled" : "disabled")), false);
         return 1;
     }
+    
+    /**
+     * Builds the /powertrip trace subcommands
+     * One literal per category keeps the arguments tab-completable
+     * @return The trace command node
+     */
+    private static LiteralArgumentBuilder<ServerCommandSource> buildTraceCommand() {
+        LiteralArgumentBuilder<ServerCommandSource> enable = literal("enable");
+        LiteralArgumentBuilder<ServerCommandSource> disable = literal("disable");
+        LiteralArgumentBuilder<ServerCommandSource> sample = literal("sample");
+        
+        for (TraceCategory category : TraceCategory.values()) {
+            enable.then(literal(category.getName())
+                .executes(context -> executeTraceToggle(context, category, true)));
+            disable.then(literal(category.getName())
+                .executes(context -> executeTraceToggle(context, category, false)));
+            sample.then(literal(category.getName())
+                .then(argument("every", IntegerArgumentType.integer(1))
+                    .executes(context -> executeTraceSample(context, category))));
+        }
+        
+        return literal("trace")
+            .then(literal("dump").executes(PowerTripCommands::executeTraceDump))
+            .then(enable)
+            .then(disable)
+            .then(sample);
+    }
+    
+    /**
+     * Execute the trace dump command
+     * @param context Command context
+     * @return Number of events dumped
+     */
+    private static int executeTraceDump(CommandContext<ServerCommandSource> context) {
+        List<String> lines = Trace.dump();
+        context.getSource().sendFeedback(() -> Text.literal("PowerTrip trace: " + lines.size() + " events written to the server log"), false);
+        return lines.size();
+    }
+    
+    /**
+     * Execute the trace enable/disable command
+     * @param context Command context
+     * @param category The category to toggle
+     * @param enabled Whether to enable the category
+     * @return Command result
+     */
+    private static int executeTraceToggle(CommandContext<ServerCommandSource> context, TraceCategory category, boolean enabled) {
+        category.setEnabled(enabled);
+        context.getSource().sendFeedback(() -> Text.literal("PowerTrip trace category '" + category.getName() + "' " +
+                                         (enabled ? "enabled" : "disabled")), false);
+        return 1;
+    }
+    
+    /**
+     * Execute the trace sampling command
+     * @param context Command context
+     * @param category The category to configure
+     * @return Command result
+     */
+    private static int executeTraceSample(CommandContext<ServerCommandSource> context, TraceCategory category) {
+        int every = IntegerArgumentType.getInteger(context, "every");
+        category.setSampleEvery(every);
+        context.getSource().sendFeedback(() -> Text.literal("PowerTrip trace category '" + category.getName() +
+                                         "' now records 1 in every " + every + " events"), false);
+        return 1;
+    }
+    
+    /**
+     * Builds the /powertrip history subcommands
+     * The "recent" literal takes precedence over a player of that name
+     * @return The history command node
+     */
+    private static LiteralArgumentBuilder<ServerCommandSource> buildHistoryCommand() {
+        return literal("history")
+            .then(literal("recent")
+                .executes(context -> executeHistoryRecent(context, DEFAULT_RECENT_DAYS))
+                .then(argument("days", IntegerArgumentType.integer(1))
+                    .executes(context -> executeHistoryRecent(context, IntegerArgumentType.getInteger(context, "days")))
+                )
+            )
+            .then(argument("player", StringArgumentType.word())
+                .executes(PowerTripCommands::executeHistoryPlayer)
+            );
+    }
+    
+    /**
+     * Builds the /powertrip reign subcommands for team and dimension reigns
+     * @return The reign command node
+     */
+    private static LiteralArgumentBuilder<ServerCommandSource> buildReignCommand() {
+        return literal("reign")
+            .then(literal("list")
+                .executes(PowerTripCommands::executeReignList)
+            )
+            .then(literal("add")
+                .then(literal("team")
+                    .then(argument("team", TeamArgumentType.team())
+                        .then(argument("days", IntegerArgumentType.integer(1))
+                            .executes(context -> executeReignAdd(context, ReignScope.TEAM,
+                                TeamArgumentType.getTeam(context, "team").getName()))
+                        )
+                    )
+                )
+                .then(literal("dimension")
+                    .then(argument("dimension", DimensionArgumentType.dimension())
+                        .then(argument("days", IntegerArgumentType.integer(1))
+                            .executes(context -> executeReignAdd(context, ReignScope.DIMENSION,
+                                DimensionArgumentType.getDimensionArgument(context, "dimension").getRegistryKey().getValue().toString()))
+                        )
+                    )
+                )
+            )
+            .then(literal("remove")
+                .then(argument("id", IntegerArgumentType.integer(1))
+                    .executes(PowerTripCommands::executeReignRemove)
+                )
+            );
+    }
+    
+    /**
+     * Execute the reign list command
+     * @param context Command context
+     * @return Number of reigns listed
+     */
+    private static int executeReignList(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        ReignRegistry reigns = PowerTripMod.POWER_MANAGER.getReignRegistry();
+        if (reigns.size() == 0) {
+            source.sendFeedback(() -> Text.literal("No team or dimension reigns. Add one with /powertrip reign add."), false);
+            return 0;
+        }
+        
+        long now = PowerTripMod.CLOCK.getTimeOfDay();
+        source.sendFeedback(() -> Text.literal("Team and dimension reigns:"), false);
+        for (int reignId : reigns.reignIds()) {
+            long endTime = reigns.getEndTime(reignId);
+            String ruler = endTime < 0 ? "vacant" :
+                           reigns.getRulerName(reignId) + " for " + formatTicks(endTime - now) + " more";
+            String line = "- #" + reignId + " " + reigns.describe(reignId) + " (" + reigns.getDurationDays(reignId) +
+                          " day reigns): " + ruler;
+            source.sendFeedback(() -> Text.literal(line), false);
+        }
+        return reigns.size();
+    }
+    
+    /**
+     * Execute the reign add command
+     * @param context Command context
+     * @param scope What the new reign rules over
+     * @param key The team name or dimension id
+     * @return The new reign's id
+     */
+    private static int executeReignAdd(CommandContext<ServerCommandSource> context, ReignScope scope, String key) {
+        ServerCommandSource source = context.getSource();
+        int days = IntegerArgumentType.getInteger(context, "days");
+        int reignId = PowerTripMod.POWER_MANAGER.getReignRegistry().add(source.getServer(), scope, key, days,
+                PowerTripMod.CLOCK.getTimeOfDay());
+        if (reignId < 0) {
+            source.sendFeedback(() -> Text.literal("There is already a reign over " + scope.getDescription() + " " + key), false);
+            return 0;
+        }
+        
+        source.sendFeedback(() -> Text.literal("Added reign #" + reignId + " over " + scope.getDescription() + " " + key +
+                                         ", " + days + " day" + (days > 1 ? "s" : "") + " per ruler"), true);
+        return reignId;
+    }
+    
+    /**
+     * Execute the reign remove command
+     * @param context Command context
+     * @return Command result
+     */
+    private static int executeReignRemove(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        int reignId = IntegerArgumentType.getInteger(context, "id");
+        ReignRegistry reigns = PowerTripMod.POWER_MANAGER.getReignRegistry();
+        String description = reigns.describe(reignId);
+        if (description == null || !reigns.remove(source.getServer(), reignId)) {
+            source.sendFeedback(() -> Text.literal("No reign #" + reignId), false);
+            return 0;
+        }
+        
+        PowerTripMod.POWER_MANAGER.getCommandBudget().remove(reignId);
+        source.sendFeedback(() -> Text.literal("Removed reign #" + reignId + " over " + description), true);
+        return 1;
+    }
+    
+    /**
+     * Execute the budget command - reports how much command time each reign's ruler used
+     * @param context Command context
+     * @return Number of reigns listed
+     */
+    private static int executeBudget(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        if (!ModConfig.COMMAND_BUDGET_ENABLED) {
+            source.sendFeedback(() -> Text.literal("The ruler command budget is disabled."), false);
+            return 0;
+        }
+        
+        List<CommandBudget.Usage> usage = PowerTripMod.POWER_MANAGER.getCommandBudget().usage();
+        if (usage.isEmpty()) {
+            source.sendFeedback(() -> Text.literal("No ruler has run a command yet."), false);
+            return 0;
+        }
+        
+        ReignRegistry reigns = PowerTripMod.POWER_MANAGER.getReignRegistry();
+        source.sendFeedback(() -> Text.literal("Ruler command budget (" + ModConfig.COMMAND_BUDGET_MS_PER_SECOND +
+                                         " ms per second, up to " + ModConfig.COMMAND_BUDGET_BURST_MS + " ms):"), false);
+        for (CommandBudget.Usage reign : usage) {
+            String scope = reign.reignId() == ReignRegistry.GLOBAL_REIGN ? "global" : reigns.describe(reign.reignId());
+            String line = "- " + reign.rulerName() + " (" + (scope != null ? scope : "reign #" + reign.reignId()) + "): " +
+                          reign.usedNanos() / 1_000_000 + " ms over " + reign.commands() +
+                          (reign.commands() == 1 ? " command, " : " commands, ") + reign.rejected() + " refused, " +
+                          reign.availableNanos() / 1_000_000 + " ms available";
+            source.sendFeedback(() -> Text.literal(line), false);
+        }
+        return usage.size();
+    }
+    
+    /**
+     * Execute the history recent command
+     * @param context Command context
+     * @param days How many Minecraft days to look back
+     * @return Number of reigns listed
+     */
+    private static int executeHistoryRecent(CommandContext<ServerCommandSource> context, int days) {
+        ServerCommandSource source = context.getSource();
+        MinecraftServer server = source.getServer();
+        ReignHistory history = PowerTripMod.POWER_MANAGER.getReignHistory();
+        
+        long now = PowerTripMod.CLOCK.getGameTime();
+        List<ReignHistory.Reign> reigns = history.since(now - days * TICKS_PER_DAY, HISTORY_LIMIT);
+        if (reigns.isEmpty()) {
+            source.sendFeedback(() -> Text.literal("No reigns in the last " + days + " days."), false);
+            return 0;
+        }
+        
+        source.sendFeedback(() -> Text.literal("Reigns in the last " + days + " days (newest first):"), false);
+        for (ReignHistory.Reign reign : reigns) {
+            String line = "- " + playerName(server, reign.playerId()) + ": " + describeReign(reign, now);
+            source.sendFeedback(() -> Text.literal(line), false);
+        }
+        return reigns.size();
+    }
+    
+    /**
+     * Execute the history command for a single player
+     * @param context Command context
+     * @return Number of reigns listed
+     */
+    private static int executeHistoryPlayer(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        MinecraftServer server = source.getServer();
+        String name = StringArgumentType.getString(context, "player");
+        
+        Optional<GameProfile> profile = server.getUserCache() == null ? Optional.empty() : server.getUserCache().findByName(name);
+        if (profile.isEmpty()) {
+            source.sendFeedback(() -> Text.literal("Unknown player: " + name), false);
+            return 0;
+        }
+        
+        ReignHistory history = PowerTripMod.POWER_MANAGER.getReignHistory();
+        UUID playerId = profile.get().getId();
+        int total = history.countByPlayer(playerId);
+        if (total == 0) {
+            source.sendFeedback(() -> Text.literal(name + " has never reigned."), false);
+            return 0;
+        }
+        
+        long now = PowerTripMod.CLOCK.getGameTime();
+        List<ReignHistory.Reign> reigns = history.byPlayer(playerId, HISTORY_LIMIT);
+        source.sendFeedback(() -> Text.literal(name + " has reigned " + total + (total == 1 ? " time" : " times") +
+                                         (total > reigns.size() ? " (latest " + reigns.size() + " shown):" : ":")), false);
+        for (ReignHistory.Reign reign : reigns) {
+            String line = "- " + describeReign(reign, now);
+            source.sendFeedback(() -> Text.literal(line), false);
+        }
+        return reigns.size();
+    }
+    
+    /**
+     * Formats one reign for the history commands
+     * @param reign The reign
+     * @param now Current game time
+     * @return e.g. "day 140 to 147 (7 days), ended, picked from 12 players"
+     */
+    private static String describeReign(ReignHistory.Reign reign, long now) {
+        boolean ongoing = reign.endReason() == ReignEndReason.ONGOING;
+        long endTick = ongoing ? now : reign.endTick();
+        long startDay = reign.startTick() / TICKS_PER_DAY;
+        long lengthDays = (endTick - reign.startTick()) / TICKS_PER_DAY;
+        
+        return "day " + startDay + " to " + (ongoing ? "now" : String.valueOf(endTick / TICKS_PER_DAY)) +
+               " (" + lengthDays + (lengthDays == 1 ? " day), " : " days), ") + reign.endReason().getDescription() +
+               ", picked from " + reign.candidateCount() + (reign.candidateCount() == 1 ? " player" : " players");
+    }
+    
+    /**
+     * Resolves a player's current name from the server's user cache
+     * @param server The Minecraft server
+     * @param playerId The player's UUID
+     * @return The name, or the UUID if the player is not cached
+     */
+    private static String playerName(MinecraftServer server, UUID playerId) {
+        if (server.getUserCache() == null) {
+            return playerId.toString();
+        }
+        return server.getUserCache().getByUuid(playerId).map(GameProfile::getName).orElse(playerId.toString());
+    }
+    
+    /**
+     * Execute the stats command - lists the most active players this cycle
+     * @param context Command context
+     * @return Number of players listed
+     */
+    private static int executeStatsTop(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        PlayerStats stats = PowerTripMod.POWER_MANAGER.getPlayerStats();
+        List<UUID> top = stats.topByCycleTicks(STATS_LIMIT);
+        if (top.isEmpty()) {
+            source.sendFeedback(() -> Text.literal("No playtime recorded yet."), false);
+            return 0;
+        }
+        
+        source.sendFeedback(() -> Text.literal("Playtime this cycle (" + stats.size() + " players tracked):"), false);
+        for (UUID playerId : top) {
+            String line = "- " + playerName(source.getServer(), playerId) + ": " + formatTicks(stats.getCycleTicks(playerId)) +
+                          " (total " + formatTicks(stats.getTotalTicks(playerId)) + ")";
+            source.sendFeedback(() -> Text.literal(line), false);
+        }
+        return top.size();
+    }
+    
+    /**
+     * Execute the stats command for a single player
+     * @param context Command context
+     * @return Command result
+     */
+    private static int executeStatsPlayer(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        MinecraftServer server = source.getServer();
+        String name = StringArgumentType.getString(context, "player");
+        
+        Optional<GameProfile> profile = server.getUserCache() == null ? Optional.empty() : server.getUserCache().findByName(name);
+        PlayerStats stats = PowerTripMod.POWER_MANAGER.getPlayerStats();
+        if (profile.isEmpty() || stats.getLastSeenTick(profile.get().getId()) < 0) {
+            source.sendFeedback(() -> Text.literal("No playtime recorded for " + name), false);
+            return 0;
+        }
+        
+        UUID playerId = profile.get().getId();
+        long daysAgo = (PowerTripMod.CLOCK.getGameTime() - stats.getLastSeenTick(playerId)) / TICKS_PER_DAY;
+        source.sendFeedback(() -> Text.literal(name + ":"), false);
+        source.sendFeedback(() -> Text.literal("- This cycle: " + formatTicks(stats.getCycleTicks(playerId))), false);
+        source.sendFeedback(() -> Text.literal("- Total: " + formatTicks(stats.getTotalTicks(playerId))), false);
+        source.sendFeedback(() -> Text.literal("- Last online: " + (daysAgo == 0 ? "today" : daysAgo + " Minecraft days ago")), false);
+        return 1;
+    }
+    
+    /**
+     * Formats a tick count as hours and minutes
+     * @param ticks The tick count
+     * @return e.g. "3h 25m"
+     */
+    private static String formatTicks(long ticks) {
+        long minutes = ticks / 1200;
+        return (minutes / 60) + "h " + (minutes % 60) + "m";
+    }
 }
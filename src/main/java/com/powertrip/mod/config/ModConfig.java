@@ -1,5 +1,7 @@
 package com.powertrip.mod.config;
 
+import java.util.Set;
+
 /**
  * Configuration settings for the PowerTrip mod
  */
@@ -11,6 +13,28 @@ public class ModConfig {
     // 5 seconds = 100 ticks
     public static final int ROULETTE_DURATION_TICKS = 100;
     
+    // Time between the roulette stopping and the operator grant (in ticks)
+    // Keeps the winner on screen briefly before the server hands out powers
+    public static final int REVEAL_DELAY_TICKS = 20;
+    
+    // Time between sending the end animation and revoking operator status (in ticks)
+    public static final int END_ANIMATION_LEAD_TICKS = 10;
+    
+    // Hold back reminders, cycle starts and cycle ends while the server is lagging
+    public static final boolean DEFER_WHEN_LAGGING = true;
+    
+    // Average milliseconds per tick (over the last 100 ticks) above which the server counts as lagging
+    public static final int LAG_MSPT_THRESHOLD = 45;
+    
+    // The server stops counting as lagging once below this share of the threshold (percent)
+    public static final int LAG_RECOVERY_PERCENT = 80;
+    
+    // How often held back work is retried (in ticks)
+    public static final int LAG_RETRY_TICKS = 20;
+    
+    // Longest a cycle end may be held back before powers are revoked regardless (in milliseconds)
+    public static final long LAG_REVOKE_GRACE_MS = 30000;
+    
     // Delay between each name change in the roulette (in ticks)
     // Higher value = slower cycling of names for better readability
     // 10 ticks = 0.5 seconds between name changes
@@ -22,6 +46,66 @@ public class ModConfig {
     // Scaling factor for the roulette text - larger = bigger text
     public static final float ROULETTE_TEXT_SCALE = 2.0F;
     
+    // Number of diagnostic trace events kept in memory for /powertrip trace dump
+    public static final int TRACE_BUFFER_SIZE = 1024;
+    
+    // Let players who are offline when the cycle starts win; their reign begins on their next join
+    public static final boolean OFFLINE_CANDIDATES = false;
+    
+    // With OFFLINE_CANDIDATES, how recently (in real days) a player must have been online to be drawn
+    public static final int OFFLINE_CANDIDATE_DAYS = 14;
+    
+    // Number of most recent rulers who sit out the next draw
+    public static final int EXCLUDE_RECENT_RULERS = 1;
+    
+    // Days after their reign until a former ruler is as likely to win as someone who never ruled
+    public static final int RECENCY_WEIGHT_DAYS = 28;
+    
+    // Minutes a player must have played since the last reign began to be drawn (0 = no minimum)
+    public static final int MIN_CYCLE_PLAYTIME_MINUTES = 0;
+    
+    // Leave players who are away from the keyboard out of the draw and the roulette
+    public static final boolean EXCLUDE_AFK_PLAYERS = true;
+    
+    // Players checked for activity per tick; each player is checked every (online players / this) ticks
+    public static final int AFK_SAMPLES_PER_TICK = 4;
+    
+    // Ticks without movement, looking around or input before a player counts as idle (5 minutes)
+    public static final int AFK_IDLE_TICKS = 6000;
+    
+    // Longest the eligibility rules may run before every online player is let into the draw
+    public static final int ELIGIBILITY_TIMEOUT_MS = 500;
+    
+    // Candidates from which the eligibility rules are split across worker threads
+    public static final int ELIGIBILITY_PARALLEL_THRESHOLD = 2048;
+    
+    // How often the per-player playtime counters are updated (in ticks)
+    public static final int STATS_INTERVAL_TICKS = 20;
+    
+    // Grant the ruler an in-memory permission lease instead of adding them to ops.json
+    public static final boolean USE_PERMISSION_OVERLAY = true;
+    
+    // Permission level leased to the ruler (4 = full operator)
+    public static final int RULER_PERMISSION_LEVEL = 4;
+    
+    // Commands a leased ruler may run; empty means every command not denied below
+    public static final Set<String> RULER_COMMAND_ALLOW = Set.of();
+    
+    // Commands a leased ruler may never run, even with a high enough level
+    public static final Set<String> RULER_COMMAND_DENY = Set.of("stop", "op", "deop", "ban-ip", "pardon-ip", "save-off", "whitelist");
+    
+    // Cap the server time rulers may spend running commands, per reign
+    public static final boolean COMMAND_BUDGET_ENABLED = true;
+    
+    // Milliseconds of command execution a ruler earns per second of real time
+    public static final long COMMAND_BUDGET_MS_PER_SECOND = 20;
+    
+    // Most milliseconds a ruler can save up, i.e. the longest burst of commands allowed at once
+    public static final long COMMAND_BUDGET_BURST_MS = 1000;
+    
+    // How long a team or dimension reign with nobody to rule waits before drawing again (in ticks, 1 minute)
+    public static final int SCOPED_REIGN_RETRY_TICKS = 1200;
+    
     // Different colors for roulette names (in hexadecimal)
     public static final int[] ROULETTE_COLORS = {
         0xFF5555, // Red
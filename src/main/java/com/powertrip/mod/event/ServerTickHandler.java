@@ -1,9 +1,22 @@
 package com.powertrip.mod.event;
 
 import com.powertrip.mod.PowerTripMod;
+import com.powertrip.mod.config.ModConfig;
+import com.powertrip.mod.network.RosterTable;
+import com.powertrip.mod.power.CyclePhase;
+import com.powertrip.mod.power.CycleStateStore;
+import com.powertrip.mod.power.EligibilityPipeline;
 import com.powertrip.mod.power.PowerManager;
+import com.powertrip.mod.power.ReignEndReason;
+import com.powertrip.mod.power.ReignHistory;
+import com.powertrip.mod.power.SelectionEngine;
+import com.powertrip.mod.util.DeadlineQueue;
+import com.powertrip.mod.util.RouletteTimeline;
+import com.powertrip.mod.util.TickLoad;
 import com.powertrip.mod.util.TimeTracker;
-import java.util.ArrayList;
+import com.powertrip.mod.util.Trace;
+import com.powertrip.mod.util.TraceCategory;
+import com.powertrip.mod.util.WorldClock;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
@@ -11,8 +24,11 @@ import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
 
 /**
  * Handles server tick events to track time and trigger power cycles
@@ -20,22 +36,51 @@ import java.util.Random;
 public class ServerTickHandler implements ServerTickEvents.EndTick {
     private final TimeTracker timeTracker;
     private final PowerManager powerManager;
-    private boolean isRouletteActive = false;
-    private boolean pendingAutostart = false; // NEW FLAG: Track if we're pending autostart after ending animation
-    private int dailyReminderCounter = 0;
     
-    // Timer for autostart delay after end animation
-    private int autostartDelayTimer = 0;
+    // Winner chosen in SELECTING, granted when REVEALING completes
+    private UUID pendingWinnerId = null;
+    private String pendingWinnerName = null;
+    private int pendingCandidateCount = 0;
+    
+    // Delay between the end animation and the automatic start of the next cycle
     private static final int AUTOSTART_DELAY = 100; // 5 seconds (100 ticks)
     
-    // Tick counter for periodic time updates
-    private int tickCounter = 0;
-    private static final int TIME_UPDATE_INTERVAL = 100; // Send time update every 5 seconds (100 ticks)
-    private static final int MINUTE_UPDATE_INTERVAL = 20; // More frequent updates when minutes are shown (1 second)
+    // How often to re-check the scheduled cycle when it could not start (e.g. no players online)
+    private static final int TIME_CHECK_INTERVAL = 1000; // 50 seconds
+    
+    // How often to remind players about days remaining (in ticks)
+    private static final int REMINDER_INTERVAL = 24000; // Once per Minecraft day
+    
+    // Deadlines keyed on overworld time of day
+    private static final int DEADLINE_CYCLE_END = 0;
+    private static final int DEADLINE_REMINDER = 1;
+    private static final int DEADLINE_SCHEDULED_CYCLE = 2;
+    
+    // Deadlines keyed on server tick count (real time, unaffected by /time set or a frozen daylight cycle)
+    private static final int DEADLINE_PHASE_ADVANCE = 0;
+    private static final int DEADLINE_DEFERRED = 1;
+    
+    // Work held back while the server lags, retried on DEADLINE_DEFERRED
+    private static final int DEFER_CYCLE_END = 1;
+    private static final int DEFER_CYCLE_START = 2;
+    private static final int DEFER_REMINDER = 4;
+    
+    // Hands out one seed per cycle
+    private final SplittableRandom seedSource = new SplittableRandom();
     
-    // Absolute time tracking
-    private long lastCheckedWorldTime = 0;
-    private static final int TIME_CHECK_INTERVAL = 1000; // Check absolute time every 1000 ticks (50 seconds)
+    // Identifies the latest eligibility evaluation, so a result that arrives after a stop or reload is dropped
+    private long evaluationId = 0;
+    
+    private final DeadlineQueue worldDeadlines = new DeadlineQueue();
+    private final DeadlineQueue tickDeadlines = new DeadlineQueue();
+    
+    // Set once the deadlines have been registered against the loaded world's clock
+    private boolean deadlinesPrimed = false;
+    
+    // Lag detection, and the DEFER_ bits of the work it is holding back
+    private final TickLoad tickLoad = new TickLoad();
+    private int deferredWork = 0;
+    private long cycleEndDeferredAt = -1; // System.nanoTime() when the cycle end was first held back
     
     /**
      * Flag to indicate a manual power cycle has been requested
@@ -43,14 +88,58 @@ public class ServerTickHandler implements ServerTickEvents.EndTick {
     private boolean manualPowerCycleRequested = false;
     private MinecraftServer pendingServer = null;
     
-    // How often to remind players about days remaining (in ticks)
-    private static final int REMINDER_INTERVAL = 24000; // Once per Minecraft day
-    
     public ServerTickHandler() {
-        this.timeTracker = new TimeTracker();
+        this.timeTracker = new TimeTracker(PowerTripMod.CLOCK);
         this.powerManager = new PowerManager();
     }
     
+    /**
+     * Restores the saved cycle state for the world being loaded - called once the server has started
+     * Deadlines are primed again on the first tick, picking up a restored reign
+     * @param server The Minecraft server instance
+     */
+    public void onServerStarted(MinecraftServer server) {
+        PowerTripMod.CLOCK.reset(server);
+        powerManager.loadState(server);
+        worldDeadlines.clear();
+        tickDeadlines.clear();
+        deadlinesPrimed = false;
+        tickLoad.reset();
+        deferredWork = 0;
+        cycleEndDeferredAt = -1;
+        manualPowerCycleRequested = false;
+        pendingServer = null;
+        pendingWinnerId = null;
+        pendingWinnerName = null;
+        evaluationId++;
+    }
+    
+    /**
+     * Records a player joining and starts the reign of a queued offline winner
+     * @param server The Minecraft server instance
+     * @param player The player who joined
+     */
+    public void onPlayerJoin(MinecraftServer server, ServerPlayerEntity player) {
+        powerManager.getPlayerRegistry().recordJoin(player.getUuid(), player.getName().getString(), System.currentTimeMillis());
+        
+        CycleStateStore.QueuedWinner queued = powerManager.getQueuedWinner();
+        if (queued != null && queued.playerId().equals(player.getUuid())
+                && powerManager.getPhase() == CyclePhase.IDLE && !powerManager.isRunning()) {
+            PowerTripMod.LOGGER.info("Queued winner " + queued.name() + " joined - starting their reign");
+            beginReign(server, player, player.getName().getString(), queued.candidateCount());
+        }
+    }
+    
+    /**
+     * Records a player leaving
+     * @param server The Minecraft server instance
+     * @param player The player who left
+     */
+    public void onPlayerLeave(MinecraftServer server, ServerPlayerEntity player) {
+        powerManager.getPlayerRegistry().recordLeave(player.getUuid(), System.currentTimeMillis());
+        powerManager.getAfkTracker().remove(player.getUuid());
+    }
+    
     /**
      * Manually trigger a power cycle from outside the normal tick routine
      * This is called from PowerManager when the /powertrip start command is used
@@ -64,106 +153,371 @@ public class ServerTickHandler implements ServerTickEvents.EndTick {
     
     @Override
     public void onEndTick(MinecraftServer server) {
-        tickCounter++;
+        // The one read of the world time this tick - everything below uses the clock
+        WorldClock clock = PowerTripMod.CLOCK;
+        clock.sample(server);
+        long currentWorldTime = clock.getTimeOfDay();
         
-        // Get current absolute world time
-        long currentWorldTime = server.getOverworld().getTimeOfDay();
+        // Time jumps re-arm the deadlines as they happen, through onTimeJumped
+        if (!deadlinesPrimed) {
+            deadlinesPrimed = true;
+            primeDeadlines(server, currentWorldTime);
+        }
         
-        // Check EVERY tick if the cycle should end based on absolute time
-        // This ensures cycle ends exactly when it should rather than waiting for TIME_CHECK_INTERVAL
-        if (powerManager.isRunning()) {
-            long cycleEndTime = powerManager.getCycleEndTime();
-            if (currentWorldTime >= cycleEndTime) {
-                handleCycleEnd(server);
-            }
+        // One pass over the online players, once a second
+        if (server.getTicks() % ModConfig.STATS_INTERVAL_TICKS == 0) {
+            powerManager.getPlayerStats().tick(server.getPlayerManager().getPlayerList(),
+                    ModConfig.STATS_INTERVAL_TICKS, clock.getGameTime());
         }
         
-        // Get current absolute world time to decide update frequency
-        long ticksRemaining = powerManager.getCycleEndTime() - currentWorldTime;
-        double hoursRaw = (ticksRemaining * 24.0) / 24000.0;
+        // A fixed slice of players per tick
+        if (ModConfig.EXCLUDE_AFK_PLAYERS) {
+            powerManager.getAfkTracker().tick(server.getPlayerManager().getPlayerList(), server.getTicks());
+        }
         
-        // Periodically send time updates to all clients
-        // Use more frequent updates when less than 1 hour remains
-        if (hoursRaw < 1.0 && powerManager.isRunning()) {
-            if (tickCounter % MINUTE_UPDATE_INTERVAL == 0) {
-                sendTimeUpdateToAll(server);
-            }
-        } else {
-            if (tickCounter % TIME_UPDATE_INTERVAL == 0) {
-                sendTimeUpdateToAll(server);
-            }
+        // Check if a manual power cycle was requested
+        if (manualPowerCycleRequested && pendingServer != null && (server.getCurrentPlayerCount() > 0 || ModConfig.OFFLINE_CANDIDATES)) {
+            PowerTripMod.LOGGER.info("Executing manually triggered power cycle");
+            startPowerCycle(pendingServer);
+            // Reset the flag after handling
+            manualPowerCycleRequested = false;
+            pendingServer = null;
+            return; // Skip normal tick processing for this cycle
         }
         
-        // Check for time jumps and day changes every TIME_CHECK_INTERVAL ticks
-        // This guards against time manipulation via console, sleeping, or other means
-        if (tickCounter % TIME_CHECK_INTERVAL == 0 || 
-            Math.abs(currentWorldTime - lastCheckedWorldTime) > 24000) { // Also check if time jumped drastically
-            
-            // Update last checked time
-            lastCheckedWorldTime = currentWorldTime;
-            
-            // Check if power cycle should end due to time changes
-            checkPowerCycleStatus(server, currentWorldTime);
+        // Nothing due is the common case - a single comparison per queue
+        if (worldDeadlines.isDue(currentWorldTime)) {
+            runWorldDeadlines(server, currentWorldTime);
+        }
+        
+        long serverTick = server.getTicks();
+        if (tickDeadlines.isDue(serverTick)) {
+            runTickDeadlines(server, serverTick);
         }
         
-        // Skip further checks if no players are online
-        if (server.getCurrentPlayerCount() == 0) {
+        // Team and dimension reigns keep their own deadlines
+        powerManager.getReignRegistry().tick(server, currentWorldTime);
+    }
+    
+    /**
+     * Registers the deadlines that exist independently of a running cycle
+     * @param server The Minecraft server
+     * @param currentWorldTime Current absolute world time
+     */
+    private void primeDeadlines(MinecraftServer server, long currentWorldTime) {
+        // First call initializes the tracker without triggering a cycle
+        timeTracker.shouldTriggerCycle();
+        scheduleNextScheduledCycle(currentWorldTime);
+        if (powerManager.isRunning()) {
+            scheduleCycleDeadlines(currentWorldTime);
+        }
+    }
+    
+    /**
+     * Re-arms world-relative deadlines after /time set, sleeping or other manipulation
+     * Deadlines not primed yet are left alone - priming reads the time afresh
+     * @param server The Minecraft server
+     * @param oldTime The absolute world time before the jump
+     * @param currentWorldTime The absolute world time after the jump
+     */
+    public void onTimeJumped(MinecraftServer server, long oldTime, long currentWorldTime) {
+        Trace.log(TraceCategory.TIME, "World time jumped from {} to {}", oldTime, currentWorldTime);
+        if (!deadlinesPrimed) {
             return;
         }
         
-        // Check if we're waiting to autostart after END animation completes
-        if (pendingAutostart) {
-            // Increment the timer
-            autostartDelayTimer++;
+        // The cycle end is absolute, so it stays put; reminders are relative to "now" and must move
+        if (powerManager.isRunning() && powerManager.getCurrentPowerPlayer() != null) {
+            powerManager.updateDaysRemaining(currentWorldTime);
+            scheduleCycleDeadlines(currentWorldTime);
             
-            // Once we've waited long enough, start the new cycle
-            if (autostartDelayTimer >= AUTOSTART_DELAY) {
-                PowerTripMod.LOGGER.info("END ANIMATION COMPLETE - Now auto-starting new PowerTrip cycle after waiting for animation");
+            // Clients extrapolate the countdown from their own clock, so re-anchor them
+            PowerTripMod.NETWORK.publishCycleState(server);
+        }
+        scheduleNextScheduledCycle(currentWorldTime);
+        powerManager.getReignRegistry().onTimeJumped(server, currentWorldTime);
+    }
+    
+    /**
+     * Registers the cycle end and daily reminder deadlines for the running cycle
+     * @param currentWorldTime Current absolute world time
+     */
+    private void scheduleCycleDeadlines(long currentWorldTime) {
+        long cycleEndTime = powerManager.getCycleEndTime();
+        if (cycleEndTime < 0) {
+            return;
+        }
+        worldDeadlines.schedule(DEADLINE_CYCLE_END, cycleEndTime);
+        worldDeadlines.schedule(DEADLINE_REMINDER, nextDayBoundary(currentWorldTime));
+    }
+    
+    /**
+     * Registers the check for the periodic (every DAYS_BETWEEN_CYCLES) cycle
+     * @param currentWorldTime Current absolute world time
+     */
+    private void scheduleNextScheduledCycle(long currentWorldTime) {
+        long nextCycleTime = timeTracker.getNextCycleTime();
+        if (nextCycleTime < 0) {
+            return;
+        }
+        worldDeadlines.schedule(DEADLINE_SCHEDULED_CYCLE, Math.max(nextCycleTime, currentWorldTime + 1));
+    }
+    
+    /**
+     * Gets the world time of the next Minecraft day boundary
+     * @param currentWorldTime Current absolute world time
+     * @return The first multiple of a day strictly after currentWorldTime
+     */
+    private static long nextDayBoundary(long currentWorldTime) {
+        return (currentWorldTime / REMINDER_INTERVAL + 1) * REMINDER_INTERVAL;
+    }
+    
+    /**
+     * Runs every world-time deadline that is due
+     * @param server The Minecraft server
+     * @param currentWorldTime Current absolute world time
+     */
+    private void runWorldDeadlines(MinecraftServer server, long currentWorldTime) {
+        int id;
+        while ((id = worldDeadlines.pollDue(currentWorldTime)) != -1) {
+            switch (id) {
+                case DEADLINE_CYCLE_END -> {
+                    // Deadlines are cancelled lazily - a stopped cycle simply ignores its old end time
+                    endCycleUnlessLagging(server);
+                }
+                case DEADLINE_REMINDER -> {
+                    if (powerManager.isRunning()) {
+                        // Update the days remaining counter based on current day
+                        powerManager.updateDaysRemaining(timeTracker.getCurrentDay(), server);
+                        powerManager.updateDaysRemaining(currentWorldTime);
+                        remindUnlessLagging(server);
+                        worldDeadlines.schedule(DEADLINE_REMINDER, nextDayBoundary(currentWorldTime));
+                    }
+                }
+                case DEADLINE_SCHEDULED_CYCLE -> checkScheduledCycle(server, currentWorldTime);
+                default -> PowerTripMod.LOGGER.warn("Unknown world deadline: " + id);
+            }
+        }
+    }
+    
+    /**
+     * Runs every tick-count deadline that is due
+     * @param server The Minecraft server
+     * @param serverTick Current server tick count
+     */
+    private void runTickDeadlines(MinecraftServer server, long serverTick) {
+        int id;
+        while ((id = tickDeadlines.pollDue(serverTick)) != -1) {
+            if (id == DEADLINE_PHASE_ADVANCE) {
+                advancePhase(server, serverTick);
+            } else if (id == DEADLINE_DEFERRED) {
+                runDeferredWork(server);
+            } else {
+                PowerTripMod.LOGGER.warn("Unknown tick deadline: " + id);
+            }
+        }
+    }
+    
+    /**
+     * Moves the cycle state machine to its next phase once the current phase has run its course
+     * @param server The Minecraft server
+     * @param serverTick Current server tick count
+     */
+    private void advancePhase(MinecraftServer server, long serverTick) {
+        switch (powerManager.getPhase()) {
+            case SELECTING -> {
+                // Roulette has stopped on the clients - leave the winner on screen before granting
+                enterPhase(CyclePhase.REVEALING, serverTick, ModConfig.REVEAL_DELAY_TICKS);
+            }
+            case REVEALING -> grantPendingWinner(server);
+            case ENDING -> {
+                // End animation is underway, now actually remove powers
+                powerManager.removeAllPlayerPowers(server);
                 
-                // Reset the flags
-                pendingAutostart = false;
-                autostartDelayTimer = 0;
+                // Send explicit 'inactive' state update to all clients when cycle ends
+                PowerTripMod.LOGGER.info("Sending inactive state to all clients");
+                PowerTripMod.NETWORK.publishCycleState(server);
+                
+                // Start a new cycle after the END animation is done, but ONLY if autostart is enabled
+                if (powerManager.isAutostartEnabled()) {
+                    PowerTripMod.LOGGER.info("Marking cycle for autostart when END ANIMATION completes");
+                    enterPhase(CyclePhase.COOLDOWN, serverTick, AUTOSTART_DELAY);
+                } else {
+                    powerManager.setPhase(CyclePhase.IDLE);
+                }
+            }
+            case COOLDOWN -> {
+                // Wait for players before starting, unless offline players can win
+                if (server.getCurrentPlayerCount() == 0 && !ModConfig.OFFLINE_CANDIDATES) {
+                    tickDeadlines.schedule(DEADLINE_PHASE_ADVANCE, serverTick + AUTOSTART_DELAY);
+                    return;
+                }
+                
+                PowerTripMod.LOGGER.info("END ANIMATION COMPLETE - Now auto-starting new PowerTrip cycle after waiting for animation");
+                powerManager.setPhase(CyclePhase.IDLE);
                 
                 // Start a new cycle but ONLY if we're not already in one
-                if (!isRouletteActive && !powerManager.isRunning()) {
-                    startPowerCycle(server);
+                if (!powerManager.isRunning()) {
+                    startCycleUnlessLagging(server);
                 }
             }
+            default -> {
+                // IDLE or GRANTED - a stale advance left over from a stopped cycle
+            }
         }
-        
-        // Check if a manual power cycle was requested
-        if (manualPowerCycleRequested && pendingServer != null) {
-            PowerTripMod.LOGGER.info("Executing manually triggered power cycle");
-            startPowerCycle(pendingServer);
-            // Reset the flag after handling
-            manualPowerCycleRequested = false;
-            pendingServer = null;
-            return; // Skip normal tick processing for this cycle
+    }
+    
+    /**
+     * Holds work back while the server lags and arranges for it to be retried
+     * A cycle end is held back for at most {@link ModConfig#LAG_REVOKE_GRACE_MS}, so the
+     * ruler's operator status is always taken back within that window
+     * @param server The Minecraft server
+     * @param work The DEFER_ bit of the work
+     * @return true if the work was held back, false if it should run now
+     */
+    private boolean deferIfLagging(MinecraftServer server, int work) {
+        if (!ModConfig.DEFER_WHEN_LAGGING || !tickLoad.isLagging(server)) {
+            return false;
         }
         
-        // Only process if power cycle is running (started by command)
-        if (powerManager.isRunning()) {
-            // Update the days remaining counter based on current day
-            long currentDay = timeTracker.getCurrentDay(server);
-            boolean dayChanged = powerManager.updateDaysRemaining(currentDay, server);
-            
-            // Check the actual time rather than just days
-            // Get the current world time and cycle end time
-            currentWorldTime = server.getOverworld().getTimeOfDay(); // Using existing variable
-            long cycleEndTime = powerManager.getCycleEndTime();
-            
-            // Only end the cycle when actual time runs out, not when days reach 0
-            if (currentWorldTime >= cycleEndTime && !isRouletteActive) {
-                PowerTripMod.LOGGER.info("Power cycle completed (actual time), starting new cycle");
-                startPowerCycle(server);
+        if (work == DEFER_CYCLE_END) {
+            long now = System.nanoTime();
+            if (cycleEndDeferredAt < 0) {
+                cycleEndDeferredAt = now;
+            } else if (now - cycleEndDeferredAt >= ModConfig.LAG_REVOKE_GRACE_MS * 1_000_000) {
+                PowerTripMod.LOGGER.warn("Server still lagging (" + tickLoad.getLastMspt() + " ms per tick), ending the cycle anyway");
+                return false;
             }
-            
-            // Daily reminders about days remaining
-            dailyReminderCounter++;
-            if (dailyReminderCounter >= REMINDER_INTERVAL || dayChanged) {
-                dailyReminderCounter = 0;
-                sendDaysRemainingReminder(server);
+        }
+        
+        deferredWork |= work;
+        if (!tickDeadlines.isScheduled(DEADLINE_DEFERRED)) {
+            tickDeadlines.schedule(DEADLINE_DEFERRED, server.getTicks() + ModConfig.LAG_RETRY_TICKS);
+        }
+        Trace.log(TraceCategory.POWER, "Server lagging at {} ms per tick, holding back work {}", tickLoad.getLastMspt(), work);
+        return true;
+    }
+    
+    /**
+     * Retries the work held back while the server lagged, holding it back again if it still does
+     * @param server The Minecraft server
+     */
+    private void runDeferredWork(MinecraftServer server) {
+        int work = deferredWork;
+        deferredWork = 0;
+        
+        // Each step re-checks its own preconditions, since the cycle may have been stopped or restarted meanwhile
+        if ((work & DEFER_CYCLE_END) != 0) {
+            endCycleUnlessLagging(server);
+        }
+        if ((work & DEFER_CYCLE_START) != 0 && powerManager.getPhase() == CyclePhase.IDLE && !powerManager.isRunning()
+                && powerManager.getQueuedWinner() == null) {
+            startCycleUnlessLagging(server);
+        }
+        if ((work & DEFER_REMINDER) != 0 && powerManager.isRunning()) {
+            remindUnlessLagging(server);
+        }
+    }
+    
+    /**
+     * Ends the running cycle once its end time has come, unless the server is lagging
+     * The end animation, ops.json revoke, command tree resends and history write all follow from here
+     * @param server The Minecraft server
+     */
+    private void endCycleUnlessLagging(MinecraftServer server) {
+        // Deadlines are cancelled lazily - a stopped cycle simply ignores its old end time
+        if (powerManager.getPhase() != CyclePhase.GRANTED || !powerManager.isRunning()
+                || PowerTripMod.CLOCK.getTimeOfDay() < powerManager.getCycleEndTime()) {
+            cycleEndDeferredAt = -1;
+            return;
+        }
+        if (deferIfLagging(server, DEFER_CYCLE_END)) {
+            return;
+        }
+        cycleEndDeferredAt = -1;
+        handleCycleEnd(server);
+    }
+    
+    /**
+     * Starts the roulette for a new cycle, unless the server is lagging
+     * Manual starts from /powertrip start are never held back
+     * @param server The Minecraft server
+     */
+    private void startCycleUnlessLagging(MinecraftServer server) {
+        if (!deferIfLagging(server, DEFER_CYCLE_START)) {
+            startPowerCycle(server);
+        }
+    }
+    
+    /**
+     * Sends the days remaining reminder, unless the server is lagging
+     * @param server The Minecraft server
+     */
+    private void remindUnlessLagging(MinecraftServer server) {
+        if (server.getCurrentPlayerCount() > 0 && !deferIfLagging(server, DEFER_REMINDER)) {
+            sendDaysRemainingReminder(server);
+        }
+    }
+    
+    /**
+     * Enters a timed phase and registers the tick at which it advances
+     * @param phase The phase to enter
+     * @param serverTick Current server tick count
+     * @param durationTicks How long the phase lasts
+     */
+    private void enterPhase(CyclePhase phase, long serverTick, int durationTicks) {
+        powerManager.setPhase(phase);
+        tickDeadlines.schedule(DEADLINE_PHASE_ADVANCE, serverTick + durationTicks);
+    }
+    
+    /**
+     * Grants power to the winner chosen when the cycle started
+     * @param server The Minecraft server
+     */
+    private void grantPendingWinner(MinecraftServer server) {
+        UUID winnerId = pendingWinnerId;
+        ServerPlayerEntity winner = winnerId == null ? null : server.getPlayerManager().getPlayer(winnerId);
+        String winnerName = pendingWinnerName;
+        pendingWinnerId = null;
+        pendingWinnerName = null;
+        
+        if (winner == null && ModConfig.OFFLINE_CANDIDATES && winnerId != null) {
+            // Offline when drawn (or left since) - the reign waits for their next join, and nothing runs until then
+            PowerTripMod.LOGGER.info("Selected player " + winnerName + " is offline, their reign starts when they join");
+            powerManager.abortCycle();
+            powerManager.queueWinner(winnerId, winnerName, pendingCandidateCount);
+            for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+                player.sendMessage(Text.literal(winnerName + " has been selected as the next operator! Their reign begins when they next join.")
+                        .formatted(Formatting.GOLD), false);
             }
+            return;
+        }
+        if (winner == null) {
+            PowerTripMod.LOGGER.warn("Selected player " + winnerName + " left before the reveal, power cycle abandoned");
+            powerManager.abortCycle();
+            return;
+        }
+        
+        PowerTripMod.LOGGER.info("Animation delay complete - granting power to " + winnerName);
+        beginReign(server, winner, winnerName, pendingCandidateCount);
+    }
+    
+    /**
+     * Grants power to a winner who is online and moves the cycle to GRANTED
+     * @param server The Minecraft server
+     * @param winner The winner
+     * @param winnerName The winner's name
+     * @param candidateCount Number of players the winner was drawn from
+     */
+    private void beginReign(MinecraftServer server, ServerPlayerEntity winner, String winnerName, int candidateCount) {
+        if (powerManager.grantPowerToPlayer(server, winner, winnerName)) {
+            powerManager.recordReignStart(server, winner, candidateCount);
+            powerManager.setPhase(CyclePhase.GRANTED);
+            scheduleCycleDeadlines(PowerTripMod.CLOCK.getTimeOfDay());
+            PowerTripMod.NETWORK.publishCycleState(server);
+            PowerTripMod.LOGGER.info("=== POWER CYCLE COMPLETE ===");
+        } else {
+            powerManager.abortCycle();
         }
     }
     
@@ -172,25 +526,53 @@ public class ServerTickHandler implements ServerTickEvents.EndTick {
      * @param server The Minecraft server instance
      */
     private void startPowerCycle(MinecraftServer server) {
+        if (powerManager.isRouletteActive() || powerManager.getPhase() == CyclePhase.EVALUATING) {
+            PowerTripMod.LOGGER.warn("Power cycle already selecting a winner, ignoring start request");
+            return;
+        }
+        
         PowerTripMod.LOGGER.info("=== POWER CYCLE STARTING ===");
-        isRouletteActive = true;
         
-        // Get list of online players
-        List<String> playerNames = new ArrayList<>();
-        List<ServerPlayerEntity> onlinePlayers = server.getPlayerManager().getPlayerList();
-        if (onlinePlayers.isEmpty()) {
+        // Capture the players here; the rules run off-thread and the draw resumes in finishPowerCycle
+        EligibilityPipeline.Snapshot snapshot = snapshotCandidates(server);
+        if (snapshot.players().isEmpty()) {
             PowerTripMod.LOGGER.info("No players online, skipping power cycle");
-            isRouletteActive = false;
+            powerManager.abortCycle();
+            return;
+        }
+        
+        powerManager.setPhase(CyclePhase.EVALUATING);
+        long evaluation = ++evaluationId;
+        powerManager.getEligibilityPipeline().evaluate(snapshot, server,
+                result -> finishPowerCycle(server, evaluation, snapshot, result));
+    }
+    
+    /**
+     * Draws the winner once the eligibility rules have reported back and starts the roulette
+     * @param server The Minecraft server instance
+     * @param evaluation The evaluation the result belongs to
+     * @param snapshot The players the rules were run on
+     * @param result The weighted candidates
+     */
+    private void finishPowerCycle(MinecraftServer server, long evaluation, EligibilityPipeline.Snapshot snapshot,
+                                  EligibilityPipeline.Result result) {
+        // The cycle was stopped, or the world reloaded, while the rules ran
+        if (evaluation != evaluationId || powerManager.getPhase() != CyclePhase.EVALUATING) {
+            Trace.log(TraceCategory.POWER, "Dropping stale eligibility result {}", evaluation);
             return;
         }
         
-        PowerTripMod.LOGGER.info("Found " + onlinePlayers.size() + " players online");
-        for (ServerPlayerEntity player : onlinePlayers) {
-            String name = player.getName().getString();
-            playerNames.add(name);
-            PowerTripMod.LOGGER.info("Player in cycle: " + name);
+        // Clients already hold the online names in the roster
+        List<SelectionEngine.Candidate> candidates = result.candidates();
+        if (candidates.isEmpty()) {
+            PowerTripMod.LOGGER.info("No eligible players, skipping power cycle");
+            powerManager.abortCycle();
+            return;
         }
         
+        PowerTripMod.LOGGER.info("Found " + candidates.size() + " candidates, " + server.getCurrentPlayerCount() + " players online"
+                + (result.fallback() ? " (eligibility rules timed out, every online player is in)" : ""));
+        
         // First remove OP from all players
         PowerTripMod.LOGGER.info("Removing operator status from all players");
         powerManager.removeAllPlayerPowers(server);
@@ -198,48 +580,111 @@ public class ServerTickHandler implements ServerTickEvents.EndTick {
         // Teleportation to spawn feature removed as requested
         PowerTripMod.LOGGER.info("Player teleportation disabled");
         
-        // Select a player but don't grant power yet
-        Random random = new Random();
-        int selectedIndex = random.nextInt(onlinePlayers.size());
-        ServerPlayerEntity selectedPlayer = onlinePlayers.get(selectedIndex);
-        String selectedPlayerName = selectedPlayer.getName().getString();
-        PowerTripMod.LOGGER.info("Selected player: " + selectedPlayerName + " (will be announced after animation)");
+        // Select a player but don't grant power yet - the cycle seed reproduces both the draw and the animation
+        long cycleSeed = seedSource.nextLong();
+        SplittableRandom random = new SplittableRandom(cycleSeed);
+        SelectionEngine.Selection selection = powerManager.getSelectionEngine().select(candidates, random);
+        if (selection == null) {
+            PowerTripMod.LOGGER.info("No eligible players online, skipping power cycle");
+            powerManager.abortCycle();
+            return;
+        }
+        String selectedPlayerName = selection.name();
+        PowerTripMod.LOGGER.info("Selected player: " + selectedPlayerName + " from " + selection.candidateCount()
+                + " candidates with cycle seed " + cycleSeed + " (will be announced after animation)");
+        pendingWinnerId = selection.playerId();
+        pendingWinnerName = selectedPlayerName;
+        pendingCandidateCount = selection.candidateCount();
+        
+        // Clients rebuild the same timeline from this seed, so it lands on the winner everywhere;
+        // the roulette leaves out whoever the rules saw as idle, even if they have come back since
+        long seed = random.nextLong();
+        int[] idleSlots = result.fallback() ? new int[0] : idleRosterSlots(snapshot, selection.playerId());
+        List<String> rosterNames = RouletteTimeline.withWinner(
+                PowerTripMod.NETWORK.getRoster().liveNamesExcept(idleSlots), selectedPlayerName);
+        RouletteTimeline timeline = RouletteTimeline.create(seed, rosterNames.size(),
+                rosterNames.indexOf(selectedPlayerName), ModConfig.ROULETTE_DURATION_TICKS);
+        Trace.log(TraceCategory.ANIMATION, "Roulette seed {} lands on index {} after {} changes",
+                seed, timeline.getFinalIndex(), timeline.getEventCount());
         
         // Trigger roulette display on all clients BEFORE actually granting power
+        // The grant happens when SELECTING and REVEALING have run their course, driven by tick count;
+        // clients are told that tick so they reveal the winner on it too
+        long revealTick = server.getTicks() + timeline.getDurationTicks() + ModConfig.REVEAL_DELAY_TICKS;
         PowerTripMod.LOGGER.info("Triggering beginning roulette animation for all players");
-        PowerTripMod.NETWORK.triggerRouletteForAll(server, playerNames, selectedPlayerName, true); // true = beginning animation
+        PowerTripMod.NETWORK.triggerRosterRoulette(server, pendingWinnerId, selectedPlayerName, true, seed, revealTick, idleSlots); // true = beginning animation
         
         // No chat message needed - animation will be visible on screen
         
         PowerTripMod.LOGGER.info("Scheduling power grant after animation delay");
+        enterPhase(CyclePhase.SELECTING, server.getTicks(), timeline.getDurationTicks());
+    }
+    
+    /**
+     * Captures the players who may win this cycle for the eligibility rules
+     * Online players always; with OFFLINE_CANDIDATES also anyone seen in the last OFFLINE_CANDIDATE_DAYS
+     * @param server The Minecraft server
+     * @return The snapshot, online players first
+     */
+    private EligibilityPipeline.Snapshot snapshotCandidates(MinecraftServer server) {
+        long worldTime = PowerTripMod.CLOCK.getGameTime();
+        Set<UUID> recentRulers = powerManager.getReignHistory().recentRulers(ModConfig.EXCLUDE_RECENT_RULERS);
+        List<EligibilityPipeline.PlayerState> players = new ArrayList<>();
+        Set<UUID> online = new HashSet<>();
+        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+            online.add(player.getUuid());
+            players.add(capture(player.getUuid(), player.getName().getString(), true, isIdle(player), recentRulers, worldTime));
+        }
         
-        // Instead of using server.execute which could create threading issues,
-        // create a dedicated task with proper timing
-        new Thread(() -> {
-            try {
-                PowerTripMod.LOGGER.info("Animation delay started - waiting 6 seconds");
-                // Wait long enough for animation to complete (in milliseconds)
-                Thread.sleep(6000); // 6 seconds, slightly longer than animation duration
-                
-                // Make sure we're back on the server thread for the final step
-                server.execute(() -> {
-                    PowerTripMod.LOGGER.info("Animation delay complete - granting power to " + selectedPlayerName);
-                    // Now grant power to the selected player
-                    powerManager.grantPowerToPlayer(server, selectedPlayer, selectedPlayerName);
-                    PowerTripMod.LOGGER.info("=== POWER CYCLE COMPLETE ===");
-                    // Reset the roulette active flag to allow future cycles to start properly
-                    isRouletteActive = false;
-                    PowerTripMod.LOGGER.info("Roulette animation flag reset to inactive");
-                    
-                    // Server state is now managed independently of client animation
-                });
-            } catch (InterruptedException e) {
-                PowerTripMod.LOGGER.error("Interrupted while waiting for roulette animation", e);
-                // Just handle server-side state, don't affect client animation
-                PowerTripMod.LOGGER.info("Marking server-side animation state as inactive");
-                isRouletteActive = false;
-            }
-        }, "PowerTrip-AnimationDelay").start();
+        if (ModConfig.OFFLINE_CANDIDATES) {
+            long since = System.currentTimeMillis() - ModConfig.OFFLINE_CANDIDATE_DAYS * 86_400_000L;
+            powerManager.getPlayerRegistry().forEachSeenSince(since, (playerId, name) -> {
+                if (!online.contains(playerId)) {
+                    players.add(capture(playerId, name, false, false, recentRulers, worldTime));
+                }
+            });
+        }
+        return new EligibilityPipeline.Snapshot(worldTime, List.copyOf(players));
+    }
+    
+    /**
+     * Copies what the eligibility rules need to know about one player
+     */
+    private EligibilityPipeline.PlayerState capture(UUID playerId, String name, boolean online, boolean idle,
+                                                    Set<UUID> recentRulers, long worldTime) {
+        List<ReignHistory.Reign> last = powerManager.getReignHistory().byPlayer(playerId, 1);
+        long lastReignEnd = -1;
+        if (!last.isEmpty()) {
+            // A reign still open counts as ending now
+            lastReignEnd = last.get(0).endTick() < 0 ? worldTime : last.get(0).endTick();
+        }
+        return new EligibilityPipeline.PlayerState(playerId, name, online, idle,
+                powerManager.getPlayerStats().getCycleTicks(playerId), lastReignEnd, recentRulers.contains(playerId));
+    }
+    
+    /**
+     * Checks whether a player sits the cycle out for being away from the keyboard
+     * @param player The player
+     * @return true if the player is idle and idle players are excluded
+     */
+    private boolean isIdle(ServerPlayerEntity player) {
+        return ModConfig.EXCLUDE_AFK_PLAYERS && powerManager.getAfkTracker().isIdle(player.getUuid());
+    }
+    
+    /**
+     * Gets the roster slots of the players the snapshot saw as idle, which the roulette leaves out
+     * @param snapshot The players the rules were run on
+     * @param winnerId The winner, who is never left out
+     * @return The slots, in ascending order
+     */
+    private int[] idleRosterSlots(EligibilityPipeline.Snapshot snapshot, UUID winnerId) {
+        RosterTable roster = PowerTripMod.NETWORK.getRoster();
+        return snapshot.players().stream()
+                .filter(player -> player.idle() && !player.playerId().equals(winnerId))
+                .mapToInt(player -> roster.slotOf(player.playerId()))
+                .filter(slot -> slot >= 0)
+                .sorted()
+                .toArray();
     }
     
     /**
@@ -263,31 +708,23 @@ public class ServerTickHandler implements ServerTickEvents.EndTick {
     }
     
     /**
-     * Sends time information to all clients for HUD display
-     * @param server The Minecraft server
-     */
-    /**
-     * Checks if the power cycle status needs to be updated due to time changes
+     * Checks whether the periodic cycle should start now
      * @param server The Minecraft server
      * @param currentWorldTime Current absolute world time
      */
-    private void checkPowerCycleStatus(MinecraftServer server, long currentWorldTime) {
-        // Only check if we have an active power cycle and we're actively running
-        if (powerManager.getCurrentPowerPlayer() != null && powerManager.isRunning()) {
-            // Update days remaining based on current world time
-            powerManager.updateDaysRemaining(currentWorldTime);
-            
-            // Note: The cycle end check is now done every tick in onEndTick
-            // so it's removed from here to avoid duplication
-        }
-        
+    private void checkScheduledCycle(MinecraftServer server, long currentWorldTime) {
         // Check if we should start a new cycle
-        if (!isRouletteActive && !powerManager.isRunning() && server.getCurrentPlayerCount() > 0) {
+        if (powerManager.getPhase() == CyclePhase.IDLE && !powerManager.isRunning() && powerManager.getQueuedWinner() == null
+                && (server.getCurrentPlayerCount() > 0 || ModConfig.OFFLINE_CANDIDATES)) {
             // Check with time tracker if it's time for a new cycle
-            if (timeTracker.shouldTriggerCycle(server)) {
+            if (timeTracker.shouldTriggerCycle()) {
                 PowerTripMod.LOGGER.info("PowerTrip cycle started! A new operator will be chosen.");
-                startPowerCycle(server);
+                startCycleUnlessLagging(server);
             }
+            scheduleNextScheduledCycle(currentWorldTime);
+        } else {
+            // Not eligible right now - look again a little later
+            worldDeadlines.schedule(DEADLINE_SCHEDULED_CYCLE, currentWorldTime + TIME_CHECK_INTERVAL);
         }
     }
     
@@ -298,120 +735,25 @@ public class ServerTickHandler implements ServerTickEvents.EndTick {
     private void handleCycleEnd(MinecraftServer server) {
         // Get the absolute world time when the cycle will end
         long cycleEndTime = powerManager.getCycleEndTime();
-        long currentWorldTime = server.getOverworld().getTimeOfDay();
+        long currentWorldTime = PowerTripMod.CLOCK.getTimeOfDay();
         
         PowerTripMod.LOGGER.info("Cycle complete! Current time: " + currentWorldTime + 
                                ", End time: " + cycleEndTime);
-                               
+        
         // Get the name of the current operator before removing their powers
         String endingOperator = powerManager.getCurrentPowerPlayer();
-        
-        // Prepare player names for the ending animation
-        List<String> playerNames = new ArrayList<>();
-        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
-            playerNames.add(player.getName().getString());
-        }
+        powerManager.recordReignEnd(server, ReignEndReason.NATURAL);
         
         // If we have a valid operator name, trigger ending animation
         if (endingOperator != null && !endingOperator.isEmpty()) {
             PowerTripMod.LOGGER.info("Triggering ending roulette animation for player: " + endingOperator);
-            PowerTripMod.NETWORK.triggerRouletteForAll(server, playerNames, endingOperator, false); // false = ending animation
-            
-            // Wait a moment before removing powers to allow animation to play
-            try {
-                Thread.sleep(500); // Brief delay to ensure animation packet is sent first
-            } catch (InterruptedException e) {
-                // Ignore interruption
-            }
+            ServerPlayerEntity operator = server.getPlayerManager().getPlayer(endingOperator);
+            UUID operatorId = operator != null ? operator.getUuid() : null;
+            PowerTripMod.NETWORK.triggerRosterRoulette(server, operatorId, endingOperator, false, 0L, server.getTicks(), new int[0]); // false = ending animation, no timeline
         }
         
-        // Remove all powers
-        powerManager.removeAllPlayerPowers(server);
-        
-        // Send explicit 'inactive' state update to all clients when cycle ends
-        PowerTripMod.LOGGER.info("Sending inactive state to all clients");
-        PowerTripMod.NETWORK.sendTimeRemainingToAll(server, 0, 0, 0, false);
-        
-        // Set the flag to indicate we need to start a new cycle after END animation is done
-        // But ONLY if autostart is enabled
-        if (powerManager.isAutostartEnabled()) {
-            PowerTripMod.LOGGER.info("Marking cycle for autostart when END ANIMATION completes");
-            pendingAutostart = true;
-        }
-    }
-    
-    /**
-     * Sends time information to all clients for HUD display
-     * @param server The Minecraft server
-     */
-    private void sendTimeUpdateToAll(MinecraftServer server) {
-        // Only send updates if PowerTrip is active (has an operator)
-        boolean isActive = powerManager.getCurrentPowerPlayer() != null;
-        
-        if (isActive) {
-            // Update days remaining based on current time
-            long currentWorldTime = server.getOverworld().getTimeOfDay();
-            long cycleEndTime = powerManager.getCycleEndTime();
-            long ticksRemaining = cycleEndTime - currentWorldTime;
-            
-            PowerTripMod.LOGGER.info("[TIME DEBUG] Current world time: " + currentWorldTime);
-            PowerTripMod.LOGGER.info("[TIME DEBUG] Cycle end time: " + cycleEndTime);
-            PowerTripMod.LOGGER.info("[TIME DEBUG] Ticks remaining: " + ticksRemaining);
-            PowerTripMod.LOGGER.info("[TIME DEBUG] Days remaining (raw): " + (ticksRemaining / 24000.0));
-            
-            // If time has run out, set all time values to 0 and mark as inactive
-            if (ticksRemaining <= 0) {
-                PowerTripMod.LOGGER.info("[TIME DEBUG] Time has run out, setting all values to 0");
-                PowerTripMod.NETWORK.sendTimeRemainingToAll(server, 0, 0, 0, false);
-                return;
-            }
-            
-            powerManager.updateDaysRemaining(currentWorldTime);
-            
-            int daysRemaining = powerManager.getDaysRemaining();
-            PowerTripMod.LOGGER.info("[TIME DEBUG] Days remaining (after PowerManager): " + daysRemaining);
-            
-            // Calculate hours remaining if less than 1 day
-            int hoursRemaining = 0;
-            if (daysRemaining < 1) {
-                // Calculate hours remaining based on actual ticks remaining
-                double hoursRaw = (ticksRemaining * 24.0) / 24000.0;
-                PowerTripMod.LOGGER.info("[TIME DEBUG] Raw hours calculated: " + hoursRaw);
-                
-                // If less than 1 hour remains, set hours to 0 and calculate minutes
-                int minutesRemaining = 0;
-                if (hoursRaw < 1.0) {
-                    hoursRemaining = 0;
-                    // Calculate minutes from ticks - one hour is 1000 ticks (24000/24)
-                    minutesRemaining = (int)Math.ceil((ticksRemaining * 60.0) / 1000.0);
-                    // Ensure minutes don't go negative
-                    minutesRemaining = Math.max(0, minutesRemaining);
-                    PowerTripMod.LOGGER.info("[TIME DEBUG] Less than 1 hour remains, showing " + minutesRemaining + " minutes");
-                } else {
-                    // Otherwise, round up to the next hour
-                    hoursRemaining = (int) Math.ceil(hoursRaw);
-                    PowerTripMod.LOGGER.info("[TIME DEBUG] Hours calculated for < 1 day: " + hoursRemaining + " (from ticks: " + ticksRemaining + ")");
-                }
-            } else if (daysRemaining == 1) {
-                // If exactly 1 day left, show 24 hours instead of 0
-                hoursRemaining = 24;
-                PowerTripMod.LOGGER.info("[TIME DEBUG] Setting hours to 24 for exactly 1 day remaining");
-            }
-            
-            int minutesValue = 0;
-            if (daysRemaining == 0 && hoursRemaining == 0) {
-                // Calculate minutes from ticks if hours is 0
-                minutesValue = (int)Math.ceil((ticksRemaining * 60.0) / 1000.0);
-                // Ensure minutes don't go negative
-                minutesValue = Math.max(0, minutesValue);
-                PowerTripMod.LOGGER.info("[TIME DEBUG] Final values - Days: " + daysRemaining + ", Hours: " + hoursRemaining + ", Minutes: " + minutesValue);
-            } else {
-                PowerTripMod.LOGGER.info("[TIME DEBUG] Final values - Days: " + daysRemaining + ", Hours: " + hoursRemaining);
-            }
-            
-            // Send the time update to all clients
-            PowerTripMod.NETWORK.sendTimeRemainingToAll(server, daysRemaining, hoursRemaining, minutesValue, isActive);
-        }
+        // Powers are removed a moment later so the animation packet goes out first, without blocking the tick
+        enterPhase(CyclePhase.ENDING, server.getTicks(), ModConfig.END_ANIMATION_LEAD_TICKS);
     }
     
     /**
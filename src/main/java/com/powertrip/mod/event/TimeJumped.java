@@ -0,0 +1,27 @@
+package com.powertrip.mod.event;
+
+import net.fabricmc.fabric.api.event.Event;
+import net.fabricmc.fabric.api.event.EventFactory;
+import net.minecraft.server.MinecraftServer;
+
+/**
+ * Fired when the overworld time of day changes by anything but a normal tick
+ * That covers /time set and /time add, skipping the night by sleeping and any mod that sets the time.
+ * Listeners run on the server thread, right after the new time has been stored.
+ */
+@FunctionalInterface
+public interface TimeJumped {
+    Event<TimeJumped> EVENT = EventFactory.createArrayBacked(TimeJumped.class, listeners -> (server, oldTime, newTime) -> {
+        for (TimeJumped listener : listeners) {
+            listener.onTimeJumped(server, oldTime, newTime);
+        }
+    });
+    
+    /**
+     * Called after the time jumped
+     * @param server The Minecraft server
+     * @param oldTime The absolute time of day before the jump
+     * @param newTime The absolute time of day after the jump
+     */
+    void onTimeJumped(MinecraftServer server, long oldTime, long newTime);
+}
@@ -0,0 +1,80 @@
+package com.powertrip.mod.mixin;
+
+import com.mojang.brigadier.ParseResults;
+import com.powertrip.mod.PowerTripMod;
+import com.powertrip.mod.config.ModConfig;
+import com.powertrip.mod.power.CommandBudget;
+import com.powertrip.mod.power.PermissionOverlay;
+import com.powertrip.mod.power.ReignRegistry;
+import net.minecraft.command.CommandRegistryAccess;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.text.Text;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Takes commands outside the ruler's allow and deny lists away from players whose power comes from a lease,
+ * and charges rulers' commands to their reign's {@link CommandBudget}
+ * Real operators are never restricted or measured, and nor is anyone else who is not a ruler
+ */
+@Mixin(CommandManager.class)
+public abstract class CommandManagerMixin {
+    @Inject(method = "<init>", at = @At("TAIL"))
+    private void powertrip$restrictRulers(CommandManager.RegistrationEnvironment environment,
+                                          CommandRegistryAccess commandRegistryAccess, CallbackInfo ci) {
+        // Every command, PowerTrip's and other mods' included, is registered by now
+        PermissionOverlay.restrictCommands(((CommandManager) (Object) this).getDispatcher());
+    }
+    
+    @Inject(method = "execute", at = @At("HEAD"), cancellable = true)
+    private void powertrip$checkBudget(ParseResults<ServerCommandSource> parseResults, String command, CallbackInfo ci) {
+        if (PowerTripMod.POWER_MANAGER == null) {
+            return;
+        }
+        
+        // Commands run from within a measured command are part of its cost
+        CommandBudget budget = PowerTripMod.POWER_MANAGER.getCommandBudget();
+        if (!ModConfig.COMMAND_BUDGET_ENABLED || budget.nest()) {
+            return;
+        }
+        ServerCommandSource source = parseResults.getContext().getSource();
+        ServerPlayerEntity player = source.getPlayer();
+        if (player == null) {
+            return;
+        }
+        
+        PermissionOverlay.Lease lease = PowerTripMod.POWER_MANAGER.getPermissionOverlay()
+                .leaseFor(player.getUuid(), source.getServer().getOverworld().getTimeOfDay());
+        if (lease != null && source.getServer().getPlayerManager().isOperator(player.getGameProfile())) {
+            return;
+        }
+        
+        // Only rulers are measured - a normal player costs one empty-map check and one set lookup
+        int reignId;
+        if (lease != null) {
+            reignId = lease.reignId();
+        } else if (PowerTripMod.POWER_MANAGER.getGrantedOperators().contains(player.getUuid())) {
+            reignId = ReignRegistry.GLOBAL_REIGN;
+        } else {
+            return;
+        }
+        
+        if (!budget.begin(reignId, player.getUuid(), player.getName().getString())) {
+            source.sendError(Text.literal("PowerTrip: your command budget is used up, try again in "
+                    + (budget.getWaitMs(reignId) + 999) / 1000 + "s."));
+            ci.cancel();
+        }
+    }
+    
+    @Inject(method = "execute", at = @At("RETURN"))
+    private void powertrip$chargeBudget(ParseResults<ServerCommandSource> parseResults, String command, CallbackInfo ci) {
+        // A single field check unless a ruler's command was just measured
+        if (PowerTripMod.POWER_MANAGER != null) {
+            PowerTripMod.POWER_MANAGER.getCommandBudget().end();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.powertrip.mod.mixin;
+
+import com.mojang.brigadier.tree.CommandNode;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Mutable;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+import java.util.function.Predicate;
+
+/**
+ * Lets a registered command node's requirement be replaced
+ * Brigadier only sets it when the node is built, so restricting a command another mod or vanilla
+ * registered means swapping it afterwards
+ */
+@Mixin(value = CommandNode.class, remap = false)
+public interface CommandNodeAccessor {
+    @Mutable
+    @Accessor("requirement")
+    void powertrip$setRequirement(Predicate<?> requirement);
+}
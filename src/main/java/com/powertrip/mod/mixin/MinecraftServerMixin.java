@@ -0,0 +1,33 @@
+package com.powertrip.mod.mixin;
+
+import com.mojang.authlib.GameProfile;
+import com.powertrip.mod.PowerTripMod;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * Raises a player's permission level to their PowerTrip lease, if they hold one
+ * Every permission check (command sources, the command tree, the op status packet) goes through here
+ */
+@Mixin(MinecraftServer.class)
+public abstract class MinecraftServerMixin {
+    @Inject(method = "getPermissionLevel", at = @At("RETURN"), cancellable = true)
+    private void powertrip$applyLease(GameProfile profile, CallbackInfoReturnable<Integer> cir) {
+        if (PowerTripMod.POWER_MANAGER == null) {
+            return;
+        }
+        ServerWorld overworld = ((MinecraftServer) (Object) this).getOverworld();
+        if (overworld == null) {
+            return;
+        }
+        
+        int leased = PowerTripMod.POWER_MANAGER.getPermissionOverlay().levelFor(profile.getId(), overworld.getTimeOfDay());
+        if (leased > cir.getReturnValueI()) {
+            cir.setReturnValue(leased);
+        }
+    }
+}
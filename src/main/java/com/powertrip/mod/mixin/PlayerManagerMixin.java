@@ -0,0 +1,31 @@
+package com.powertrip.mod.mixin;
+
+import com.mojang.authlib.GameProfile;
+import com.powertrip.mod.PowerTripMod;
+import net.minecraft.server.PlayerManager;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Notices operator changes made outside PowerTrip (/op, /deop, other mods)
+ * PowerTrip's own changes go through {@link com.powertrip.mod.power.OperatorBatcher}, which
+ * edits the list directly, so every call seen here comes from somebody else
+ */
+@Mixin(PlayerManager.class)
+public abstract class PlayerManagerMixin {
+    @Inject(method = "addToOperators", at = @At("HEAD"))
+    private void powertrip$onAddToOperators(GameProfile profile, CallbackInfo ci) {
+        if (PowerTripMod.POWER_MANAGER != null) {
+            PowerTripMod.POWER_MANAGER.onOperatorChangedExternally(profile.getId());
+        }
+    }
+    
+    @Inject(method = "removeFromOperators", at = @At("HEAD"))
+    private void powertrip$onRemoveFromOperators(GameProfile profile, CallbackInfo ci) {
+        if (PowerTripMod.POWER_MANAGER != null) {
+            PowerTripMod.POWER_MANAGER.onOperatorChangedExternally(profile.getId());
+        }
+    }
+}
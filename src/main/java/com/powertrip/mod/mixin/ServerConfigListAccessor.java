@@ -0,0 +1,26 @@
+package com.powertrip.mod.mixin;
+
+import net.minecraft.server.ServerConfigEntry;
+import net.minecraft.server.ServerConfigList;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+import org.spongepowered.asm.mixin.gen.Invoker;
+
+import java.util.Map;
+
+/**
+ * Exposes the entry map behind a server config list (ops, whitelist, bans)
+ * {@link ServerConfigList#add} and {@link ServerConfigList#remove} rewrite the whole file on
+ * every call, so batched changes go through the map directly and are saved once
+ */
+@Mixin(ServerConfigList.class)
+public interface ServerConfigListAccessor {
+    @Accessor("map")
+    Map<String, ServerConfigEntry<?>> powertrip$getMap();
+    
+    /**
+     * The map key for an entry's subject - the UUID string for operators
+     */
+    @Invoker("toString")
+    String powertrip$keyOf(Object subject);
+}
@@ -0,0 +1,39 @@
+package com.powertrip.mod.mixin;
+
+import com.powertrip.mod.event.TimeJumped;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.World;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Publishes {@link TimeJumped} when the overworld clock is set to anything but the next tick
+ * The daylight cycle, the time command and the sleep skip all go through setTimeOfDay,
+ * so this one method sees every change; the per-tick advance costs a single comparison.
+ */
+@Mixin(ServerWorld.class)
+public abstract class ServerWorldMixin {
+    @Unique
+    private long powertrip$previousTimeOfDay;
+    
+    @Inject(method = "setTimeOfDay", at = @At("HEAD"))
+    private void powertrip$rememberTime(long timeOfDay, CallbackInfo ci) {
+        powertrip$previousTimeOfDay = ((ServerWorld) (Object) this).getTimeOfDay();
+    }
+    
+    @Inject(method = "setTimeOfDay", at = @At("TAIL"))
+    private void powertrip$publishJump(long timeOfDay, CallbackInfo ci) {
+        long delta = timeOfDay - powertrip$previousTimeOfDay;
+        if (delta == 0 || delta == 1) {
+            return;
+        }
+        
+        ServerWorld world = (ServerWorld) (Object) this;
+        if (world.getRegistryKey() == World.OVERWORLD) {
+            TimeJumped.EVENT.invoker().onTimeJumped(world.getServer(), powertrip$previousTimeOfDay, timeOfDay);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.powertrip.mod.network;
+
+import com.powertrip.mod.PowerTripMod;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+
+/**
+ * Client-to-server clock probe
+ * The server echoes the client's send time back with its own tick in a {@link ClockSyncPayload}
+ */
+public record ClockProbePayload(long clientNanos) implements CustomPayload {
+    // Create an ID for this payload type
+    public static final CustomPayload.Id<ClockProbePayload> ID = new CustomPayload.Id<>(
+            Identifier.of(PowerTripMod.MOD_ID, "clock_probe"));
+    
+    // Create a codec to serialize/deserialize the payload
+    public static final PacketCodec<PacketByteBuf, ClockProbePayload> CODEC = new PacketCodec<>() {
+        @Override
+        public void encode(PacketByteBuf buf, ClockProbePayload payload) {
+            buf.writeLong(payload.clientNanos);
+        }
+        
+        @Override
+        public ClockProbePayload decode(PacketByteBuf buf) {
+            return new ClockProbePayload(buf.readLong());
+        }
+    };
+    
+    @Override
+    public Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+}
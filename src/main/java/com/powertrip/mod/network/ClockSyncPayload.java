@@ -0,0 +1,37 @@
+package com.powertrip.mod.network;
+
+import com.powertrip.mod.PowerTripMod;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+
+/**
+ * Server-to-client reply to a {@link ClockProbePayload}
+ * Carries the probe's send time and the server tick it was answered on, so the
+ * client can estimate the server tick from the round trip
+ */
+public record ClockSyncPayload(long clientNanos, long serverTick) implements CustomPayload {
+    // Create an ID for this payload type
+    public static final CustomPayload.Id<ClockSyncPayload> ID = new CustomPayload.Id<>(
+            Identifier.of(PowerTripMod.MOD_ID, "clock_sync"));
+    
+    // Create a codec to serialize/deserialize the payload
+    public static final PacketCodec<PacketByteBuf, ClockSyncPayload> CODEC = new PacketCodec<>() {
+        @Override
+        public void encode(PacketByteBuf buf, ClockSyncPayload payload) {
+            buf.writeLong(payload.clientNanos);
+            buf.writeVarLong(payload.serverTick);
+        }
+        
+        @Override
+        public ClockSyncPayload decode(PacketByteBuf buf) {
+            return new ClockSyncPayload(buf.readLong(), buf.readVarLong());
+        }
+    };
+    
+    @Override
+    public Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+}
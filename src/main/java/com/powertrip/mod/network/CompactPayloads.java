@@ -0,0 +1,192 @@
+package com.powertrip.mod.network;
+
+import com.powertrip.mod.PowerTripMod;
+import com.powertrip.mod.util.Countdown;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Version-2 (compact) wire format for PowerTrip payloads
+ *
+ * Each record wraps the version-1 payload it replaces on the wire, so the rest of the
+ * mod keeps working with one payload type per concept. The compact codecs use VarInts,
+ * pack booleans into a single flags byte, send the roulette winner as an index into
+ * the name list and send the countdown as ticks remaining instead of two absolute times.
+ *
+ * Only clients that subscribed with protocol {@link #PROTOCOL} or newer receive these;
+ * everyone else keeps getting the version-1 payloads.
+ */
+public final class CompactPayloads {
+    // Lowest subscription protocol that understands the compact format
+    public static final int PROTOCOL = 2;
+    
+    private static final int FLAG_ACTIVE = 1;
+    private static final int FLAG_BEGINNING = 1 << 1;
+    private static final int FLAG_HAS_HOURS = 1 << 2;
+    private static final int FLAG_HAS_MINUTES = 1 << 3;
+    private static final int FLAG_CUSTOM_DAY_LENGTH = 1 << 4;
+    
+    // Winner reference meaning "the winner's name follows inline" (not in the name list)
+    private static final int WINNER_INLINE = 0;
+    
+    private CompactPayloads() {
+    }
+    
+    /**
+     * Compact form of {@link NetworkHandler.RoulettePayload}
+     */
+    public record Roulette(NetworkHandler.RoulettePayload payload) implements CustomPayload {
+        public static final CustomPayload.Id<Roulette> ID = new CustomPayload.Id<>(
+                Identifier.of(PowerTripMod.MOD_ID, "roulette_v2"));
+        
+        public static final PacketCodec<PacketByteBuf, Roulette> FIELD_CODEC = new PacketCodec<>() {
+            @Override
+            public void encode(PacketByteBuf buf, Roulette compact) {
+                NetworkHandler.RoulettePayload payload = compact.payload;
+                buf.writeByte(payload.isBeginning() ? FLAG_BEGINNING : 0);
+                
+                List<String> names = payload.playerNames();
+                buf.writeVarInt(names.size());
+                for (String name : names) {
+                    buf.writeString(name);
+                }
+                
+                // Winner as a 1-based index into the list, or 0 followed by the name
+                int winnerIndex = names.indexOf(payload.selectedPlayer());
+                if (winnerIndex >= 0) {
+                    buf.writeVarInt(winnerIndex + 1);
+                } else {
+                    buf.writeVarInt(WINNER_INLINE);
+                    buf.writeString(payload.selectedPlayer());
+                }
+            }
+            
+            @Override
+            public Roulette decode(PacketByteBuf buf) {
+                int flags = buf.readUnsignedByte();
+                
+                int count = buf.readVarInt();
+                List<String> names = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    names.add(buf.readString());
+                }
+                
+                int winnerRef = buf.readVarInt();
+                String selectedPlayer = winnerRef == WINNER_INLINE ? buf.readString() : names.get(winnerRef - 1);
+                
+                return new Roulette(new NetworkHandler.RoulettePayload(names, selectedPlayer, (flags & FLAG_BEGINNING) != 0));
+            }
+        };
+        
+        public static final EncodedPayloadCache<Roulette> ENCODED = new EncodedPayloadCache<>(FIELD_CODEC);
+        public static final PacketCodec<PacketByteBuf, Roulette> CODEC = ENCODED.codec();
+        
+        @Override
+        public Id<? extends CustomPayload> getId() {
+            return ID;
+        }
+    }
+    
+    /**
+     * Compact form of {@link TimeRemainingPayload} - zero hours/minutes are omitted
+     */
+    public record TimeRemaining(TimeRemainingPayload payload) implements CustomPayload {
+        public static final CustomPayload.Id<TimeRemaining> ID = new CustomPayload.Id<>(
+                Identifier.of(PowerTripMod.MOD_ID, "time_remaining_v2"));
+        
+        public static final PacketCodec<PacketByteBuf, TimeRemaining> FIELD_CODEC = new PacketCodec<>() {
+            @Override
+            public void encode(PacketByteBuf buf, TimeRemaining compact) {
+                TimeRemainingPayload payload = compact.payload;
+                int flags = (payload.isPowerTripActive() ? FLAG_ACTIVE : 0)
+                        | (payload.hoursRemaining() != 0 ? FLAG_HAS_HOURS : 0)
+                        | (payload.minutesRemaining() != 0 ? FLAG_HAS_MINUTES : 0);
+                buf.writeByte(flags);
+                buf.writeVarInt(payload.daysRemaining());
+                if ((flags & FLAG_HAS_HOURS) != 0) {
+                    buf.writeVarInt(payload.hoursRemaining());
+                }
+                if ((flags & FLAG_HAS_MINUTES) != 0) {
+                    buf.writeVarInt(payload.minutesRemaining());
+                }
+            }
+            
+            @Override
+            public TimeRemaining decode(PacketByteBuf buf) {
+                int flags = buf.readUnsignedByte();
+                int days = buf.readVarInt();
+                int hours = (flags & FLAG_HAS_HOURS) != 0 ? buf.readVarInt() : 0;
+                int minutes = (flags & FLAG_HAS_MINUTES) != 0 ? buf.readVarInt() : 0;
+                return new TimeRemaining(new TimeRemainingPayload(days, hours, minutes, (flags & FLAG_ACTIVE) != 0));
+            }
+        };
+        
+        public static final EncodedPayloadCache<TimeRemaining> ENCODED = new EncodedPayloadCache<>(FIELD_CODEC);
+        public static final PacketCodec<PacketByteBuf, TimeRemaining> CODEC = ENCODED.codec();
+        
+        @Override
+        public Id<? extends CustomPayload> getId() {
+            return ID;
+        }
+    }
+    
+    /**
+     * Compact, delta-encoded form of {@link CycleAnchorPayload}
+     * The cycle end is sent as ticks remaining relative to the anchor's world time
+     */
+    public record CycleAnchor(CycleAnchorPayload payload) implements CustomPayload {
+        public static final CustomPayload.Id<CycleAnchor> ID = new CustomPayload.Id<>(
+                Identifier.of(PowerTripMod.MOD_ID, "cycle_anchor_v2"));
+        
+        public static final PacketCodec<PacketByteBuf, CycleAnchor> FIELD_CODEC = new PacketCodec<>() {
+            @Override
+            public void encode(PacketByteBuf buf, CycleAnchor compact) {
+                CycleAnchorPayload payload = compact.payload;
+                boolean customDayLength = payload.ticksPerDay() != Countdown.DEFAULT_TICKS_PER_DAY;
+                int flags = (payload.isPowerTripActive() ? FLAG_ACTIVE : 0)
+                        | (customDayLength ? FLAG_CUSTOM_DAY_LENGTH : 0);
+                
+                buf.writeVarLong(payload.sequence());
+                buf.writeByte(flags);
+                if (payload.isPowerTripActive()) {
+                    // Negative remaining time displays the same as zero, and keeps the VarLong short
+                    buf.writeVarLong(payload.worldTime());
+                    buf.writeVarLong(Math.max(0, payload.cycleEndTime() - payload.worldTime()));
+                }
+                if (customDayLength) {
+                    buf.writeVarInt(payload.ticksPerDay());
+                }
+            }
+            
+            @Override
+            public CycleAnchor decode(PacketByteBuf buf) {
+                long sequence = buf.readVarLong();
+                int flags = buf.readUnsignedByte();
+                boolean isActive = (flags & FLAG_ACTIVE) != 0;
+                
+                long worldTime = 0;
+                long cycleEndTime = -1;
+                if (isActive) {
+                    worldTime = buf.readVarLong();
+                    cycleEndTime = worldTime + buf.readVarLong();
+                }
+                int ticksPerDay = (flags & FLAG_CUSTOM_DAY_LENGTH) != 0 ? buf.readVarInt() : Countdown.DEFAULT_TICKS_PER_DAY;
+                
+                return new CycleAnchor(new CycleAnchorPayload(sequence, isActive, cycleEndTime, worldTime, ticksPerDay));
+            }
+        };
+        
+        public static final EncodedPayloadCache<CycleAnchor> ENCODED = new EncodedPayloadCache<>(FIELD_CODEC);
+        public static final PacketCodec<PacketByteBuf, CycleAnchor> CODEC = ENCODED.codec();
+        
+        @Override
+        public Id<? extends CustomPayload> getId() {
+            return ID;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.powertrip.mod.network;
+
+import com.powertrip.mod.PowerTripMod;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+
+/**
+ * Server-to-client anchor for the power cycle countdown
+ *
+ * Pushed to subscribed clients when they subscribe and again only when the cycle
+ * starts, ends or world time jumps. The client extrapolates days/hours/minutes from
+ * its own world clock, so no periodic time updates are needed. The sequence number
+ * increases with every state change so a client can notice a missed update.
+ */
+public record CycleAnchorPayload(long sequence, boolean isPowerTripActive, long cycleEndTime, long worldTime, int ticksPerDay) implements CustomPayload {
+    // Create an ID for this payload type
+    public static final CustomPayload.Id<CycleAnchorPayload> ID = new CustomPayload.Id<>(
+            Identifier.of(PowerTripMod.MOD_ID, "cycle_anchor"));
+    
+    // Create a codec to serialize/deserialize the payload
+    public static final PacketCodec<PacketByteBuf, CycleAnchorPayload> FIELD_CODEC = new PacketCodec<>() {
+        @Override
+        public void encode(PacketByteBuf buf, CycleAnchorPayload payload) {
+            buf.writeVarLong(payload.sequence);
+            buf.writeBoolean(payload.isPowerTripActive);
+            buf.writeLong(payload.cycleEndTime);
+            buf.writeLong(payload.worldTime);
+            buf.writeInt(payload.ticksPerDay);
+        }
+        
+        @Override
+        public CycleAnchorPayload decode(PacketByteBuf buf) {
+            long sequence = buf.readVarLong();
+            boolean isActive = buf.readBoolean();
+            long cycleEndTime = buf.readLong();
+            long worldTime = buf.readLong();
+            int ticksPerDay = buf.readInt();
+            return new CycleAnchorPayload(sequence, isActive, cycleEndTime, worldTime, ticksPerDay);
+        }
+    };
+    
+    // Encode-once cache so broadcasts serialize this payload a single time
+    public static final EncodedPayloadCache<CycleAnchorPayload> ENCODED = new EncodedPayloadCache<>(FIELD_CODEC);
+    public static final PacketCodec<PacketByteBuf, CycleAnchorPayload> CODEC = ENCODED.codec();
+    
+    @Override
+    public Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+}
@@ -0,0 +1,94 @@
+package com.powertrip.mod.network;
+
+import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+
+/**
+ * Encode-once cache for broadcast payloads
+ *
+ * A payload is interned on the server thread, which serializes it a single time into
+ * a retained byte array. The codec returned by {@link #codec()} then copies those bytes
+ * for every connection that sends the same payload instance, so a broadcast costs one
+ * encode regardless of player count. Entries are tagged with the PowerManager state
+ * version and re-encoded once that state changes. Only the latest entry is kept, so
+ * an older instance still queued on a connection is encoded from its fields.
+ *
+ * @param <T> The payload type
+ */
+public class EncodedPayloadCache<T> {
+    private final PacketCodec<PacketByteBuf, T> fieldCodec;
+    
+    // Read from netty threads while encoding, replaced on the server thread
+    private volatile Entry<T> entry = null;
+    
+    // Set when the state the entry was built from changed
+    private volatile boolean stale = false;
+    
+    private record Entry<T>(long version, T payload, byte[] bytes) {
+    }
+    
+    /**
+     * @param fieldCodec The codec that actually serializes the payload fields
+     */
+    public EncodedPayloadCache(PacketCodec<PacketByteBuf, T> fieldCodec) {
+        this.fieldCodec = fieldCodec;
+    }
+    
+    /**
+     * Returns the cached instance of an equal payload, or encodes and caches the given one
+     * @param payload The payload about to be sent
+     * @param version The state version the payload was built from
+     * @return The instance to send - always send this one so the cached bytes are used
+     */
+    public T intern(T payload, long version) {
+        Entry<T> current = entry;
+        if (current != null && !stale && current.version == version && current.payload.equals(payload)) {
+            return current.payload;
+        }
+        
+        PacketByteBuf buf = PacketByteBufs.create();
+        try {
+            fieldCodec.encode(buf, payload);
+            byte[] bytes = new byte[buf.readableBytes()];
+            buf.readBytes(bytes);
+            entry = new Entry<>(version, payload, bytes);
+            stale = false;
+        } finally {
+            buf.release();
+        }
+        return payload;
+    }
+    
+    /**
+     * Marks the cached payload stale - called when PowerManager state changes
+     * The next intern re-encodes; a send still queued with an older instance falls back to a normal encode
+     */
+    public void invalidate() {
+        stale = true;
+    }
+    
+    /**
+     * Creates the codec to register for the payload type
+     * Interned payloads are written from the cached bytes, anything else is encoded normally
+     * @return The cache-aware codec
+     */
+    public PacketCodec<PacketByteBuf, T> codec() {
+        return new PacketCodec<>() {
+            @Override
+            public void encode(PacketByteBuf buf, T payload) {
+                Entry<T> current = entry;
+                if (current != null && current.payload == payload) {
+                    buf.writeBytes(current.bytes);
+                } else {
+                    fieldCodec.encode(buf, payload);
+                }
+            }
+            
+            @Override
+            public T decode(PacketByteBuf buf) {
+                return fieldCodec.decode(buf);
+            }
+        };
+    }
+}
@@ -1,7 +1,14 @@
 package com.powertrip.mod.network;
 
 import com.powertrip.mod.PowerTripMod;
+import com.powertrip.mod.client.ClientClock;
+import com.powertrip.mod.client.ClientRoster;
 import com.powertrip.mod.client.RouletteDisplay;
+import com.powertrip.mod.client.StatusSubscription;
+import com.powertrip.mod.client.TimeDisplay;
+import com.powertrip.mod.util.Countdown;
+import com.powertrip.mod.util.Trace;
+import com.powertrip.mod.util.TraceCategory;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
@@ -16,7 +23,11 @@ import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.Identifier;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Handles network communication between server and client
@@ -25,6 +36,15 @@ public class NetworkHandler {
     // Constants for the network packet
     private static final Identifier ROULETTE_PACKET_ID = Identifier.of(PowerTripMod.MOD_ID, "roulette");
     
+    // Players that asked for state pushes, with the protocol they advertised (server thread only)
+    private final Map<UUID, Integer> subscribers = new HashMap<>();
+    
+    // Incremented on every published state change
+    private long stateSequence = 0;
+    
+    // Online players by slot, mirrored on protocol 3 clients
+    private final RosterTable roster = new RosterTable();
+    
     /**
      * Registers network handlers - called during mod initialization
      */
@@ -32,57 +52,69 @@ public class NetworkHandler {
         // Register the payload types for server->client packets
         PayloadTypeRegistry.playS2C().register(RoulettePayload.ID, RoulettePayload.CODEC);
         PayloadTypeRegistry.playS2C().register(TimeRemainingPayload.ID, TimeRemainingPayload.CODEC);
+        PayloadTypeRegistry.playS2C().register(CycleAnchorPayload.ID, CycleAnchorPayload.CODEC);
+        
+        // Compact (protocol 2) forms, only sent to clients that advertised support
+        PayloadTypeRegistry.playS2C().register(CompactPayloads.Roulette.ID, CompactPayloads.Roulette.CODEC);
+        PayloadTypeRegistry.playS2C().register(CompactPayloads.TimeRemaining.ID, CompactPayloads.TimeRemaining.CODEC);
+        PayloadTypeRegistry.playS2C().register(CompactPayloads.CycleAnchor.ID, CompactPayloads.CycleAnchor.CODEC);
+        
+        // Roster mirror (protocol 3) - roulette packets reference slots instead of carrying names
+        PayloadTypeRegistry.playS2C().register(RosterPayloads.Snapshot.ID, RosterPayloads.Snapshot.CODEC);
+        PayloadTypeRegistry.playS2C().register(RosterPayloads.Delta.ID, RosterPayloads.Delta.CODEC);
+        PayloadTypeRegistry.playS2C().register(RosterPayloads.Roulette.ID, RosterPayloads.Roulette.CODEC);
+        PayloadTypeRegistry.playS2C().register(ClockSyncPayload.ID, ClockSyncPayload.CODEC);
+        
+        // Team and dimension reign countdowns (protocol 4)
+        PayloadTypeRegistry.playS2C().register(ReignAnchorPayload.ID, ReignAnchorPayload.CODEC);
         
         // Register client->server payload
         PayloadTypeRegistry.playC2S().register(PowerTripStatusRequestPayload.ID, PowerTripStatusRequestPayload.CODEC);
+        PayloadTypeRegistry.playC2S().register(PowerTripSubscribePayload.ID, PowerTripSubscribePayload.CODEC);
+        PayloadTypeRegistry.playC2S().register(ClockProbePayload.ID, ClockProbePayload.CODEC);
+        
+        // Register the server-side handler for subscriptions (and resync requests)
+        ServerPlayNetworking.registerGlobalReceiver(PowerTripSubscribePayload.ID, (payload, context) -> {
+            context.server().execute(() -> subscribe(context.server(), context.player(), payload.protocolVersion()));
+        });
+        
+        // Answer clock probes with the server tick - answered on the server thread so the tick is current
+        ServerPlayNetworking.registerGlobalReceiver(ClockProbePayload.ID, (payload, context) -> {
+            context.server().execute(() -> ServerPlayNetworking.send(context.player(),
+                    new ClockSyncPayload(payload.clientNanos(), context.server().getTicks())));
+        });
         
         // Register the server-side handler for status requests
+        // Current clients subscribe instead; this remains for clients that still poll
         ServerPlayNetworking.registerGlobalReceiver(PowerTripStatusRequestPayload.ID, (payload, context) -> {
             // Execute on the server thread
             context.server().execute(() -> {
                 // Get the current PowerTrip status
-                PowerTripMod.LOGGER.debug("Received PowerTrip status request from " + context.player().getName().getString());
+                Trace.log(TraceCategory.NETWORK, "Received PowerTrip status request from {}", context.player().getGameProfile().getName());
                 
                 // Get the PowerManager from the server tick handler
                 boolean isActive = false;
-                int daysRemaining = 0;
-                int hoursRemaining = 0;
-                int minutesRemaining = 0;
+                Countdown countdown = Countdown.NONE;
                 
                 if (PowerTripMod.SERVER_TICK_HANDLER != null) {
                     var powerManager = PowerTripMod.SERVER_TICK_HANDLER.getPowerManager();
                     isActive = powerManager.isRunning() && powerManager.getCurrentPowerPlayer() != null;
                     
                     if (isActive) {
-                        daysRemaining = powerManager.getDaysRemaining();
-                        
-                        // Calculate hours if we're on the last day
-                        if (daysRemaining < 1) {
-                            long currentWorldTime = context.server().getOverworld().getTimeOfDay();
-                            long ticksRemaining = powerManager.getCycleEndTime() - currentWorldTime;
-                            
-                            // Calculate hours in the same way as ServerTickHandler
-                            double hoursRaw = (ticksRemaining * 24.0) / 24000.0;
-                            
-                            // If less than 1 hour remains, set hours to 0 and calculate minutes
-                            if (hoursRaw < 1.0) {
-                                hoursRemaining = 0;
-                                // Calculate minutes from ticks - one Minecraft hour is 1000 ticks
-                                minutesRemaining = (int)Math.ceil((ticksRemaining * 60.0) / 1000.0);
-                            } else {
-                                // Otherwise, round up to the next hour
-                                hoursRemaining = (int) Math.ceil(hoursRaw);
-                            }
-                        }
+                        long currentWorldTime = PowerTripMod.CLOCK.getTimeOfDay();
+                        countdown = Countdown.fromTicks(powerManager.getCycleEndTime() - currentWorldTime);
                     }
                 }
+                int daysRemaining = countdown.days();
+                int hoursRemaining = countdown.hours();
+                int minutesRemaining = countdown.minutes();
                 
-                PowerTripMod.LOGGER.debug("Sending status response: active=" + isActive + 
-                                        ", days=" + daysRemaining + 
-                                        ", hours=" + hoursRemaining);
+                Trace.log(TraceCategory.NETWORK, "Sending status response: {} days, {} hours, {} minutes",
+                        daysRemaining, hoursRemaining, minutesRemaining);
                 
-                // Create response payload (with minutes)
-                TimeRemainingPayload response = new TimeRemainingPayload(daysRemaining, hoursRemaining, minutesRemaining, isActive);
+                // Create response payload (with minutes) - requests within the same minute share one encoding
+                TimeRemainingPayload response = TimeRemainingPayload.ENCODED.intern(
+                        new TimeRemainingPayload(daysRemaining, hoursRemaining, minutesRemaining, isActive), stateVersion());
                 
                 // Send response back to the client
                 ServerPlayNetworking.send(context.player(), response);
@@ -100,16 +132,124 @@ public class NetworkHandler {
      * @param isBeginning Whether this is a beginning (true) or ending (false) animation
      */
     public void triggerRouletteForAll(MinecraftServer server, List<String> playerNames, String selectedPlayer, boolean isBeginning) {
-        // Create the custom payload
+        // Create the custom payload, encoded once per wire format for every recipient
         RoulettePayload payload = new RoulettePayload(playerNames, selectedPlayer, isBeginning);
+        RoulettePayload legacy = null;
+        CompactPayloads.Roulette compact = null;
         
         // Send to all players
-        PowerTripMod.LOGGER.info("[NETWORK DEBUG] Sending roulette payload to all players at " + System.currentTimeMillis());
+        List<ServerPlayerEntity> players = server.getPlayerManager().getPlayerList();
+        for (ServerPlayerEntity player : players) {
+            if (usesCompactPayloads(player)) {
+                if (compact == null) {
+                    compact = CompactPayloads.Roulette.ENCODED.intern(new CompactPayloads.Roulette(payload), stateVersion());
+                }
+                ServerPlayNetworking.send(player, compact);
+            } else {
+                if (legacy == null) {
+                    legacy = RoulettePayload.ENCODED.intern(payload, stateVersion());
+                }
+                ServerPlayNetworking.send(player, legacy);
+            }
+        }
+        Trace.log(TraceCategory.NETWORK, "Roulette payload sent to {} players, selected: {}", players.size(), selectedPlayer);
+    }
+    
+    /**
+     * Triggers the roulette animation over every online player, minus the excluded ones, for all online players
+     * Roster clients get a slot reference; everyone else gets the name list, built at most once
+     * @param server The Minecraft server
+     * @param winnerId The UUID of the player who will win, or null if unknown
+     * @param winnerName The name of the player who will win
+     * @param isBeginning Whether this is a beginning (true) or ending (false) animation
+     * @param seed The roulette timeline seed
+     * @param revealTick The server tick the winner will be revealed on
+     * @param excludedSlots Roster slots of players to leave out of the animation, in ascending order
+     */
+    public void triggerRosterRoulette(MinecraftServer server, UUID winnerId, String winnerName, boolean isBeginning,
+                                      long seed, long revealTick, int[] excludedSlots) {
+        int winnerSlot = winnerId == null ? -1 : roster.slotOf(winnerId);
+        RosterPayloads.Roulette rosterPayload = null;
+        RoulettePayload payload = null;
+        RoulettePayload legacy = null;
+        CompactPayloads.Roulette compact = null;
+        
+        List<ServerPlayerEntity> players = server.getPlayerManager().getPlayerList();
+        for (ServerPlayerEntity player : players) {
+            int protocolVersion = subscribers.getOrDefault(player.getUuid(), 0);
+            if (protocolVersion >= RosterPayloads.PROTOCOL) {
+                if (rosterPayload == null) {
+                    rosterPayload = RosterPayloads.Roulette.ENCODED.intern(new RosterPayloads.Roulette(roster.getVersion(),
+                            winnerSlot, winnerSlot >= 0 ? null : winnerName, isBeginning, seed, server.getTicks(), revealTick,
+                            excludedSlots), stateVersion());
+                }
+                ServerPlayNetworking.send(player, rosterPayload);
+                continue;
+            }
+            
+            if (payload == null) {
+                payload = new RoulettePayload(roster.liveNamesExcept(excludedSlots), winnerName, isBeginning);
+            }
+            if (protocolVersion >= CompactPayloads.PROTOCOL) {
+                if (compact == null) {
+                    compact = CompactPayloads.Roulette.ENCODED.intern(new CompactPayloads.Roulette(payload), stateVersion());
+                }
+                ServerPlayNetworking.send(player, compact);
+            } else {
+                if (legacy == null) {
+                    legacy = RoulettePayload.ENCODED.intern(payload, stateVersion());
+                }
+                ServerPlayNetworking.send(player, legacy);
+            }
+        }
+        Trace.log(TraceCategory.NETWORK, "Roster roulette sent to {} players, winner slot {}", players.size(), winnerSlot);
+    }
+    
+    /**
+     * Gets the roster of online players that roster clients mirror
+     * @return The roster table
+     */
+    public RosterTable getRoster() {
+        return roster;
+    }
+    
+    /**
+     * Adds a joining player to the roster and sends the delta to roster subscribers
+     * @param server The Minecraft server
+     * @param player The player who joined
+     */
+    public void onPlayerJoin(MinecraftServer server, ServerPlayerEntity player) {
+        String name = player.getGameProfile().getName();
+        int slot = roster.add(player.getUuid(), name);
+        if (slot >= 0) {
+            broadcastRosterDelta(server, new RosterPayloads.Delta(roster.getVersion(), slot, name));
+        }
+    }
+    
+    /**
+     * Removes a leaving player from the roster and drops their subscription
+     * @param server The Minecraft server
+     * @param player The player who left
+     */
+    public void onPlayerLeave(MinecraftServer server, ServerPlayerEntity player) {
+        unsubscribe(player);
+        int slot = roster.remove(player.getUuid());
+        if (slot >= 0) {
+            broadcastRosterDelta(server, new RosterPayloads.Delta(roster.getVersion(), slot, null));
+        }
+    }
+    
+    private void broadcastRosterDelta(MinecraftServer server, RosterPayloads.Delta delta) {
+        RosterPayloads.Delta payload = null;
         for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
-            PowerTripMod.LOGGER.info("[NETWORK DEBUG] Sending to player: " + player.getName().getString());
-            ServerPlayNetworking.send(player, payload);
+            if (subscribers.getOrDefault(player.getUuid(), 0) >= RosterPayloads.PROTOCOL) {
+                if (payload == null) {
+                    payload = RosterPayloads.Delta.ENCODED.intern(delta, roster.getVersion());
+                }
+                ServerPlayNetworking.send(player, payload);
+            }
         }
-        PowerTripMod.LOGGER.info("[NETWORK DEBUG] All roulette packets sent");
+        Trace.log(TraceCategory.NETWORK, "Roster version {}: slot {} is now {}", delta.version(), delta.slot(), delta.name());
     }
     
     /**
@@ -122,57 +262,263 @@ public class NetworkHandler {
     public void sendTimeRemainingToAll(MinecraftServer server, int daysRemaining, int hoursRemaining, int minutesRemaining, boolean isActive) {
         // Create the custom payload
         TimeRemainingPayload payload = new TimeRemainingPayload(daysRemaining, hoursRemaining, minutesRemaining, isActive);
+        TimeRemainingPayload legacy = null;
+        CompactPayloads.TimeRemaining compact = null;
         
         // Send to all players
         for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
-            ServerPlayNetworking.send(player, payload);
+            if (usesCompactPayloads(player)) {
+                if (compact == null) {
+                    compact = CompactPayloads.TimeRemaining.ENCODED.intern(new CompactPayloads.TimeRemaining(payload), stateVersion());
+                }
+                ServerPlayNetworking.send(player, compact);
+            } else {
+                if (legacy == null) {
+                    legacy = TimeRemainingPayload.ENCODED.intern(payload, stateVersion());
+                }
+                ServerPlayNetworking.send(player, legacy);
+            }
         }
     }
     
+    /**
+     * Builds the countdown anchor describing the current power cycle
+     * @param server The Minecraft server
+     * @return The anchor stamped with the current state sequence number
+     */
+    public CycleAnchorPayload buildCycleAnchor(MinecraftServer server) {
+        if (PowerTripMod.SERVER_TICK_HANDLER != null) {
+            var powerManager = PowerTripMod.SERVER_TICK_HANDLER.getPowerManager();
+            if (powerManager.isRunning() && powerManager.getCurrentPowerPlayer() != null) {
+                return new CycleAnchorPayload(stateSequence, true, powerManager.getCycleEndTime(),
+                        PowerTripMod.CLOCK.getTimeOfDay(), Countdown.DEFAULT_TICKS_PER_DAY);
+            }
+        }
+        return new CycleAnchorPayload(stateSequence, false, -1, 0, Countdown.DEFAULT_TICKS_PER_DAY);
+    }
+    
+    /**
+     * Pushes the current cycle state to every subscribed player
+     * Called only when the state changes: cycle start, end or a world time jump
+     * @param server The Minecraft server
+     */
+    public void publishCycleState(MinecraftServer server) {
+        stateSequence++;
+        CycleAnchorPayload payload = buildCycleAnchor(server);
+        CycleAnchorPayload legacy = null;
+        CompactPayloads.CycleAnchor compact = null;
+        Trace.log(TraceCategory.NETWORK, "Publishing cycle state {} to {} subscribers", stateSequence, subscribers.size());
+        
+        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+            Integer protocolVersion = subscribers.get(player.getUuid());
+            if (protocolVersion == null) {
+                continue;
+            }
+            if (protocolVersion >= CompactPayloads.PROTOCOL) {
+                if (compact == null) {
+                    compact = CompactPayloads.CycleAnchor.ENCODED.intern(new CompactPayloads.CycleAnchor(payload), stateVersion());
+                }
+                ServerPlayNetworking.send(player, compact);
+            } else {
+                if (legacy == null) {
+                    legacy = CycleAnchorPayload.ENCODED.intern(payload, stateVersion());
+                }
+                ServerPlayNetworking.send(player, legacy);
+            }
+        }
+    }
+    
+    /**
+     * Pushes a team or dimension reign's countdown anchor to every subscriber that understands it
+     * @param server The Minecraft server
+     * @param payload The reign's anchor, or its removal
+     */
+    public void publishReign(MinecraftServer server, ReignAnchorPayload payload) {
+        Trace.log(TraceCategory.NETWORK, "Publishing reign {} ending at {}, ruler {}", payload.reignId(), payload.endTime(), payload.rulerName());
+        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+            if (subscribers.getOrDefault(player.getUuid(), 0) >= ReignAnchorPayload.PROTOCOL) {
+                ServerPlayNetworking.send(player, payload);
+            }
+        }
+    }
+    
+    /**
+     * Registers a player's interest in state updates and sends them the current state
+     * Also used for resyncs, so it is safe to call repeatedly
+     * @param server The Minecraft server
+     * @param player The subscribing player
+     * @param protocolVersion The protocol version the client advertised
+     */
+    private void subscribe(MinecraftServer server, ServerPlayerEntity player, int protocolVersion) {
+        subscribers.put(player.getUuid(), protocolVersion);
+        Trace.log(TraceCategory.NETWORK, "{} subscribed with protocol {}", player.getGameProfile().getName(), protocolVersion);
+        
+        if (protocolVersion >= RosterPayloads.PROTOCOL) {
+            ServerPlayNetworking.send(player, new RosterPayloads.Snapshot(roster.getVersion(), roster.slotNames()));
+        }
+        
+        CycleAnchorPayload anchor = buildCycleAnchor(server);
+        if (protocolVersion >= CompactPayloads.PROTOCOL) {
+            ServerPlayNetworking.send(player, new CompactPayloads.CycleAnchor(anchor));
+        } else {
+            ServerPlayNetworking.send(player, anchor);
+        }
+        
+        if (protocolVersion >= ReignAnchorPayload.PROTOCOL && PowerTripMod.POWER_MANAGER != null) {
+            for (ReignAnchorPayload reign : PowerTripMod.POWER_MANAGER.getReignRegistry().anchors(PowerTripMod.CLOCK.getTimeOfDay())) {
+                ServerPlayNetworking.send(player, reign);
+            }
+        }
+    }
+    
+    /**
+     * Drops a player's subscription - called when they disconnect, via onPlayerLeave
+     * @param player The player
+     */
+    public void unsubscribe(ServerPlayerEntity player) {
+        subscribers.remove(player.getUuid());
+    }
+    
+    /**
+     * Checks whether a player's client advertised the compact payload format
+     * Clients that never subscribed (older builds) always get the version-1 payloads
+     * @param player The player
+     * @return true if compact payloads can be sent to them
+     */
+    private boolean usesCompactPayloads(ServerPlayerEntity player) {
+        return subscribers.getOrDefault(player.getUuid(), 0) >= CompactPayloads.PROTOCOL;
+    }
+    
+    /**
+     * Drops every encode-once cache entry - called when PowerManager state changes
+     */
+    public void invalidatePayloadCaches() {
+        RoulettePayload.ENCODED.invalidate();
+        TimeRemainingPayload.ENCODED.invalidate();
+        CycleAnchorPayload.ENCODED.invalidate();
+        CompactPayloads.Roulette.ENCODED.invalidate();
+        CompactPayloads.TimeRemaining.ENCODED.invalidate();
+        CompactPayloads.CycleAnchor.ENCODED.invalidate();
+        RosterPayloads.Roulette.ENCODED.invalidate();
+    }
+    
+    /**
+     * Gets the PowerManager state version that cached payloads are tagged with
+     * @return The current state version
+     */
+    private long stateVersion() {
+        if (PowerTripMod.SERVER_TICK_HANDLER == null) {
+            return 0;
+        }
+        return PowerTripMod.SERVER_TICK_HANDLER.getPowerManager().getStateVersion();
+    }
+    
     /**
      * Register the client-side receivers for network packets
      * This is called from the client mod class
      */
     @Environment(EnvType.CLIENT)
     public static void registerClientReceiver() {
-        // Register roulette animation packet handler
+        // Register roulette animation packet handlers (both wire formats)
+        // Older forms carry no seed, so the client picks its own
         ClientPlayNetworking.registerGlobalReceiver(RoulettePayload.ID, (payload, context) -> {
-            PowerTripMod.LOGGER.info("[NETWORK DEBUG] Client received roulette packet at " + System.currentTimeMillis());
-            context.client().execute(() -> {
-                PowerTripMod.LOGGER.info("[NETWORK DEBUG] Client executing roulette animation with " + 
-                    payload.playerNames().size() + " players, selected: " + payload.selectedPlayer() + 
-                    ", isBeginning: " + payload.isBeginning());
-                RouletteDisplay.startRoulette(payload.playerNames(), payload.selectedPlayer(), payload.isBeginning());
-            });
+            context.client().execute(() -> handleRoulette(payload, ThreadLocalRandom.current().nextLong(), -1, -1));
+        });
+        ClientPlayNetworking.registerGlobalReceiver(CompactPayloads.Roulette.ID, (payload, context) -> {
+            context.client().execute(() -> handleRoulette(payload.payload(), ThreadLocalRandom.current().nextLong(), -1, -1));
+        });
+        ClientPlayNetworking.registerGlobalReceiver(RosterPayloads.Roulette.ID, (payload, context) -> {
+            context.client().execute(() -> handleRosterRoulette(payload));
+        });
+        
+        // Register clock sync handler - samples feed the server tick estimate
+        ClientPlayNetworking.registerGlobalReceiver(ClockSyncPayload.ID, (payload, context) -> {
+            context.client().execute(() -> ClientClock.accept(payload));
+        });
+        
+        // Register roster mirror handlers
+        ClientPlayNetworking.registerGlobalReceiver(RosterPayloads.Snapshot.ID, (payload, context) -> {
+            context.client().execute(() -> ClientRoster.applySnapshot(payload));
+        });
+        ClientPlayNetworking.registerGlobalReceiver(RosterPayloads.Delta.ID, (payload, context) -> {
+            context.client().execute(() -> ClientRoster.applyDelta(payload));
+        });
+        
+        // Register countdown anchor handlers - the HUD extrapolates from here
+        ClientPlayNetworking.registerGlobalReceiver(CycleAnchorPayload.ID, (payload, context) -> {
+            context.client().execute(() -> handleCycleAnchor(payload));
+        });
+        ClientPlayNetworking.registerGlobalReceiver(CompactPayloads.CycleAnchor.ID, (payload, context) -> {
+            context.client().execute(() -> handleCycleAnchor(payload.payload()));
+        });
+        ClientPlayNetworking.registerGlobalReceiver(ReignAnchorPayload.ID, (payload, context) -> {
+            context.client().execute(() -> TimeDisplay.updateReignAnchor(payload));
         });
         
-        // Register time remaining packet handler
+        // Register time remaining packet handlers
         ClientPlayNetworking.registerGlobalReceiver(TimeRemainingPayload.ID, (payload, context) -> {
-            context.client().execute(() -> {
-                PowerTripMod.LOGGER.debug("Received time remaining update: " + 
-                    payload.daysRemaining() + " days, " + payload.hoursRemaining() + " hours, " +
-                    payload.minutesRemaining() + " minutes, active: " + payload.isPowerTripActive());
-                
-                // Call the TimeDisplay class safely through reflection to avoid direct class reference
-                // This prevents class loading issues between client/server environments
-                try {
-                    // Get the TimeDisplay class
-                    Class<?> timeDisplayClass = Class.forName("com.powertrip.mod.client.TimeDisplay");
-                    
-                    // Get the updateTimeRemaining method
-                    java.lang.reflect.Method updateMethod = timeDisplayClass.getMethod(
-                        "updateTimeRemaining", int.class, int.class, int.class, boolean.class);
-                    
-                    // Call the method with our payload data
-                    updateMethod.invoke(null, payload.daysRemaining(), 
-                        payload.hoursRemaining(), payload.minutesRemaining(), payload.isPowerTripActive());
-                } catch (Exception e) {
-                    PowerTripMod.LOGGER.error("Failed to update time display", e);
-                }
-            });
+            context.client().execute(() -> handleTimeRemaining(payload));
+        });
+        ClientPlayNetworking.registerGlobalReceiver(CompactPayloads.TimeRemaining.ID, (payload, context) -> {
+            context.client().execute(() -> handleTimeRemaining(payload.payload()));
         });
     }
     
+    @Environment(EnvType.CLIENT)
+    private static void handleRoulette(RoulettePayload payload, long seed, long startTick, long revealTick) {
+        Trace.log(TraceCategory.NETWORK, "Client executing roulette animation with {} players, selected: {}, isBeginning: {}",
+            payload.playerNames().size(), payload.selectedPlayer(), Boolean.valueOf(payload.isBeginning()));
+        RouletteDisplay.startRoulette(payload.playerNames(), payload.selectedPlayer(), payload.isBeginning(), seed, startTick, revealTick);
+    }
+    
+    @Environment(EnvType.CLIENT)
+    private static void handleRosterRoulette(RosterPayloads.Roulette payload) {
+        // Deltas travel on the same connection, so a mismatch only follows a missed update
+        if (payload.rosterVersion() != ClientRoster.getVersion()) {
+            Trace.log(TraceCategory.NETWORK, "Roulette for roster {} but have {}, requesting resync",
+                payload.rosterVersion(), ClientRoster.getVersion());
+            StatusSubscription.resync();
+        }
+        
+        String winner = payload.winnerSlot() >= 0 ? ClientRoster.nameAt(payload.winnerSlot()) : payload.winnerName();
+        if (winner == null) {
+            winner = "???";
+        }
+        handleRoulette(new RoulettePayload(ClientRoster.liveNamesExcept(payload.excludedSlots()), winner, payload.isBeginning()),
+            payload.seed(), payload.startTick(), payload.revealTick());
+    }
+    
+    @Environment(EnvType.CLIENT)
+    private static void handleCycleAnchor(CycleAnchorPayload payload) {
+        Trace.log(TraceCategory.NETWORK, "Received cycle state {}: end {}, world time {}",
+            payload.sequence(), payload.cycleEndTime(), payload.worldTime());
+        StatusSubscription.acceptSequence(payload.sequence());
+        TimeDisplay.updateAnchor(payload);
+    }
+    
+    @Environment(EnvType.CLIENT)
+    private static void handleTimeRemaining(TimeRemainingPayload payload) {
+        Trace.log(TraceCategory.NETWORK, "Received time remaining update: {} days, {} hours, {} minutes",
+            payload.daysRemaining(), payload.hoursRemaining(), payload.minutesRemaining());
+        
+        // Call the TimeDisplay class safely through reflection to avoid direct class reference
+        // This prevents class loading issues between client/server environments
+        try {
+            // Get the TimeDisplay class
+            Class<?> timeDisplayClass = Class.forName("com.powertrip.mod.client.TimeDisplay");
+            
+            // Get the updateTimeRemaining method
+            java.lang.reflect.Method updateMethod = timeDisplayClass.getMethod(
+                "updateTimeRemaining", int.class, int.class, int.class, boolean.class);
+            
+            // Call the method with our payload data
+            updateMethod.invoke(null, payload.daysRemaining(), 
+                payload.hoursRemaining(), payload.minutesRemaining(), payload.isPowerTripActive());
+        } catch (Exception e) {
+            PowerTripMod.LOGGER.error("Failed to update time display", e);
+        }
+    }
+    
     /**
      * Custom payload record for the roulette animation packet
      * Using the modern networking API introduced in 1.20.5
@@ -183,7 +529,7 @@ public class NetworkHandler {
         
         // Create a codec to serialize/deserialize the payload
         // This is a simplified implementation that encodes/decodes strings manually
-        public static final PacketCodec<PacketByteBuf, RoulettePayload> CODEC = new PacketCodec<>() {
+        public static final PacketCodec<PacketByteBuf, RoulettePayload> FIELD_CODEC = new PacketCodec<>() {
             @Override
             public void encode(PacketByteBuf buf, RoulettePayload payload) {
                 // Write the number of player names
@@ -222,6 +568,10 @@ public class NetworkHandler {
             }
         };
         
+        // Encode-once cache so broadcasts serialize this payload a single time
+        public static final EncodedPayloadCache<RoulettePayload> ENCODED = new EncodedPayloadCache<>(FIELD_CODEC);
+        public static final PacketCodec<PacketByteBuf, RoulettePayload> CODEC = ENCODED.codec();
+        
         @Override
         public Id<? extends CustomPayload> getId() {
             return ID;
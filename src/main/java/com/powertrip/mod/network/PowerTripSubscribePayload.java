@@ -0,0 +1,43 @@
+package com.powertrip.mod.network;
+
+import com.powertrip.mod.PowerTripMod;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+
+/**
+ * Client-to-server payload announcing interest in PowerTrip state
+ *
+ * Sent once after joining. The server then pushes the cycle anchor only when the
+ * state changes. Sending it again requests a resync, e.g. after the client noticed
+ * a gap in the state sequence numbers.
+ */
+public record PowerTripSubscribePayload(int protocolVersion) implements CustomPayload {
+    // Protocol version spoken by this build of the mod
+    // 1: version-1 payloads only, 2: compact payloads (see CompactPayloads), 3: roster mirror (see RosterPayloads),
+    // 4: scoped reign anchors (see ReignAnchorPayload)
+    public static final int CURRENT_PROTOCOL = ReignAnchorPayload.PROTOCOL;
+    
+    // Create an ID for this payload type
+    public static final CustomPayload.Id<PowerTripSubscribePayload> ID = new CustomPayload.Id<>(
+            Identifier.of(PowerTripMod.MOD_ID, "subscribe"));
+    
+    // Create a codec to serialize/deserialize the payload
+    public static final PacketCodec<PacketByteBuf, PowerTripSubscribePayload> CODEC = new PacketCodec<>() {
+        @Override
+        public void encode(PacketByteBuf buf, PowerTripSubscribePayload payload) {
+            buf.writeVarInt(payload.protocolVersion);
+        }
+        
+        @Override
+        public PowerTripSubscribePayload decode(PacketByteBuf buf) {
+            return new PowerTripSubscribePayload(buf.readVarInt());
+        }
+    };
+    
+    @Override
+    public Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+}
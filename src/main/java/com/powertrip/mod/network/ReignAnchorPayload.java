@@ -0,0 +1,75 @@
+package com.powertrip.mod.network;
+
+import com.powertrip.mod.PowerTripMod;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+
+/**
+ * Server-to-client anchor for one scoped reign's countdown
+ *
+ * The global reign keeps its {@link CycleAnchorPayload} (reign 0); every team or
+ * dimension reign is pushed as one of these when it gets a ruler, falls vacant or is
+ * removed. Clients show the reigns whose scope they are in and extrapolate the
+ * countdown from their own world clock, as for the global anchor.
+ * @param reignId The reign's id, 1 or more
+ * @param removed Whether the reign no longer exists
+ * @param scope The {@link com.powertrip.mod.power.ReignScope} id
+ * @param scopeKey The team name or dimension id
+ * @param rulerName The ruler's name, empty while the reign is vacant
+ * @param endTime World time of day the reign ends, or -1 while vacant
+ * @param worldTime Server world time of day when the anchor was built
+ */
+public record ReignAnchorPayload(int reignId, boolean removed, int scope, String scopeKey, String rulerName,
+                                 long endTime, long worldTime) implements CustomPayload {
+    // Lowest subscription protocol that receives scoped reign anchors
+    public static final int PROTOCOL = 4;
+    
+    public static final CustomPayload.Id<ReignAnchorPayload> ID = new CustomPayload.Id<>(
+            Identifier.of(PowerTripMod.MOD_ID, "reign_anchor"));
+    
+    public static final PacketCodec<PacketByteBuf, ReignAnchorPayload> CODEC = new PacketCodec<>() {
+        @Override
+        public void encode(PacketByteBuf buf, ReignAnchorPayload payload) {
+            buf.writeVarInt(payload.reignId);
+            buf.writeBoolean(payload.removed);
+            if (payload.removed) {
+                return;
+            }
+            buf.writeByte(payload.scope);
+            buf.writeString(payload.scopeKey);
+            buf.writeString(payload.rulerName);
+            buf.writeLong(payload.endTime);
+            buf.writeLong(payload.worldTime);
+        }
+        
+        @Override
+        public ReignAnchorPayload decode(PacketByteBuf buf) {
+            int reignId = buf.readVarInt();
+            if (buf.readBoolean()) {
+                return removed(reignId);
+            }
+            int scope = buf.readUnsignedByte();
+            String scopeKey = buf.readString();
+            String rulerName = buf.readString();
+            long endTime = buf.readLong();
+            long worldTime = buf.readLong();
+            return new ReignAnchorPayload(reignId, false, scope, scopeKey, rulerName, endTime, worldTime);
+        }
+    };
+    
+    /**
+     * Builds the notice that a reign was removed
+     * @param reignId The reign's id
+     * @return The payload
+     */
+    public static ReignAnchorPayload removed(int reignId) {
+        return new ReignAnchorPayload(reignId, true, 0, "", "", -1, 0);
+    }
+    
+    @Override
+    public Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+}
@@ -0,0 +1,180 @@
+package com.powertrip.mod.network;
+
+import com.powertrip.mod.PowerTripMod;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Payloads for the client-side roster mirror (protocol 3)
+ *
+ * A subscribing client receives a full {@link Snapshot} of the server's
+ * {@link RosterTable}, then a small {@link Delta} for every join or leave. Roulette
+ * animations are sent as a {@link Roulette} that references the roster version and
+ * the winner's slot, so the packet size no longer grows with the player count.
+ */
+public final class RosterPayloads {
+    // Lowest subscription protocol that keeps a roster mirror
+    public static final int PROTOCOL = 3;
+    
+    private static final int FLAG_BEGINNING = 1;
+    private static final int FLAG_EXCLUSIONS = 2;
+    
+    // Winner reference meaning "the winner's name follows inline" (not in the roster)
+    private static final int WINNER_INLINE = 0;
+    
+    private RosterPayloads() {
+    }
+    
+    /**
+     * Full copy of the roster - sent on subscribe and resync
+     * Free slots are sent as empty names so slot numbers line up
+     */
+    public record Snapshot(long version, List<String> slotNames) implements CustomPayload {
+        public static final CustomPayload.Id<Snapshot> ID = new CustomPayload.Id<>(
+                Identifier.of(PowerTripMod.MOD_ID, "roster_snapshot"));
+        
+        public static final PacketCodec<PacketByteBuf, Snapshot> CODEC = new PacketCodec<>() {
+            @Override
+            public void encode(PacketByteBuf buf, Snapshot payload) {
+                buf.writeVarLong(payload.version);
+                buf.writeVarInt(payload.slotNames.size());
+                for (String name : payload.slotNames) {
+                    buf.writeString(name == null ? "" : name);
+                }
+            }
+            
+            @Override
+            public Snapshot decode(PacketByteBuf buf) {
+                long version = buf.readVarLong();
+                int count = buf.readVarInt();
+                List<String> slotNames = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    String name = buf.readString();
+                    slotNames.add(name.isEmpty() ? null : name);
+                }
+                return new Snapshot(version, slotNames);
+            }
+        };
+        
+        @Override
+        public Id<? extends CustomPayload> getId() {
+            return ID;
+        }
+    }
+    
+    /**
+     * A single join or leave, producing roster version {@code version}
+     * @param name The joining player's name, or null when the slot was freed
+     */
+    public record Delta(long version, int slot, String name) implements CustomPayload {
+        public static final CustomPayload.Id<Delta> ID = new CustomPayload.Id<>(
+                Identifier.of(PowerTripMod.MOD_ID, "roster_delta"));
+        
+        public static final PacketCodec<PacketByteBuf, Delta> FIELD_CODEC = new PacketCodec<>() {
+            @Override
+            public void encode(PacketByteBuf buf, Delta payload) {
+                buf.writeVarLong(payload.version);
+                buf.writeVarInt(payload.slot);
+                buf.writeString(payload.name == null ? "" : payload.name);
+            }
+            
+            @Override
+            public Delta decode(PacketByteBuf buf) {
+                long version = buf.readVarLong();
+                int slot = buf.readVarInt();
+                String name = buf.readString();
+                return new Delta(version, slot, name.isEmpty() ? null : name);
+            }
+        };
+        
+        // Encode-once cache so broadcasts serialize this payload a single time
+        public static final EncodedPayloadCache<Delta> ENCODED = new EncodedPayloadCache<>(FIELD_CODEC);
+        public static final PacketCodec<PacketByteBuf, Delta> CODEC = ENCODED.codec();
+        
+        @Override
+        public Id<? extends CustomPayload> getId() {
+            return ID;
+        }
+    }
+    
+    /**
+     * Roulette animation over every name in the roster at {@code rosterVersion}, minus the excluded slots
+     * @param winnerSlot The winner's roster slot, or -1 if they are not in the roster
+     * @param winnerName The winner's name - only sent when winnerSlot is -1
+     * @param seed The seed every client builds the same {@link com.powertrip.mod.util.RouletteTimeline} from
+     * @param startTick The server tick the animation started on
+     * @param revealTick The server tick the winner is granted power and revealed on
+     * @param excludedSlots Slots of players left out of the animation (idle players), in ascending order
+     */
+    public record Roulette(long rosterVersion, int winnerSlot, String winnerName, boolean isBeginning,
+                           long seed, long startTick, long revealTick, int[] excludedSlots) implements CustomPayload {
+        public static final CustomPayload.Id<Roulette> ID = new CustomPayload.Id<>(
+                Identifier.of(PowerTripMod.MOD_ID, "roster_roulette"));
+        
+        public static final PacketCodec<PacketByteBuf, Roulette> FIELD_CODEC = new PacketCodec<>() {
+            @Override
+            public void encode(PacketByteBuf buf, Roulette payload) {
+                buf.writeVarLong(payload.rosterVersion);
+                boolean hasExclusions = payload.excludedSlots.length > 0;
+                buf.writeByte((payload.isBeginning ? FLAG_BEGINNING : 0) | (hasExclusions ? FLAG_EXCLUSIONS : 0));
+                buf.writeLong(payload.seed);
+                buf.writeVarLong(payload.startTick);
+                buf.writeVarLong(payload.revealTick - payload.startTick);
+                
+                // Winner as slot + 1, or 0 followed by the name
+                if (payload.winnerSlot >= 0) {
+                    buf.writeVarInt(payload.winnerSlot + 1);
+                } else {
+                    buf.writeVarInt(WINNER_INLINE);
+                    buf.writeString(payload.winnerName);
+                }
+                
+                // Excluded slots as gaps from the previous one, so they stay one byte each
+                if (hasExclusions) {
+                    buf.writeVarInt(payload.excludedSlots.length);
+                    int previous = -1;
+                    for (int slot : payload.excludedSlots) {
+                        buf.writeVarInt(slot - previous - 1);
+                        previous = slot;
+                    }
+                }
+            }
+            
+            @Override
+            public Roulette decode(PacketByteBuf buf) {
+                long rosterVersion = buf.readVarLong();
+                int flags = buf.readUnsignedByte();
+                long seed = buf.readLong();
+                long startTick = buf.readVarLong();
+                long revealTick = startTick + buf.readVarLong();
+                int winnerRef = buf.readVarInt();
+                String winnerName = winnerRef == WINNER_INLINE ? buf.readString() : null;
+                
+                int[] excludedSlots = new int[(flags & FLAG_EXCLUSIONS) != 0 ? buf.readVarInt() : 0];
+                int previous = -1;
+                for (int i = 0; i < excludedSlots.length; i++) {
+                    previous += buf.readVarInt() + 1;
+                    excludedSlots[i] = previous;
+                }
+                return new Roulette(rosterVersion, winnerRef - 1, winnerName, (flags & FLAG_BEGINNING) != 0,
+                        seed, startTick, revealTick, excludedSlots);
+            }
+        };
+        
+        // Encode-once cache so broadcasts serialize this payload a single time
+        // Records compare the int[] by identity, so a new Roulette never equals the cached one - it is
+        // interned once per broadcast and that instance sent to every roster client
+        public static final EncodedPayloadCache<Roulette> ENCODED = new EncodedPayloadCache<>(FIELD_CODEC);
+        public static final PacketCodec<PacketByteBuf, Roulette> CODEC = ENCODED.codec();
+        
+        @Override
+        public Id<? extends CustomPayload> getId() {
+            return ID;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.powertrip.mod.network;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Server-side table of online player names, addressed by slot
+ *
+ * Clients keep a mirror of this table in sync through join/leave deltas, so roulette
+ * packets only need to reference the table version and a slot instead of carrying
+ * every name. Slots freed by leaving players are reused, which keeps indices small.
+ * Every change bumps the version. Server thread only.
+ */
+public class RosterTable {
+    // Slot -> player name, null for a free slot
+    private final List<String> names = new ArrayList<>();
+    
+    private final Map<UUID, Integer> slotsByPlayer = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    
+    private long version = 0;
+    
+    // Live names in slot order, rebuilt lazily after a change
+    private List<String> liveNames = null;
+    
+    /**
+     * Adds a player to the table
+     * @param playerId The player's UUID
+     * @param name The player's name
+     * @return The slot assigned to the player, or -1 if they were already present
+     */
+    public int add(UUID playerId, String name) {
+        if (slotsByPlayer.containsKey(playerId)) {
+            return -1;
+        }
+        
+        Integer slot = freeSlots.pollFirst();
+        if (slot == null) {
+            slot = names.size();
+            names.add(name);
+        } else {
+            names.set(slot, name);
+        }
+        slotsByPlayer.put(playerId, slot);
+        changed();
+        return slot;
+    }
+    
+    /**
+     * Removes a player from the table
+     * @param playerId The player's UUID
+     * @return The slot the player occupied, or -1 if they were not present
+     */
+    public int remove(UUID playerId) {
+        Integer slot = slotsByPlayer.remove(playerId);
+        if (slot == null) {
+            return -1;
+        }
+        
+        names.set(slot, null);
+        freeSlots.addLast(slot);
+        changed();
+        return slot;
+    }
+    
+    /**
+     * Gets a player's slot
+     * @param playerId The player's UUID
+     * @return The slot, or -1 if the player is not in the table
+     */
+    public int slotOf(UUID playerId) {
+        return slotsByPlayer.getOrDefault(playerId, -1);
+    }
+    
+    /**
+     * Gets the table version, incremented on every add or remove
+     * @return The version
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Gets the number of players in the table
+     * @return The player count
+     */
+    public int size() {
+        return slotsByPlayer.size();
+    }
+    
+    /**
+     * Gets a copy of every slot, including free ones, for a full snapshot
+     * @return Slot names with null for free slots
+     */
+    public List<String> slotNames() {
+        return new ArrayList<>(names);
+    }
+    
+    /**
+     * Gets the names of all players in slot order - what the client-side mirror shows
+     * @return An unmodifiable list, shared until the next change
+     */
+    public List<String> liveNames() {
+        if (liveNames == null) {
+            List<String> live = new ArrayList<>(slotsByPlayer.size());
+            for (String name : names) {
+                if (name != null) {
+                    live.add(name);
+                }
+            }
+            liveNames = Collections.unmodifiableList(live);
+        }
+        return liveNames;
+    }
+    
+    /**
+     * Gets the names of all players except those in the given slots
+     * @param excludedSlots Slots to leave out, in ascending order
+     * @return The remaining names, in slot order
+     */
+    public List<String> liveNamesExcept(int[] excludedSlots) {
+        if (excludedSlots.length == 0) {
+            return liveNames();
+        }
+        
+        List<String> live = new ArrayList<>(slotsByPlayer.size());
+        for (int slot = 0, next = 0; slot < names.size(); slot++) {
+            if (next < excludedSlots.length && excludedSlots[next] == slot) {
+                next++;
+            } else if (names.get(slot) != null) {
+                live.add(names.get(slot));
+            }
+        }
+        return live;
+    }
+    
+    private void changed() {
+        version++;
+        liveNames = null;
+    }
+}
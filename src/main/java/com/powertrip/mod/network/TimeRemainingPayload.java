@@ -16,7 +16,7 @@ public record TimeRemainingPayload(int daysRemaining, int hoursRemaining, int mi
             Identifier.of(PowerTripMod.MOD_ID, "time_remaining"));
     
     // Create a codec to serialize/deserialize the payload
-    public static final PacketCodec<PacketByteBuf, TimeRemainingPayload> CODEC = new PacketCodec<>() {
+    public static final PacketCodec<PacketByteBuf, TimeRemainingPayload> FIELD_CODEC = new PacketCodec<>() {
         @Override
         public void encode(PacketByteBuf buf, TimeRemainingPayload payload) {
             buf.writeInt(payload.daysRemaining);
@@ -35,6 +35,10 @@ public record TimeRemainingPayload(int daysRemaining, int hoursRemaining, int mi
         }
     };
     
+    // Encode-once cache so broadcasts serialize this payload a single time
+    public static final EncodedPayloadCache<TimeRemainingPayload> ENCODED = new EncodedPayloadCache<>(FIELD_CODEC);
+    public static final PacketCodec<PacketByteBuf, TimeRemainingPayload> CODEC = ENCODED.codec();
+    
     @Override
     public Id<? extends CustomPayload> getId() {
         return ID;
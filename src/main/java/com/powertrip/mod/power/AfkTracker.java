@@ -0,0 +1,121 @@
+package com.powertrip.mod.power;
+
+import com.powertrip.mod.config.ModConfig;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Spots players who are away from the keyboard
+ *
+ * Each tick looks at no more than {@link ModConfig#AFK_SAMPLES_PER_TICK} players,
+ * continuing round the player list where the previous tick stopped, so the cost per
+ * tick stays flat however many players are online. A sample compares the player's
+ * position, look direction and last input time with the previous sample; any change
+ * resets their idle score, otherwise the ticks since the previous sample are added to
+ * it. A player whose score reaches {@link ModConfig#AFK_IDLE_TICKS} is idle.
+ * Players not sampled yet count as active. Server thread only.
+ */
+public class AfkTracker {
+    // Horizontal movement (squared, in blocks) that counts as activity - falling or bobbing in water does not
+    private static final double MIN_MOVE_SQUARED = 1.0;
+    
+    // Change in yaw or pitch (degrees) that counts as activity
+    private static final float MIN_LOOK_CHANGE = 1.0F;
+    
+    private static final class Sample {
+        double x;
+        double z;
+        float yaw;
+        float pitch;
+        long lastActionTime;
+        long sampledAt;
+        long idleTicks;
+    }
+    
+    private final Map<UUID, Sample> samples = new HashMap<>();
+    private int cursor = 0;
+    
+    /**
+     * Samples the next slice of players
+     * @param players The online players
+     * @param serverTick Current server tick count
+     */
+    public void tick(List<ServerPlayerEntity> players, long serverTick) {
+        int count = players.size();
+        int budget = Math.min(ModConfig.AFK_SAMPLES_PER_TICK, count);
+        for (int i = 0; i < budget; i++) {
+            if (cursor >= count) {
+                cursor = 0;
+            }
+            sample(players.get(cursor++), serverTick);
+        }
+    }
+    
+    private void sample(ServerPlayerEntity player, long serverTick) {
+        Sample sample = samples.get(player.getUuid());
+        if (sample == null) {
+            sample = new Sample();
+            samples.put(player.getUuid(), sample);
+            record(sample, player, serverTick);
+            return;
+        }
+        
+        double dx = player.getX() - sample.x;
+        double dz = player.getZ() - sample.z;
+        boolean active = player.getLastActionTime() != sample.lastActionTime
+                || dx * dx + dz * dz >= MIN_MOVE_SQUARED
+                || Math.abs(player.getYaw() - sample.yaw) >= MIN_LOOK_CHANGE
+                || Math.abs(player.getPitch() - sample.pitch) >= MIN_LOOK_CHANGE;
+        sample.idleTicks = active ? 0 : sample.idleTicks + (serverTick - sample.sampledAt);
+        record(sample, player, serverTick);
+    }
+    
+    private static void record(Sample sample, ServerPlayerEntity player, long serverTick) {
+        sample.x = player.getX();
+        sample.z = player.getZ();
+        sample.yaw = player.getYaw();
+        sample.pitch = player.getPitch();
+        sample.lastActionTime = player.getLastActionTime();
+        sample.sampledAt = serverTick;
+    }
+    
+    /**
+     * Checks whether a player is idle
+     * @param playerId The player's UUID
+     * @return true if the player has shown no activity for {@link ModConfig#AFK_IDLE_TICKS}
+     */
+    public boolean isIdle(UUID playerId) {
+        Sample sample = samples.get(playerId);
+        return sample != null && sample.idleTicks >= ModConfig.AFK_IDLE_TICKS;
+    }
+    
+    /**
+     * Gets how long a player has been idle, as of their last sample
+     * @param playerId The player's UUID
+     * @return The idle score in ticks
+     */
+    public long getIdleTicks(UUID playerId) {
+        Sample sample = samples.get(playerId);
+        return sample == null ? 0 : sample.idleTicks;
+    }
+    
+    /**
+     * Forgets a player who left
+     * @param playerId The player's UUID
+     */
+    public void remove(UUID playerId) {
+        samples.remove(playerId);
+    }
+    
+    /**
+     * Forgets every player
+     */
+    public void clear() {
+        samples.clear();
+        cursor = 0;
+    }
+}
@@ -0,0 +1,169 @@
+package com.powertrip.mod.power;
+
+import com.powertrip.mod.config.ModConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Caps how much server time each reign's ruler may spend running commands
+ *
+ * Every reign has a token bucket of milliseconds, refilled at
+ * {@link ModConfig#COMMAND_BUDGET_MS_PER_SECOND} of wall time up to
+ * {@link ModConfig#COMMAND_BUDGET_BURST_MS}. The command mixin calls {@link #begin}
+ * before a ruler's command runs and {@link #end} once any command returns; the measured time
+ * is taken out of the bucket afterwards, since a command's cost is only known once it
+ * ran, so one expensive /fill can leave the bucket in debt. While the bucket is empty
+ * the ruler's commands are refused. Other players never reach this class. A bucket
+ * starts afresh when its reign changes hands. Server thread only.
+ */
+public class CommandBudget {
+    private static final long NANOS_PER_MS = 1_000_000;
+    
+    /**
+     * What one reign's ruler has spent so far
+     * @param reignId The reign's id
+     * @param rulerName The ruler the counters belong to
+     * @param usedNanos Time spent running commands this reign
+     * @param commands Commands run this reign
+     * @param rejected Commands refused for being over budget
+     * @param availableNanos Time left in the bucket, negative while in debt
+     */
+    public record Usage(int reignId, String rulerName, long usedNanos, int commands, int rejected, long availableNanos) {
+    }
+    
+    private static final class Bucket {
+        UUID rulerId;
+        String rulerName;
+        long tokens;
+        long refilledAt;
+        long usedNanos;
+        int commands;
+        int rejected;
+    }
+    
+    // By reign id, so the report lists the global reign first
+    private final Map<Integer, Bucket> buckets = new TreeMap<>();
+    
+    // The command being measured; commands run from within it are part of its cost
+    private Bucket running = null;
+    private long startedAt = 0;
+    private int depth = 0;
+    
+    /**
+     * Charges a ruler's command to their reign's bucket, or refuses it when the bucket is empty
+     * @param reignId The reign the ruler holds
+     * @param rulerId The ruler's UUID
+     * @param rulerName The ruler's name
+     * @return true if the command may run, in which case {@link #end} must follow
+     */
+    public boolean begin(int reignId, UUID rulerId, String rulerName) {
+        long now = System.nanoTime();
+        Bucket bucket = buckets.computeIfAbsent(reignId, id -> new Bucket());
+        if (!rulerId.equals(bucket.rulerId)) {
+            bucket.rulerId = rulerId;
+            bucket.rulerName = rulerName;
+            bucket.tokens = ModConfig.COMMAND_BUDGET_BURST_MS * NANOS_PER_MS;
+            bucket.refilledAt = now;
+            bucket.usedNanos = 0;
+            bucket.commands = 0;
+            bucket.rejected = 0;
+        }
+        refill(bucket, now);
+        if (bucket.tokens <= 0) {
+            bucket.rejected++;
+            return false;
+        }
+        
+        running = bucket;
+        startedAt = now;
+        depth = 1;
+        return true;
+    }
+    
+    /**
+     * Counts a command run from within the one being measured, which {@link #end} must also follow
+     * @return true if a ruler's command is being measured
+     */
+    public boolean nest() {
+        if (running == null) {
+            return false;
+        }
+        depth++;
+        return true;
+    }
+    
+    /**
+     * Stops measuring - a no-op unless a ruler's command is being measured
+     */
+    public void end() {
+        if (running == null || --depth > 0) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startedAt;
+        running.tokens -= elapsed;
+        running.usedNanos += elapsed;
+        running.commands++;
+        running = null;
+    }
+    
+    /**
+     * Gets how long a ruler must wait before their reign's bucket allows commands again
+     * @param reignId The reign's id
+     * @return Milliseconds until the bucket is no longer empty, 0 if it is not
+     */
+    public long getWaitMs(int reignId) {
+        Bucket bucket = buckets.get(reignId);
+        if (bucket == null) {
+            return 0;
+        }
+        refill(bucket, System.nanoTime());
+        if (bucket.tokens > 0) {
+            return 0;
+        }
+        return -bucket.tokens / ModConfig.COMMAND_BUDGET_MS_PER_SECOND / 1000 + 1;
+    }
+    
+    /**
+     * Reports every reign's consumption
+     * @return One entry per reign whose ruler ran a command, in reign id order
+     */
+    public List<Usage> usage() {
+        long now = System.nanoTime();
+        List<Usage> usage = new ArrayList<>(buckets.size());
+        for (Map.Entry<Integer, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            refill(bucket, now);
+            usage.add(new Usage(entry.getKey(), bucket.rulerName, bucket.usedNanos, bucket.commands,
+                    bucket.rejected, bucket.tokens));
+        }
+        return usage;
+    }
+    
+    /**
+     * Forgets a reign's bucket, e.g. when the reign is removed
+     * @param reignId The reign's id
+     */
+    public void remove(int reignId) {
+        buckets.remove(reignId);
+    }
+    
+    /**
+     * Forgets every bucket
+     */
+    public void clear() {
+        buckets.clear();
+        running = null;
+        depth = 0;
+    }
+    
+    private static void refill(Bucket bucket, long now) {
+        // N ms of budget per second of wall time is N ns per microsecond
+        long earned = (now - bucket.refilledAt) / 1000 * ModConfig.COMMAND_BUDGET_MS_PER_SECOND;
+        bucket.tokens = Math.min(bucket.tokens + earned, ModConfig.COMMAND_BUDGET_BURST_MS * NANOS_PER_MS);
+        bucket.refilledAt = now;
+    }
+}
@@ -0,0 +1,38 @@
+package com.powertrip.mod.power;
+
+/**
+ * Phases of a power cycle transition
+ * Transitions are advanced by server tick count from ServerTickHandler, never by sleeping threads
+ *
+ * IDLE -> EVALUATING -> SELECTING -> REVEALING -> GRANTED -> ENDING -> COOLDOWN -> EVALUATING ...
+ */
+public enum CyclePhase {
+    // No cycle is running and nothing is pending
+    IDLE,
+    
+    // Eligibility rules are running off the server thread, the draw follows when they report back
+    EVALUATING,
+    
+    // Winner chosen server-side, roulette names are cycling on the clients
+    SELECTING,
+    
+    // Roulette has stopped and the winner is shown, operator grant is pending
+    REVEALING,
+    
+    // The winner holds operator status until the cycle end time
+    GRANTED,
+    
+    // End animation is playing, operator revoke is pending
+    ENDING,
+    
+    // Powers revoked, waiting for the end animation to finish before autostarting the next cycle
+    COOLDOWN;
+    
+    /**
+     * Checks whether the roulette (selection or reveal) is in progress
+     * @return true while a winner is being selected or revealed
+     */
+    public boolean isRoulette() {
+        return this == SELECTING || this == REVEALING;
+    }
+}
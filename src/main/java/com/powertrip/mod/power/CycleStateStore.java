@@ -0,0 +1,384 @@
+package com.powertrip.mod.power;
+
+import com.powertrip.mod.PowerTripMod;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtHelper;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.nbt.NbtSizeTracker;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Crash-safe, write-behind persistence for the power cycle state
+ *
+ * The state lives in {@code <world>/powertrip/}: a compressed NBT snapshot and a
+ * journal of transitions (grant, revoke, duration and autostart changes, operator
+ * status handed out or taken back, offline winners queued, cycles abandoned before a
+ * grant) made since that snapshot.
+ * All file I/O runs on a single background thread, so the tick thread only captures
+ * an immutable {@link Snapshot} and queues a journal line. Snapshot requests are
+ * coalesced - only the newest pending one is written - and land via a
+ * temporary file and an atomic rename. Recovery loads the snapshot and replays the
+ * journal entries newer than it.
+ */
+public class CycleStateStore {
+    private static final String SNAPSHOT_FILE = "cycle_state.dat";
+    private static final String JOURNAL_FILE = "cycle_journal.log";
+    
+    // Journal entry types
+    static final String GRANT = "GRANT";
+    static final String REVOKE = "REVOKE";
+    static final String DURATION = "DURATION";
+    static final String AUTOSTART = "AUTOSTART";
+    static final String OP_ADD = "OP_ADD";
+    static final String OP_REMOVE = "OP_REMOVE";
+    static final String QUEUE = "QUEUE";
+    static final String ABORT = "ABORT";
+    
+    /**
+     * Persisted cycle state
+     * @param grantedOperators Players currently holding operator status granted by PowerTrip
+     * @param queuedWinner An offline winner whose reign starts when they next join, or null
+     * @param journalSeq The last journal entry already reflected in this state
+     */
+    public record Snapshot(String currentPowerPlayer, boolean isRunning, long cycleEndTime, long cycleDayStart,
+                           int daysRemaining, int cycleDuration, boolean autostartEnabled,
+                           List<UUID> grantedOperators, QueuedWinner queuedWinner, long journalSeq) {
+        NbtCompound toNbt() {
+            NbtCompound nbt = new NbtCompound();
+            if (currentPowerPlayer != null) {
+                nbt.putString("CurrentPowerPlayer", currentPowerPlayer);
+            }
+            nbt.putBoolean("Running", isRunning);
+            nbt.putLong("CycleEndTime", cycleEndTime);
+            nbt.putLong("CycleDayStart", cycleDayStart);
+            nbt.putInt("DaysRemaining", daysRemaining);
+            nbt.putInt("CycleDuration", cycleDuration);
+            nbt.putBoolean("Autostart", autostartEnabled);
+            NbtList granted = new NbtList();
+            for (UUID playerId : grantedOperators) {
+                granted.add(NbtHelper.fromUuid(playerId));
+            }
+            nbt.put("GrantedOperators", granted);
+            if (queuedWinner != null) {
+                NbtCompound queued = new NbtCompound();
+                queued.putUuid("Id", queuedWinner.playerId());
+                queued.putString("Name", queuedWinner.name());
+                queued.putInt("Candidates", queuedWinner.candidateCount());
+                nbt.put("QueuedWinner", queued);
+            }
+            nbt.putLong("JournalSeq", journalSeq);
+            return nbt;
+        }
+        
+        static Snapshot fromNbt(NbtCompound nbt) {
+            List<UUID> granted = new ArrayList<>();
+            for (NbtElement element : nbt.getList("GrantedOperators", NbtElement.INT_ARRAY_TYPE)) {
+                granted.add(NbtHelper.toUuid(element));
+            }
+            QueuedWinner queued = null;
+            if (nbt.contains("QueuedWinner")) {
+                NbtCompound compound = nbt.getCompound("QueuedWinner");
+                queued = new QueuedWinner(compound.getUuid("Id"), compound.getString("Name"), compound.getInt("Candidates"));
+            }
+            return new Snapshot(
+                    nbt.contains("CurrentPowerPlayer") ? nbt.getString("CurrentPowerPlayer") : null,
+                    nbt.getBoolean("Running"),
+                    nbt.getLong("CycleEndTime"),
+                    nbt.getLong("CycleDayStart"),
+                    nbt.getInt("DaysRemaining"),
+                    nbt.getInt("CycleDuration"),
+                    nbt.getBoolean("Autostart"),
+                    List.copyOf(granted),
+                    queued,
+                    nbt.getLong("JournalSeq"));
+        }
+        
+        /**
+         * Applies one journal entry on top of this state
+         * @param seq The entry's sequence number
+         * @param fields The entry type followed by its fields
+         * @return The resulting state
+         */
+        Snapshot replay(long seq, String[] fields) {
+            return switch (fields[0]) {
+                case GRANT -> new Snapshot(fields[1], true, Long.parseLong(fields[2]), Long.parseLong(fields[3]),
+                        Integer.parseInt(fields[4]), Integer.parseInt(fields[4]), autostartEnabled, grantedOperators, null, seq);
+                case REVOKE -> new Snapshot(null, false, -1, -1, daysRemaining, cycleDuration, autostartEnabled, List.of(), null, seq);
+                case DURATION -> new Snapshot(currentPowerPlayer, isRunning, cycleEndTime, cycleDayStart, daysRemaining,
+                        Integer.parseInt(fields[1]), autostartEnabled, grantedOperators, queuedWinner, seq);
+                case AUTOSTART -> new Snapshot(currentPowerPlayer, isRunning, cycleEndTime, cycleDayStart, daysRemaining,
+                        cycleDuration, Boolean.parseBoolean(fields[1]), grantedOperators, queuedWinner, seq);
+                case QUEUE -> new Snapshot(currentPowerPlayer, isRunning, cycleEndTime, cycleDayStart, daysRemaining,
+                        cycleDuration, autostartEnabled, grantedOperators,
+                        new QueuedWinner(UUID.fromString(fields[1]), fields[2], Integer.parseInt(fields[3])), seq);
+                case ABORT -> new Snapshot(currentPowerPlayer, false, cycleEndTime, cycleDayStart, daysRemaining,
+                        cycleDuration, autostartEnabled, grantedOperators, queuedWinner, seq);
+                case OP_ADD, OP_REMOVE -> {
+                    List<UUID> granted = new ArrayList<>(grantedOperators);
+                    UUID playerId = UUID.fromString(fields[1]);
+                    granted.remove(playerId);
+                    if (fields[0].equals(OP_ADD)) {
+                        granted.add(playerId);
+                    }
+                    yield new Snapshot(currentPowerPlayer, isRunning, cycleEndTime, cycleDayStart, daysRemaining,
+                            cycleDuration, autostartEnabled, List.copyOf(granted), queuedWinner, seq);
+                }
+                default -> throw new IllegalArgumentException("Unknown journal entry " + fields[0]);
+            };
+        }
+    }
+    
+    /**
+     * A winner who was offline when drawn
+     * @param candidateCount Number of players they were drawn from, for the reign history
+     */
+    public record QueuedWinner(UUID playerId, String name, int candidateCount) {
+    }
+    
+    private ExecutorService executor = null;
+    private Path directory = null;
+    
+    // Sequence number of the last queued journal entry (server thread only)
+    private long journalSeq = 0;
+    
+    // Newest snapshot waiting to be written; a write task is queued while this is non-null
+    private final AtomicReference<Snapshot> pendingSnapshot = new AtomicReference<>();
+    
+    // Open journal, only touched on the I/O thread
+    private BufferedWriter journalWriter = null;
+    
+    /**
+     * Opens the store for a world and recovers the last saved state
+     * Called once at server start, before the first tick
+     * @param directory The directory holding the state files
+     * @return The recovered state, or null if nothing was saved yet
+     */
+    public Snapshot open(Path directory) {
+        close();
+        this.directory = directory;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "PowerTrip-Persistence");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        Snapshot state = null;
+        try {
+            Files.createDirectories(directory);
+            Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+            if (Files.exists(snapshotFile)) {
+                state = Snapshot.fromNbt(NbtIo.readCompressed(snapshotFile, NbtSizeTracker.ofUnlimitedBytes()));
+            }
+            state = replayJournal(state);
+        } catch (IOException e) {
+            PowerTripMod.LOGGER.error("Failed to load PowerTrip cycle state", e);
+        }
+        
+        journalSeq = state != null ? state.journalSeq() : 0;
+        return state;
+    }
+    
+    private Snapshot replayJournal(Snapshot state) throws IOException {
+        Path journalFile = directory.resolve(JOURNAL_FILE);
+        if (!Files.exists(journalFile)) {
+            return state;
+        }
+        
+        List<String> lines = Files.readAllLines(journalFile, StandardCharsets.UTF_8);
+        int replayed = 0;
+        for (String line : lines) {
+            String[] parts = line.split("\t");
+            try {
+                long seq = Long.parseLong(parts[0]);
+                if (state != null && seq <= state.journalSeq()) {
+                    continue; // Already in the snapshot
+                }
+                if (state == null) {
+                    state = new Snapshot(null, false, -1, -1, 0, 7, false, List.of(), null, 0);
+                }
+                String[] fields = new String[parts.length - 1];
+                System.arraycopy(parts, 1, fields, 0, fields.length);
+                state = state.replay(seq, fields);
+                replayed++;
+            } catch (RuntimeException e) {
+                // A torn final line from a crash mid-write - everything before it is intact
+                PowerTripMod.LOGGER.warn("Ignoring unreadable PowerTrip journal entry: " + line);
+                break;
+            }
+        }
+        
+        if (replayed > 0) {
+            PowerTripMod.LOGGER.info("Replayed " + replayed + " PowerTrip journal entries");
+        }
+        return state;
+    }
+    
+    /**
+     * Queues a transition for the journal - server thread only
+     * @param type The entry type
+     * @param fields The entry's fields
+     * @return The entry's sequence number, to be recorded in the next snapshot
+     */
+    public long journal(String type, Object... fields) {
+        if (executor == null) {
+            return journalSeq;
+        }
+        
+        long seq = ++journalSeq;
+        StringBuilder line = new StringBuilder().append(seq).append('\t').append(type);
+        for (Object field : fields) {
+            line.append('\t').append(field);
+        }
+        String entry = line.toString();
+        executor.execute(() -> appendJournal(entry));
+        return seq;
+    }
+    
+    /**
+     * Gets the sequence number of the last queued journal entry
+     * @return The sequence number
+     */
+    public long getJournalSeq() {
+        return journalSeq;
+    }
+    
+    /**
+     * Requests that a snapshot be written - server thread only, never blocks
+     * Requests made before the previous one was written replace it
+     * @param snapshot The state to save
+     */
+    public void requestSnapshot(Snapshot snapshot) {
+        if (executor == null) {
+            return;
+        }
+        if (pendingSnapshot.getAndSet(snapshot) == null) {
+            executor.execute(this::writePendingSnapshot);
+        }
+    }
+    
+    /**
+     * Reads a side file kept next to the snapshot - only while opening, on the server thread
+     * @param fileName The file name within the state directory
+     * @return The file's contents, or null if it does not exist or cannot be read
+     */
+    public byte[] readFile(String fileName) {
+        if (directory == null) {
+            return null;
+        }
+        Path file = directory.resolve(fileName);
+        try {
+            return Files.exists(file) ? Files.readAllBytes(file) : null;
+        } catch (IOException e) {
+            PowerTripMod.LOGGER.error("Failed to read PowerTrip " + fileName, e);
+            return null;
+        }
+    }
+    
+    /**
+     * Queues a side file to be replaced in the background, via a temporary file and an atomic rename
+     * @param fileName The file name within the state directory
+     * @param data The new contents, which must not be modified afterwards
+     */
+    public void writeFile(String fileName, byte[] data) {
+        if (executor == null) {
+            return;
+        }
+        executor.execute(() -> {
+            Path target = directory.resolve(fileName);
+            Path temp = directory.resolve(fileName + ".tmp");
+            try {
+                Files.write(temp, data);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                PowerTripMod.LOGGER.error("Failed to save PowerTrip " + fileName, e);
+            }
+        });
+    }
+    
+    private void appendJournal(String entry) {
+        try {
+            if (journalWriter == null) {
+                journalWriter = Files.newBufferedWriter(directory.resolve(JOURNAL_FILE), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            journalWriter.write(entry);
+            journalWriter.newLine();
+            journalWriter.flush();
+        } catch (IOException e) {
+            PowerTripMod.LOGGER.error("Failed to append to PowerTrip journal", e);
+        }
+    }
+    
+    private void writePendingSnapshot() {
+        Snapshot snapshot = pendingSnapshot.getAndSet(null);
+        if (snapshot == null) {
+            return;
+        }
+        
+        Path target = directory.resolve(SNAPSHOT_FILE);
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try {
+            NbtIo.writeCompressed(snapshot.toNbt(), temp);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            
+            // Entries newer than the snapshot were queued after this task, so they land in the fresh journal
+            compactJournal();
+        } catch (IOException e) {
+            PowerTripMod.LOGGER.error("Failed to save PowerTrip cycle state", e);
+        }
+    }
+    
+    private void compactJournal() throws IOException {
+        if (journalWriter != null) {
+            journalWriter.close();
+        }
+        journalWriter = Files.newBufferedWriter(directory.resolve(JOURNAL_FILE), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+    
+    /**
+     * Writes everything still queued and stops the I/O thread
+     * Called at server shutdown, where waiting is fine
+     */
+    public void close() {
+        if (executor == null) {
+            return;
+        }
+        
+        executor.execute(() -> {
+            try {
+                if (journalWriter != null) {
+                    journalWriter.close();
+                    journalWriter = null;
+                }
+            } catch (IOException e) {
+                PowerTripMod.LOGGER.error("Failed to close PowerTrip journal", e);
+            }
+        });
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                PowerTripMod.LOGGER.warn("Timed out saving PowerTrip cycle state");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+}
@@ -0,0 +1,164 @@
+package com.powertrip.mod.power;
+
+import com.powertrip.mod.PowerTripMod;
+import com.powertrip.mod.config.ModConfig;
+import com.powertrip.mod.util.Trace;
+import com.powertrip.mod.util.TraceCategory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Decides who may win a cycle, and with what weight, off the server thread
+ *
+ * The server thread captures an immutable {@link Snapshot} of every potential
+ * candidate - the only step that reads live game state - and hands it to
+ * {@link #evaluate}. The rule chain runs on a small worker pool, split across its
+ * threads once the snapshot holds {@link ModConfig#ELIGIBILITY_PARALLEL_THRESHOLD}
+ * players, and the weighted candidates come back through the server's task queue.
+ * Should the rules take longer than {@link ModConfig#ELIGIBILITY_TIMEOUT_MS}, every
+ * online player is handed back with equal weight instead, so a slow rule can hold
+ * up a cycle by no more than that.
+ */
+public class EligibilityPipeline {
+    /**
+     * Everything the rules may know about a player
+     * @param online Whether the player was online when the snapshot was taken
+     * @param idle Whether the player was away from the keyboard
+     * @param cycleTicks Ticks played since the last reign began
+     * @param lastReignEnd Game time the player's last reign ended, or -1 if they never reigned
+     * @param recentRuler Whether the player is one of the last {@link ModConfig#EXCLUDE_RECENT_RULERS} rulers
+     */
+    public record PlayerState(UUID playerId, String name, boolean online, boolean idle, int cycleTicks,
+                              long lastReignEnd, boolean recentRuler) {
+    }
+    
+    /**
+     * The players to evaluate, in the order candidates are handed back
+     * @param worldTime Overworld game time when the snapshot was taken
+     */
+    public record Snapshot(long worldTime, List<PlayerState> players) {
+    }
+    
+    /**
+     * The outcome of an evaluation
+     * @param candidates The eligible players with their weights, in snapshot order
+     * @param fallback Whether the rules timed out or failed and every online player was let in
+     */
+    public record Result(List<SelectionEngine.Candidate> candidates, boolean fallback) {
+    }
+    
+    // Daemon workers, so an evaluation still running never holds up shutdown
+    private final ForkJoinPool workers = new ForkJoinPool(
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)), pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("PowerTrip-Eligibility-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+    
+    // Replaced as a whole, so a running evaluation keeps the chain it started with
+    private volatile List<EligibilityRule> rules = List.of(
+            EligibilityRule.ACTIVE, EligibilityRule.MIN_PLAYTIME, EligibilityRule.RECENCY);
+    
+    /**
+     * Replaces the rule chain
+     * @param rules The rules, applied in order
+     */
+    public void setRules(List<EligibilityRule> rules) {
+        this.rules = List.copyOf(rules);
+    }
+    
+    /**
+     * Gets the rule chain
+     * @return The rules, in the order they are applied
+     */
+    public List<EligibilityRule> getRules() {
+        return rules;
+    }
+    
+    /**
+     * Evaluates a snapshot on the workers
+     * @param snapshot The players, captured on the server thread
+     * @param serverThread Where the result is delivered - the server itself
+     * @param callback Receives the result on the server thread
+     */
+    public void evaluate(Snapshot snapshot, Executor serverThread, Consumer<Result> callback) {
+        List<EligibilityRule> chain = rules;
+        long started = System.nanoTime();
+        CompletableFuture.supplyAsync(() -> apply(snapshot, chain), workers)
+                .exceptionally(e -> {
+                    PowerTripMod.LOGGER.error("PowerTrip eligibility rules failed, letting every online player in", e);
+                    return fallback(snapshot);
+                })
+                .completeOnTimeout(fallback(snapshot), ModConfig.ELIGIBILITY_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .thenAcceptAsync(result -> {
+                    Trace.log(TraceCategory.POWER, "Evaluated {} players in {} us: {} eligible",
+                            snapshot.players().size(), (System.nanoTime() - started) / 1000,
+                            result.candidates().size());
+                    if (result.fallback()) {
+                        Trace.log(TraceCategory.POWER, "Eligibility fell back to every online player");
+                    }
+                    callback.accept(result);
+                }, serverThread);
+    }
+    
+    private Result apply(Snapshot snapshot, List<EligibilityRule> chain) {
+        List<PlayerState> players = snapshot.players();
+        int count = players.size();
+        double[] weights = new double[count];
+        
+        // Each index is written by exactly one worker
+        IntStream indices = IntStream.range(0, count);
+        if (count >= ModConfig.ELIGIBILITY_PARALLEL_THRESHOLD) {
+            indices = indices.parallel();
+        }
+        indices.forEach(i -> weights[i] = weigh(players.get(i), snapshot.worldTime(), chain));
+        
+        // Recent rulers sit out - unless that leaves nobody, then let them all back in rather than skip the cycle
+        boolean othersEligible = false;
+        for (int i = 0; i < count && !othersEligible; i++) {
+            othersEligible = weights[i] > 0 && !players.get(i).recentRuler();
+        }
+        
+        List<SelectionEngine.Candidate> candidates = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            PlayerState player = players.get(i);
+            if (weights[i] > 0 && !(othersEligible && player.recentRuler())) {
+                candidates.add(new SelectionEngine.Candidate(player.playerId(), player.name(), weights[i]));
+            }
+        }
+        if (!othersEligible && !candidates.isEmpty()) {
+            Trace.log(TraceCategory.POWER, "Every candidate ruled recently, ignoring the exclusion");
+        }
+        return new Result(candidates, false);
+    }
+    
+    private static double weigh(PlayerState player, long worldTime, List<EligibilityRule> chain) {
+        double weight = 1.0;
+        for (int i = 0; i < chain.size() && weight > 0; i++) {
+            weight = chain.get(i).weigh(player, worldTime, weight);
+        }
+        return weight;
+    }
+    
+    /**
+     * Every online player with equal weight
+     */
+    private static Result fallback(Snapshot snapshot) {
+        List<SelectionEngine.Candidate> candidates = new ArrayList<>();
+        for (PlayerState player : snapshot.players()) {
+            if (player.online()) {
+                candidates.add(new SelectionEngine.Candidate(player.playerId(), player.name(), 1.0));
+            }
+        }
+        return new Result(candidates, true);
+    }
+}
@@ -0,0 +1,44 @@
+package com.powertrip.mod.power;
+
+import com.powertrip.mod.config.ModConfig;
+
+/**
+ * One step of the eligibility chain: adjusts a candidate's weight or rules them out
+ * Rules run on the eligibility workers, so they may only read the snapshot they are given
+ */
+@FunctionalInterface
+public interface EligibilityRule {
+    long TICKS_PER_DAY = 24000;
+    
+    /**
+     * Weighs one candidate
+     * @param player The candidate, as captured on the server thread
+     * @param worldTime Overworld game time when the snapshot was taken
+     * @param weight The weight so far
+     * @return The new weight; 0 takes the candidate out of the draw (e.g. an opt-out)
+     */
+    double weigh(EligibilityPipeline.PlayerState player, long worldTime, double weight);
+    
+    /**
+     * Leaves out players who are away from the keyboard
+     */
+    EligibilityRule ACTIVE = (player, worldTime, weight) -> player.idle() ? 0 : weight;
+    
+    /**
+     * Leaves out players short of {@link ModConfig#MIN_CYCLE_PLAYTIME_MINUTES} this cycle
+     */
+    EligibilityRule MIN_PLAYTIME = (player, worldTime, weight) ->
+            player.cycleTicks() < ModConfig.MIN_CYCLE_PLAYTIME_MINUTES * 1200L ? 0 : weight;
+    
+    /**
+     * Players who never reigned weigh twice as much as the last ruler, and everyone
+     * else climbs from 1 to 2 over {@link ModConfig#RECENCY_WEIGHT_DAYS}
+     */
+    EligibilityRule RECENCY = (player, worldTime, weight) -> {
+        if (player.lastReignEnd() < 0) {
+            return weight * 2.0;
+        }
+        double days = Math.max(0, worldTime - player.lastReignEnd()) / (double) TICKS_PER_DAY;
+        return weight * (1.0 + Math.min(days, ModConfig.RECENCY_WEIGHT_DAYS) / ModConfig.RECENCY_WEIGHT_DAYS);
+    };
+}
@@ -0,0 +1,79 @@
+package com.powertrip.mod.power;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The players whose operator status PowerTrip handed out
+ *
+ * Revoking power only takes back these grants, whether or not the player is online, so
+ * server admins never lose operator status to a cycle ending. A player who already was an
+ * operator when they won is never added. Once an admin changes a player's operator status
+ * by hand the player is dropped, since the status is no longer PowerTrip's to take back.
+ * Server thread only.
+ */
+public class GrantedOperators {
+    private final Set<UUID> players = new LinkedHashSet<>();
+    
+    /**
+     * Records a grant
+     * @param playerId The player's UUID
+     * @return true if the player was not recorded yet
+     */
+    public boolean add(UUID playerId) {
+        return players.add(playerId);
+    }
+    
+    /**
+     * Forgets a grant
+     * @param playerId The player's UUID
+     * @return true if the player was recorded
+     */
+    public boolean remove(UUID playerId) {
+        return players.remove(playerId);
+    }
+    
+    /**
+     * Checks whether a player's operator status came from PowerTrip
+     * @param playerId The player's UUID
+     * @return true if PowerTrip granted it
+     */
+    public boolean contains(UUID playerId) {
+        return players.contains(playerId);
+    }
+    
+    /**
+     * Replaces the recorded grants, e.g. with those restored from disk
+     * @param playerIds The granted players
+     */
+    public void setAll(Collection<UUID> playerIds) {
+        players.clear();
+        players.addAll(playerIds);
+    }
+    
+    /**
+     * Forgets every grant
+     */
+    public void clear() {
+        players.clear();
+    }
+    
+    /**
+     * Gets the granted players
+     * @return An unmodifiable view, in grant order
+     */
+    public Set<UUID> view() {
+        return Collections.unmodifiableSet(players);
+    }
+    
+    /**
+     * Gets the number of granted players
+     * @return The grant count
+     */
+    public int size() {
+        return players.size();
+    }
+}
@@ -0,0 +1,169 @@
+package com.powertrip.mod.power;
+
+import com.mojang.authlib.GameProfile;
+import com.powertrip.mod.PowerTripMod;
+import com.powertrip.mod.mixin.ServerConfigListAccessor;
+import com.powertrip.mod.util.Trace;
+import com.powertrip.mod.util.TraceCategory;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.OperatorEntry;
+import net.minecraft.server.OperatorList;
+import net.minecraft.server.PlayerManager;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Applies operator grants and revokes in batches
+ *
+ * {@link PlayerManager#addToOperators} and {@link PlayerManager#removeFromOperators} rewrite
+ * ops.json and resend the command tree on every call, so de-opping a full server meant one
+ * file write and one tree per player. Changes are queued here instead, and {@link #flush}
+ * reduces them to the entries that actually differ, edits the operator list in memory,
+ * resends the command tree only to players whose level changed and saves ops.json once on
+ * a background thread. Server thread only, apart from the save itself.
+ */
+public class OperatorBatcher {
+    private record Change(GameProfile profile, boolean grant) {
+    }
+    
+    // Queued changes by player; a later change for the same player replaces an earlier one
+    private final Map<UUID, Change> pending = new LinkedHashMap<>();
+    
+    // Newest copy of the list waiting to be written; a write task is queued while this is non-null
+    private final AtomicReference<OperatorList> pendingSave = new AtomicReference<>();
+    
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "PowerTrip-Operators");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /**
+     * Queues an operator grant at the server's op permission level
+     * @param profile The player's profile
+     */
+    public void grant(GameProfile profile) {
+        pending.put(profile.getId(), new Change(profile, true));
+    }
+    
+    /**
+     * Queues an operator revoke
+     * @param playerId The player's UUID - the player need not be online
+     */
+    public void revoke(UUID playerId) {
+        // Operator entries are keyed by UUID alone, so the name is never looked at
+        pending.put(playerId, new Change(new GameProfile(playerId, ""), false));
+    }
+    
+    /**
+     * Checks whether a player is on the operator list, online or not
+     * @param server The Minecraft server
+     * @param playerId The player's UUID
+     * @return true if the player has an operator entry
+     */
+    public boolean isOperator(MinecraftServer server, UUID playerId) {
+        return server.getPlayerManager().getOpList().get(new GameProfile(playerId, "")) != null;
+    }
+    
+    /**
+     * Applies the queued changes
+     * @param server The Minecraft server
+     * @return The number of players whose operator status changed
+     */
+    public int flush(MinecraftServer server) {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        
+        PlayerManager playerManager = server.getPlayerManager();
+        OperatorList ops = playerManager.getOpList();
+        ServerConfigListAccessor accessor = (ServerConfigListAccessor) ops;
+        int opLevel = server.getOpPermissionLevel();
+        
+        List<UUID> changed = new ArrayList<>();
+        for (Change change : pending.values()) {
+            GameProfile profile = change.profile();
+            String key = accessor.powertrip$keyOf(profile);
+            OperatorEntry current = ops.get(profile);
+            
+            if (change.grant()) {
+                if (current != null && current.getPermissionLevel() == opLevel) {
+                    continue;
+                }
+                accessor.powertrip$getMap().put(key, new OperatorEntry(profile, opLevel, ops.canBypassPlayerLimit(profile)));
+            } else {
+                if (current == null) {
+                    continue;
+                }
+                accessor.powertrip$getMap().remove(key);
+            }
+            changed.add(profile.getId());
+        }
+        pending.clear();
+        
+        if (changed.isEmpty()) {
+            return 0;
+        }
+        
+        // Only players whose level moved need a new command tree
+        for (UUID playerId : changed) {
+            ServerPlayerEntity player = playerManager.getPlayer(playerId);
+            if (player != null) {
+                playerManager.sendCommandTree(player);
+            }
+        }
+        
+        requestSave(ops);
+        Trace.log(TraceCategory.POWER, "Applied {} operator changes", changed.size());
+        return changed.size();
+    }
+    
+    /**
+     * Copies the list on this thread and writes the copy in the background
+     * The copy shares the entries, which are immutable, so it costs one map copy
+     */
+    private void requestSave(OperatorList ops) {
+        OperatorList copy = new OperatorList(ops.getFile());
+        ((ServerConfigListAccessor) copy).powertrip$getMap().putAll(((ServerConfigListAccessor) ops).powertrip$getMap());
+        if (pendingSave.getAndSet(copy) == null) {
+            executor.execute(this::writePendingSave);
+        }
+    }
+    
+    /**
+     * Waits for the last queued save to finish - called at server shutdown
+     */
+    public void drain() {
+        try {
+            executor.submit(() -> { }).get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            PowerTripMod.LOGGER.warn("Timed out saving operator list");
+        }
+    }
+    
+    private void writePendingSave() {
+        OperatorList ops = pendingSave.getAndSet(null);
+        if (ops == null) {
+            return;
+        }
+        try {
+            ops.save();
+        } catch (IOException e) {
+            PowerTripMod.LOGGER.error("Failed to save operator list", e);
+        }
+    }
+}
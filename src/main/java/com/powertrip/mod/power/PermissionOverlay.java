@@ -0,0 +1,206 @@
+package com.powertrip.mod.power;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.tree.CommandNode;
+import com.powertrip.mod.PowerTripMod;
+import com.powertrip.mod.config.ModConfig;
+import com.powertrip.mod.mixin.CommandNodeAccessor;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * In-memory permission leases for the ruler
+ *
+ * Instead of adding the ruler to ops.json, PowerTrip leases them a permission level
+ * until a given world time. The server's permission lookup consults the leases through
+ * a mixin, so a lease takes effect with one command tree resend, never touches disk and
+ * lapses at its expiry time on its own, even if the cycle end runs a few ticks late.
+ * Commands on {@link ModConfig#RULER_COMMAND_DENY} (or missing from a non-empty
+ * {@link ModConfig#RULER_COMMAND_ALLOW}) are refused to lease holders on the command tree
+ * itself, see {@link #restrictCommands}. Leases are kept per player and reign, so a player
+ * ruling the main cycle and a team or dimension at once holds both, ending one reign
+ * leaves the others' leases alone, and the player's level is the highest live one.
+ */
+public class PermissionOverlay {
+    /**
+     * A permission level held until the world reaches a given time of day
+     * @param reignId The reign the lease was granted for, {@link ReignRegistry#GLOBAL_REIGN} for the main cycle
+     */
+    public record Lease(int level, long expiresAt, int reignId) {
+    }
+    
+    // Read from the permission lookup, which may run off the server thread
+    // Each player's list is replaced, never changed in place; it is almost always a single lease
+    private final Map<UUID, List<Lease>> leases = new ConcurrentHashMap<>();
+    
+    /**
+     * Leases a permission level to a player
+     * @param playerId The player's UUID
+     * @param level The permission level
+     * @param expiresAt World time of day at which the lease lapses
+     */
+    public void grant(UUID playerId, int level, long expiresAt) {
+        grant(playerId, level, expiresAt, ReignRegistry.GLOBAL_REIGN);
+    }
+    
+    /**
+     * Leases a permission level to a player on behalf of a scoped reign
+     * @param playerId The player's UUID
+     * @param level The permission level
+     * @param expiresAt World time of day at which the lease lapses
+     * @param reignId The reign granting the lease
+     */
+    public void grant(UUID playerId, int level, long expiresAt, int reignId) {
+        Lease lease = new Lease(level, expiresAt, reignId);
+        leases.compute(playerId, (id, held) -> {
+            List<Lease> updated = new ArrayList<>(held == null ? 1 : held.size() + 1);
+            if (held != null) {
+                for (Lease other : held) {
+                    if (other.reignId() != reignId) {
+                        updated.add(other);
+                    }
+                }
+            }
+            updated.add(lease);
+            return List.copyOf(updated);
+        });
+    }
+    
+    /**
+     * Ends the leases granted for one reign
+     * @param reignId The reign whose leases end
+     * @return The players who held one, so their command trees can be resent
+     */
+    public List<UUID> revokeReign(int reignId) {
+        List<UUID> holders = new ArrayList<>();
+        for (UUID playerId : leases.keySet()) {
+            leases.computeIfPresent(playerId, (id, held) -> {
+                List<Lease> kept = new ArrayList<>(held.size());
+                for (Lease lease : held) {
+                    if (lease.reignId() != reignId) {
+                        kept.add(lease);
+                    }
+                }
+                if (kept.size() == held.size()) {
+                    return held;
+                }
+                holders.add(id);
+                return kept.isEmpty() ? null : List.copyOf(kept);
+            });
+        }
+        return holders;
+    }
+    
+    /**
+     * Ends every lease
+     * @return The players who held one, so their command trees can be resent
+     */
+    public List<UUID> revokeAll() {
+        List<UUID> holders = new ArrayList<>(leases.keySet());
+        leases.clear();
+        return holders;
+    }
+    
+    /**
+     * Gets the level leased to a player
+     * @param playerId The player's UUID
+     * @param worldTime Current world time of day
+     * @return The leased level, or 0 if the player holds no live lease
+     */
+    public int levelFor(UUID playerId, long worldTime) {
+        Lease lease = leaseFor(playerId, worldTime);
+        return lease != null ? lease.level() : 0;
+    }
+    
+    /**
+     * Gets a player's highest live lease
+     * @param playerId The player's UUID
+     * @param worldTime Current world time of day
+     * @return The live lease with the highest level, the earliest reign's on a tie, or null if
+     *         the player holds none or all have lapsed
+     */
+    public Lease leaseFor(UUID playerId, long worldTime) {
+        if (leases.isEmpty()) {
+            return null;
+        }
+        List<Lease> held = leases.get(playerId);
+        if (held == null) {
+            return null;
+        }
+        Lease best = null;
+        for (Lease lease : held) {
+            if (worldTime < lease.expiresAt() && (best == null || lease.level() > best.level()
+                    || lease.level() == best.level() && lease.reignId() < best.reignId())) {
+                best = lease;
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Checks whether a player holds a live lease
+     * @param playerId The player's UUID
+     * @param worldTime Current world time of day
+     * @return true if the player's lease has not lapsed
+     */
+    public boolean hasLease(UUID playerId, long worldTime) {
+        return levelFor(playerId, worldTime) > 0;
+    }
+    
+    /**
+     * Checks a root command against the ruler's allow and deny lists
+     * @param root The root command's name
+     * @return true if a lease holder may run it
+     */
+    private static boolean isCommandAllowed(String root) {
+        String name = root.toLowerCase(Locale.ROOT);
+        if (ModConfig.RULER_COMMAND_DENY.contains(name)) {
+            return false;
+        }
+        return ModConfig.RULER_COMMAND_ALLOW.isEmpty() || ModConfig.RULER_COMMAND_ALLOW.contains(name);
+    }
+    
+    /**
+     * Makes every root command lease holders may not run unusable to them
+     * Each such node's requirement is wrapped to also fail for a player holding a live lease who
+     * is not a real operator. Brigadier checks requirements on every node it parses through, so
+     * the restriction holds behind execute's redirects too, and the nodes drop out of the ruler's
+     * client command tree.
+     * @param dispatcher The server's freshly built command dispatcher
+     */
+    public static void restrictCommands(CommandDispatcher<ServerCommandSource> dispatcher) {
+        for (CommandNode<ServerCommandSource> node : dispatcher.getRoot().getChildren()) {
+            if (isCommandAllowed(node.getName())) {
+                continue;
+            }
+            Predicate<ServerCommandSource> requirement = node.getRequirement();
+            ((CommandNodeAccessor) node).powertrip$setRequirement(
+                    (Predicate<ServerCommandSource>) source -> requirement.test(source) && !isRestricted(source));
+        }
+    }
+    
+    /**
+     * Checks whether a command source is a ruler whose power comes from a lease
+     */
+    private static boolean isRestricted(ServerCommandSource source) {
+        ServerPlayerEntity player = source.getPlayer();
+        if (player == null || PowerTripMod.POWER_MANAGER == null) {
+            return false;
+        }
+        ServerWorld overworld = source.getServer().getOverworld();
+        if (overworld == null
+                || !PowerTripMod.POWER_MANAGER.getPermissionOverlay().hasLease(player.getUuid(), overworld.getTimeOfDay())) {
+            return false;
+        }
+        return !source.getServer().getPlayerManager().isOperator(player.getGameProfile());
+    }
+}
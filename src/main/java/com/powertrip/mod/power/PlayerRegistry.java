@@ -0,0 +1,352 @@
+package com.powertrip.mod.power;
+
+import com.powertrip.mod.PowerTripMod;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Every player who has ever joined the world, with when they were last seen and how long they played
+ *
+ * Rows are fixed-width 48-byte records in a memory-mapped file: UUID, last seen and
+ * total playtime (both in real-time milliseconds) and the name, which Minecraft caps
+ * at 16 ASCII characters. The only heap cost is an open-addressing index of row
+ * numbers, so 50k players take well under a megabyte. The file is not read until
+ * the registry is first used, and then only the UUID columns are scanned to build the
+ * index. Server thread only.
+ */
+public class PlayerRegistry {
+    private static final int MAGIC = 0x50545052; // "PTPR"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int COUNT_OFFSET = 8;
+    private static final int RECORD_SIZE = 48;
+    
+    // Record field offsets
+    private static final int UUID_MOST = 0;
+    private static final int UUID_LEAST = 8;
+    private static final int LAST_SEEN = 16;
+    private static final int PLAYTIME = 24;
+    private static final int NAME = 32;
+    private static final int NAME_LENGTH = 16;
+    
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    private Path file = null;
+    private FileChannel channel = null;
+    private MappedByteBuffer map = null;
+    private int capacity = 0;
+    private int count = 0;
+    
+    // Open addressing: row + 1 per slot, 0 for empty; always at most half full
+    private int[] index = new int[0];
+    
+    // Join time of each online player, settled into their playtime when they leave
+    private final Map<UUID, Long> sessionStarts = new HashMap<>();
+    
+    /**
+     * Points the registry at a world's file without reading it
+     * @param file The registry file
+     */
+    public void setFile(Path file) {
+        close();
+        this.file = file;
+    }
+    
+    /**
+     * Records a player joining
+     * @param playerId The player's UUID
+     * @param name The player's current name
+     * @param now Current real time in milliseconds
+     */
+    public void recordJoin(UUID playerId, String name, long now) {
+        int row = findOrAdd(playerId);
+        if (row < 0) {
+            return;
+        }
+        int offset = recordOffset(row);
+        map.putLong(offset + LAST_SEEN, now);
+        writeName(offset, name);
+        sessionStarts.put(playerId, now);
+    }
+    
+    /**
+     * Records a player leaving and adds the session to their playtime
+     * @param playerId The player's UUID
+     * @param now Current real time in milliseconds
+     */
+    public void recordLeave(UUID playerId, long now) {
+        Long start = sessionStarts.remove(playerId);
+        int row = find(playerId);
+        if (row < 0) {
+            return;
+        }
+        int offset = recordOffset(row);
+        map.putLong(offset + LAST_SEEN, now);
+        if (start != null) {
+            map.putLong(offset + PLAYTIME, map.getLong(offset + PLAYTIME) + Math.max(0, now - start));
+        }
+    }
+    
+    /**
+     * Checks whether a player has ever joined
+     * @param playerId The player's UUID
+     * @return true if the player is in the registry
+     */
+    public boolean contains(UUID playerId) {
+        return find(playerId) >= 0;
+    }
+    
+    /**
+     * Gets a player's name as of their last join
+     * @param playerId The player's UUID
+     * @return The name, or null if the player never joined
+     */
+    public String getName(UUID playerId) {
+        int row = find(playerId);
+        return row < 0 ? null : readName(recordOffset(row));
+    }
+    
+    /**
+     * Gets when a player was last seen
+     * @param playerId The player's UUID
+     * @param now Current real time in milliseconds
+     * @return Real time in milliseconds - now for online players - or -1 if the player never joined
+     */
+    public long getLastSeen(UUID playerId, long now) {
+        if (sessionStarts.containsKey(playerId)) {
+            return now;
+        }
+        int row = find(playerId);
+        return row < 0 ? -1 : map.getLong(recordOffset(row) + LAST_SEEN);
+    }
+    
+    /**
+     * Gets a player's total playtime, including the current session
+     * @param playerId The player's UUID
+     * @param now Current real time in milliseconds
+     * @return Playtime in milliseconds
+     */
+    public long getPlaytime(UUID playerId, long now) {
+        int row = find(playerId);
+        if (row < 0) {
+            return 0;
+        }
+        Long start = sessionStarts.get(playerId);
+        return map.getLong(recordOffset(row) + PLAYTIME) + (start != null ? Math.max(0, now - start) : 0);
+    }
+    
+    /**
+     * Visits every player seen at or after a given time, online players included
+     * @param since Real time in milliseconds
+     * @param visitor Receives each player's UUID and name
+     */
+    public void forEachSeenSince(long since, BiConsumer<UUID, String> visitor) {
+        if (!ensureLoaded()) {
+            return;
+        }
+        for (int row = 0; row < count; row++) {
+            int offset = recordOffset(row);
+            UUID playerId = new UUID(map.getLong(offset + UUID_MOST), map.getLong(offset + UUID_LEAST));
+            if (map.getLong(offset + LAST_SEEN) >= since || sessionStarts.containsKey(playerId)) {
+                visitor.accept(playerId, readName(offset));
+            }
+        }
+    }
+    
+    /**
+     * Gets the number of known players
+     * @return The player count
+     */
+    public int size() {
+        return ensureLoaded() ? count : 0;
+    }
+    
+    private int find(UUID playerId) {
+        if (!ensureLoaded()) {
+            return -1;
+        }
+        int mask = index.length - 1;
+        for (int slot = hash(playerId) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+            int row = index[slot] - 1;
+            int offset = recordOffset(row);
+            if (map.getLong(offset + UUID_MOST) == playerId.getMostSignificantBits()
+                    && map.getLong(offset + UUID_LEAST) == playerId.getLeastSignificantBits()) {
+                return row;
+            }
+        }
+        return -1;
+    }
+    
+    private int findOrAdd(UUID playerId) {
+        int row = find(playerId);
+        if (row >= 0 || !isOpen()) {
+            return row;
+        }
+        if (count == capacity && !grow()) {
+            return -1;
+        }
+        
+        row = count;
+        int offset = recordOffset(row);
+        map.putLong(offset + UUID_MOST, playerId.getMostSignificantBits());
+        map.putLong(offset + UUID_LEAST, playerId.getLeastSignificantBits());
+        map.putLong(offset + LAST_SEEN, 0);
+        map.putLong(offset + PLAYTIME, 0);
+        count++;
+        map.putLong(COUNT_OFFSET, count);
+        indexRow(playerId, row);
+        return row;
+    }
+    
+    private void indexRow(UUID playerId, int row) {
+        if ((count + 1) * 2 > index.length) {
+            rebuildIndex(Math.max(INITIAL_CAPACITY, Integer.highestOneBit(count * 4)));
+            return; // The rebuild already picked up the new row
+        }
+        int mask = index.length - 1;
+        int slot = hash(playerId) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = row + 1;
+    }
+    
+    private void rebuildIndex(int size) {
+        index = new int[size];
+        int mask = size - 1;
+        for (int row = 0; row < count; row++) {
+            int offset = recordOffset(row);
+            int slot = hash(map.getLong(offset + UUID_MOST), map.getLong(offset + UUID_LEAST)) & mask;
+            while (index[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = row + 1;
+        }
+    }
+    
+    private static int hash(UUID playerId) {
+        return hash(playerId.getMostSignificantBits(), playerId.getLeastSignificantBits());
+    }
+    
+    private static int hash(long most, long least) {
+        long h = (most ^ least) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+    
+    private boolean isOpen() {
+        return map != null;
+    }
+    
+    /**
+     * Maps the file and builds the index on first use
+     * @return true if the registry is usable
+     */
+    private boolean ensureLoaded() {
+        if (map != null) {
+            return true;
+        }
+        if (file == null) {
+            return false;
+        }
+        
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long fileSize = channel.size();
+            int storedRecords = fileSize > HEADER_SIZE ? (int) ((fileSize - HEADER_SIZE) / RECORD_SIZE) : 0;
+            remap(Math.max(INITIAL_CAPACITY, storedRecords));
+            
+            if (fileSize < HEADER_SIZE || map.getInt(0) != MAGIC) {
+                map.putInt(0, MAGIC);
+                map.putInt(4, FORMAT_VERSION);
+                map.putLong(COUNT_OFFSET, 0);
+                count = 0;
+            } else {
+                count = (int) Math.min(map.getLong(COUNT_OFFSET), storedRecords);
+            }
+        } catch (IOException e) {
+            PowerTripMod.LOGGER.error("Failed to open PowerTrip player registry", e);
+            file = null; // Don't retry on every lookup
+            close();
+            return false;
+        }
+        
+        rebuildIndex(Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, count) * 4)));
+        PowerTripMod.LOGGER.info("Loaded PowerTrip player registry with " + count + " players");
+        return true;
+    }
+    
+    private boolean grow() {
+        try {
+            remap(capacity * 2);
+            return true;
+        } catch (IOException e) {
+            PowerTripMod.LOGGER.error("Failed to grow PowerTrip player registry", e);
+            return false;
+        }
+    }
+    
+    private void remap(int newCapacity) throws IOException {
+        // Mapping past the end of the file extends it
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) newCapacity * RECORD_SIZE);
+        capacity = newCapacity;
+    }
+    
+    private void writeName(int offset, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < NAME_LENGTH; i++) {
+            map.put(offset + NAME + i, i < bytes.length ? bytes[i] : 0);
+        }
+    }
+    
+    private String readName(int offset) {
+        byte[] bytes = new byte[NAME_LENGTH];
+        int length = 0;
+        while (length < NAME_LENGTH && (bytes[length] = map.get(offset + NAME + length)) != 0) {
+            length++;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+    
+    private static int recordOffset(int row) {
+        return HEADER_SIZE + row * RECORD_SIZE;
+    }
+    
+    /**
+     * Settles open sessions, flushes the mapping and closes the file
+     * @param now Current real time in milliseconds
+     */
+    public void close(long now) {
+        for (UUID playerId : sessionStarts.keySet().toArray(new UUID[0])) {
+            recordLeave(playerId, now);
+        }
+        close();
+    }
+    
+    private void close() {
+        if (map != null) {
+            map.force();
+            map = null;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                PowerTripMod.LOGGER.error("Failed to close PowerTrip player registry", e);
+            }
+            channel = null;
+        }
+        capacity = 0;
+        count = 0;
+        index = new int[0];
+        sessionStarts.clear();
+    }
+}
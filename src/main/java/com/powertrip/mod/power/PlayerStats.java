@@ -0,0 +1,226 @@
+package com.powertrip.mod.power;
+
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Per-player activity counters, keyed by UUID
+ *
+ * An open-addressing table over primitive columns: each slot holds the two halves of
+ * a UUID plus the counters, so a lookup is a hash and a short probe with no boxing and
+ * no per-player objects. The nil UUID marks an empty slot. Counters are in server
+ * ticks. "Cycle" counters restart whenever a new reign begins. Server thread only.
+ */
+public class PlayerStats {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int RECORD_BYTES = 36;
+    
+    private long[] keyMost = new long[INITIAL_CAPACITY];
+    private long[] keyLeast = new long[INITIAL_CAPACITY];
+    private int[] cycleTicks = new int[INITIAL_CAPACITY];
+    private long[] totalTicks = new long[INITIAL_CAPACITY];
+    private long[] lastSeenTick = new long[INITIAL_CAPACITY];
+    private int size = 0;
+    
+    /**
+     * Credits every online player with the time since the last pass
+     * @param players The online players
+     * @param ticks Ticks elapsed since the last pass
+     * @param worldTime Current overworld game time
+     */
+    public void tick(List<ServerPlayerEntity> players, int ticks, long worldTime) {
+        for (int i = 0, n = players.size(); i < n; i++) {
+            UUID playerId = players.get(i).getUuid();
+            int slot = slotFor(playerId.getMostSignificantBits(), playerId.getLeastSignificantBits());
+            cycleTicks[slot] += ticks;
+            totalTicks[slot] += ticks;
+            lastSeenTick[slot] = worldTime;
+        }
+    }
+    
+    /**
+     * Restarts the per-cycle counters - called when a new reign begins
+     */
+    public void startCycle() {
+        Arrays.fill(cycleTicks, 0);
+    }
+    
+    /**
+     * Gets a player's playtime since the current reign began
+     * @param playerId The player's UUID
+     * @return Ticks played this cycle
+     */
+    public int getCycleTicks(UUID playerId) {
+        int slot = find(playerId.getMostSignificantBits(), playerId.getLeastSignificantBits());
+        return slot < 0 ? 0 : cycleTicks[slot];
+    }
+    
+    /**
+     * Gets a player's playtime since tracking began
+     * @param playerId The player's UUID
+     * @return Ticks played in total
+     */
+    public long getTotalTicks(UUID playerId) {
+        int slot = find(playerId.getMostSignificantBits(), playerId.getLeastSignificantBits());
+        return slot < 0 ? 0 : totalTicks[slot];
+    }
+    
+    /**
+     * Gets the game time a player was last online
+     * @param playerId The player's UUID
+     * @return Overworld game time, or -1 if the player was never seen
+     */
+    public long getLastSeenTick(UUID playerId) {
+        int slot = find(playerId.getMostSignificantBits(), playerId.getLeastSignificantBits());
+        return slot < 0 ? -1 : lastSeenTick[slot];
+    }
+    
+    /**
+     * Gets the number of tracked players
+     * @return The player count
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Finds the players with the most playtime this cycle
+     * @param limit Maximum number of players
+     * @return Their UUIDs, most playtime first
+     */
+    public List<UUID> topByCycleTicks(int limit) {
+        Integer[] slots = new Integer[size];
+        int n = 0;
+        for (int slot = 0; slot < keyMost.length; slot++) {
+            if (isOccupied(slot)) {
+                slots[n++] = slot;
+            }
+        }
+        Arrays.sort(slots, (a, b) -> Integer.compare(cycleTicks[b], cycleTicks[a]));
+        
+        UUID[] top = new UUID[Math.min(limit, n)];
+        for (int i = 0; i < top.length; i++) {
+            top[i] = new UUID(keyMost[slots[i]], keyLeast[slots[i]]);
+        }
+        return List.of(top);
+    }
+    
+    /**
+     * Serializes every counter
+     * @return The encoded table
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + size * RECORD_BYTES);
+        buffer.putInt(size);
+        for (int slot = 0; slot < keyMost.length; slot++) {
+            if (isOccupied(slot)) {
+                buffer.putLong(keyMost[slot]).putLong(keyLeast[slot]);
+                buffer.putInt(cycleTicks[slot]).putLong(totalTicks[slot]).putLong(lastSeenTick[slot]);
+            }
+        }
+        return buffer.array();
+    }
+    
+    /**
+     * Replaces every counter with previously serialized ones
+     * @param data The encoded table, or null to start empty
+     */
+    public void load(byte[] data) {
+        int count = data == null || data.length < 4 ? 0 : ByteBuffer.wrap(data).getInt();
+        allocate(Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, count) * 4)));
+        if (count == 0) {
+            return;
+        }
+        
+        ByteBuffer buffer = ByteBuffer.wrap(data, 4, data.length - 4);
+        for (int i = 0; i < count && buffer.remaining() >= RECORD_BYTES; i++) {
+            int slot = slotFor(buffer.getLong(), buffer.getLong());
+            cycleTicks[slot] = buffer.getInt();
+            totalTicks[slot] = buffer.getLong();
+            lastSeenTick[slot] = buffer.getLong();
+        }
+    }
+    
+    private boolean isOccupied(int slot) {
+        return keyMost[slot] != 0 || keyLeast[slot] != 0;
+    }
+    
+    private int find(long most, long least) {
+        int mask = keyMost.length - 1;
+        for (int slot = hash(most, least) & mask; isOccupied(slot); slot = (slot + 1) & mask) {
+            if (keyMost[slot] == most && keyLeast[slot] == least) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Finds a player's slot, claiming an empty one if they are new
+     */
+    private int slotFor(long most, long least) {
+        int mask = keyMost.length - 1;
+        int slot = hash(most, least) & mask;
+        while (isOccupied(slot)) {
+            if (keyMost[slot] == most && keyLeast[slot] == least) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        
+        // Keep the table at most half full so probes stay short
+        if ((size + 1) * 2 > keyMost.length) {
+            grow();
+            return slotFor(most, least);
+        }
+        keyMost[slot] = most;
+        keyLeast[slot] = least;
+        lastSeenTick[slot] = -1;
+        size++;
+        return slot;
+    }
+    
+    private void grow() {
+        long[] oldMost = keyMost;
+        long[] oldLeast = keyLeast;
+        int[] oldCycle = cycleTicks;
+        long[] oldTotal = totalTicks;
+        long[] oldSeen = lastSeenTick;
+        
+        allocate(oldMost.length * 2);
+        int mask = keyMost.length - 1;
+        for (int old = 0; old < oldMost.length; old++) {
+            if (oldMost[old] == 0 && oldLeast[old] == 0) {
+                continue;
+            }
+            int slot = hash(oldMost[old], oldLeast[old]) & mask;
+            while (isOccupied(slot)) {
+                slot = (slot + 1) & mask;
+            }
+            keyMost[slot] = oldMost[old];
+            keyLeast[slot] = oldLeast[old];
+            cycleTicks[slot] = oldCycle[old];
+            totalTicks[slot] = oldTotal[old];
+            lastSeenTick[slot] = oldSeen[old];
+            size++;
+        }
+    }
+    
+    private void allocate(int capacity) {
+        keyMost = new long[capacity];
+        keyLeast = new long[capacity];
+        cycleTicks = new int[capacity];
+        totalTicks = new long[capacity];
+        lastSeenTick = new long[capacity];
+        size = 0;
+    }
+    
+    private static int hash(long most, long least) {
+        long h = (most ^ least) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -1,19 +1,26 @@
 package com.powertrip.mod.power;
 
+import com.mojang.authlib.GameProfile;
 import com.powertrip.mod.PowerTripMod;
+import com.powertrip.mod.config.ModConfig;
 import com.powertrip.mod.event.ServerTickHandler;
-import com.powertrip.mod.util.TimeTracker;
+import com.powertrip.mod.util.Countdown;
+import com.powertrip.mod.util.Trace;
+import com.powertrip.mod.util.TraceCategory;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
+import net.minecraft.util.WorldSavePath;
 import net.minecraft.util.math.BlockPos;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.UUID;
 
 /**
  * Manages the power cycle, player selection, and operator status
@@ -28,8 +35,24 @@ public class PowerManager {
     private static int CYCLE_DURATION = 7; // Default duration of 7 days
     private boolean autostartEnabled = false; // Whether to automatically start a new cycle when the current one ends
     private static final long TICKS_PER_DAY = 24000; // Minecraft day length in ticks
+    private static final String STATS_FILE = "player_stats.bin";
     private boolean justInitialized = false; // Flag to prevent immediate update after init
     private boolean isPowerGrantPending = false; // Flag to prevent multiple overlapping power grants
+    private CyclePhase phase = CyclePhase.IDLE; // Transition phase, only changed on the server thread
+    private long stateVersion = 0; // Bumped on every state change, tags cached network payloads
+    private final CycleStateStore stateStore = new CycleStateStore(); // Write-behind persistence of the fields above
+    private final ReignHistory reignHistory = new ReignHistory(); // Every past and current reign
+    private final OperatorBatcher operators = new OperatorBatcher(); // Coalesces ops.json writes and command tree resends
+    private final GrantedOperators grantedOperators = new GrantedOperators(); // Operator status PowerTrip handed out
+    private final PermissionOverlay permissionOverlay = new PermissionOverlay(); // In-memory leases used instead of ops.json
+    private final PlayerRegistry playerRegistry = new PlayerRegistry(); // Everyone who ever joined, loaded on first use
+    private final PlayerStats playerStats = new PlayerStats(); // Playtime counters, saved next to the cycle state
+    private final AfkTracker afkTracker = new AfkTracker(); // Idle scores of online players
+    private final EligibilityPipeline eligibilityPipeline = new EligibilityPipeline(); // Candidate rules, run off-thread
+    private final SelectionEngine selectionEngine = new SelectionEngine(); // Weighted winner draw
+    private final CommandBudget commandBudget = new CommandBudget(); // Caps rulers' command execution time
+    private final ReignRegistry reignRegistry = new ReignRegistry(permissionOverlay, afkTracker, stateStore); // Team and dimension reigns
+    private CycleStateStore.QueuedWinner queuedWinner = null; // Offline winner waiting for their next join
     
     /**
      * Starts a new power cycle
@@ -52,18 +75,35 @@ public class PowerManager {
     }
     
     /**
-     * Removes operator status from all players
+     * Removes the operator status PowerTrip granted, online or not
+     * Operators appointed by the server admins keep their status
      * @param server The Minecraft server instance
      */
     public void removeAllPlayerPowers(MinecraftServer server) {
         PowerTripMod.LOGGER.info("Removing operator status from all players");
-        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
-            server.getPlayerManager().removeFromOperators(player.getGameProfile());
+        for (UUID playerId : grantedOperators.view()) {
+            operators.revoke(playerId);
         }
+        grantedOperators.clear();
+        queuedWinner = null;
+        int revoked = operators.flush(server);
+        
+        // Leases end here too, and their holders need a command tree without the operator commands
+        // Rulers of team and dimension reigns keep theirs
+        for (UUID playerId : permissionOverlay.revokeReign(ReignRegistry.GLOBAL_REIGN)) {
+            ServerPlayerEntity holder = server.getPlayerManager().getPlayer(playerId);
+            if (holder != null) {
+                server.getPlayerManager().sendCommandTree(holder);
+            }
+            revoked++;
+        }
+        Trace.log(TraceCategory.POWER, "Revoked operator status from {} players", revoked);
         currentPowerPlayer = null;
         cycleEndTime = -1;
         cycleDayStart = -1; // Reset the cycle start day
         isRunning = false;  // Set isRunning to false when the cycle ends
+        stateStore.journal(CycleStateStore.REVOKE);
+        markStateChanged();
         PowerTripMod.LOGGER.info("Power cycle marked as inactive");
     }
     
@@ -84,22 +124,34 @@ public class PowerManager {
         // Set power grant in progress flag
         isPowerGrantPending = true;
         PowerTripMod.LOGGER.info("Granting operator status to " + playerName);
-        PowerTripMod.LOGGER.info("[SERVER DEBUG] About to grant operator status at time: " + System.currentTimeMillis());
+        Trace.log(TraceCategory.POWER, "About to grant operator status to {}", playerName);
+        
+        // Record the absolute world time when this cycle will end
+        long currentWorldTime = PowerTripMod.CLOCK.getTimeOfDay();
+        cycleEndTime = currentWorldTime + (CYCLE_DURATION * TICKS_PER_DAY);
         
-        // Grant operator status
-        server.getPlayerManager().addToOperators(player.getGameProfile());
-        PowerTripMod.LOGGER.info("[SERVER DEBUG] Operator status granted - recording any server packets sent...");
+        // Grant operator status - a winner who already is an operator keeps theirs when the reign ends
+        if (ModConfig.USE_PERMISSION_OVERLAY) {
+            permissionOverlay.grant(player.getUuid(), ModConfig.RULER_PERMISSION_LEVEL, cycleEndTime);
+            server.getPlayerManager().sendCommandTree(player);
+        } else if (!server.getPlayerManager().isOperator(player.getGameProfile())) {
+            operators.grant(player.getGameProfile());
+            operators.flush(server);
+            grantedOperators.add(player.getUuid());
+            stateStore.journal(CycleStateStore.OP_ADD, player.getUuid());
+        }
+        Trace.log(TraceCategory.POWER, "Operator status granted to {}", playerName);
         
         // Update the current power player
         currentPowerPlayer = playerName;
+        queuedWinner = null;
         
-        // Record the absolute world time when this cycle will end
-        long currentWorldTime = server.getOverworld().getTimeOfDay();
-        cycleEndTime = currentWorldTime + (CYCLE_DURATION * TICKS_PER_DAY);
+        // Playtime requirements count from the start of each reign
+        playerStats.startCycle();
+        saveStats();
         
         // Calculate and store the current day when cycle starts
-        TimeTracker timeTracker = new TimeTracker();
-        cycleDayStart = timeTracker.getCurrentMinecraftDay(server);
+        cycleDayStart = PowerTripMod.CLOCK.getDay();
         
         PowerTripMod.LOGGER.info("Cycle started at world time: " + currentWorldTime);
         PowerTripMod.LOGGER.info("Cycle started on day: " + cycleDayStart);
@@ -110,6 +162,8 @@ public class PowerManager {
         this.justInitialized = true;
         PowerTripMod.LOGGER.info("Initial days remaining set to: " + CYCLE_DURATION);
         isRunning = true;
+        stateStore.journal(CycleStateStore.GRANT, playerName, cycleEndTime, cycleDayStart, CYCLE_DURATION);
+        markStateChanged();
         
         // Notify the selected player
         player.sendMessage(Text.literal("You have been selected as the operator for the next " + CYCLE_DURATION + " days!")
@@ -176,28 +230,18 @@ public class PowerManager {
         if (cycleEndTime > 0) { // Only if cycle is active
             // Skip the first update after initialization
             if (justInitialized) {
-                PowerTripMod.LOGGER.info("Skipping first update due to initialization");
+                Trace.log(TraceCategory.POWER, "Skipping first update due to initialization");
                 justInitialized = false;
                 return;
             }
             
             long ticksRemaining = cycleEndTime - currentWorldTime;
-            int exactDays = (int)(ticksRemaining / TICKS_PER_DAY);
-            int remainingTicks = (int)(ticksRemaining % TICKS_PER_DAY);
-            
-            PowerTripMod.LOGGER.info("[PM DEBUG] Calculating days - ticksRemaining: " + ticksRemaining + 
-                                  ", exactDays: " + exactDays + ", remainingTicks: " + remainingTicks);
             
             // Keep rounding logic EXCEPT when it would round up to exactly 1 day
-            if (remainingTicks > 1000 && exactDays > 0) { // More than 1000 ticks remaining AND not on last day
-                PowerTripMod.LOGGER.info("[PM DEBUG] Rounding up days from " + exactDays + " to " + (exactDays + 1));
-                exactDays += 1;
-            }
+            int exactDays = Countdown.daysFromTicks(ticksRemaining, (int) TICKS_PER_DAY);
             
-            PowerTripMod.LOGGER.info("[PM DEBUG] Final days value: " + exactDays);
             this.daysRemaining = exactDays;
-            PowerTripMod.LOGGER.debug("Updated days remaining to " + exactDays + 
-                                  " (ticks remaining: " + ticksRemaining + ")");
+            Trace.log(TraceCategory.POWER, "Updated days remaining to {} (ticks remaining: {})", exactDays, ticksRemaining);
         }
     }
     
@@ -233,14 +277,16 @@ public class PowerManager {
         
         // Calculate remaining days based on the cycle start day
         int newDaysRemaining = Math.max(0, CYCLE_DURATION - (int)daysElapsed);
-        PowerTripMod.LOGGER.debug("Current day: " + currentDay + ", Cycle start day: " + cycleDayStart + 
-                            ", Days elapsed: " + daysElapsed + ", Days remaining: " + newDaysRemaining);
+        Trace.log(TraceCategory.POWER, "Current day: {}, days elapsed: {}, days remaining: {}",
+                currentDay, daysElapsed, newDaysRemaining);
         
         // Check if a day has passed (days remaining decreased)
         boolean dayChanged = newDaysRemaining < daysRemaining;
         if (dayChanged) {
             daysRemaining = newDaysRemaining;
             PowerTripMod.LOGGER.info("Days remaining updated to: " + daysRemaining);
+            saveState();
+            saveStats();
         }
         
         // Handle cycle completion
@@ -276,6 +322,19 @@ public class PowerManager {
         }
     }
     
+    /**
+     * Abandons a cycle that ends before anyone is granted power, e.g. because nobody can win
+     * Clears the running flag {@link #startCycle} set, so later starts, manual or scheduled, go ahead
+     */
+    public void abortCycle() {
+        setPhase(CyclePhase.IDLE);
+        if (isRunning) {
+            isRunning = false;
+            stateStore.journal(CycleStateStore.ABORT);
+            markStateChanged();
+        }
+    }
+    
     /**
      * Manually stops the power cycle
      * @param server The Minecraft server
@@ -284,9 +343,13 @@ public class PowerManager {
         isRunning = false;
         removeAllPlayerPowers(server);
         
+        // Any pending transition (reveal, end animation, autostart) is abandoned
+        setPhase(CyclePhase.IDLE);
+        recordReignEnd(server, ReignEndReason.STOPPED);
+        
         // Send explicit 'inactive' state update to all clients
         PowerTripMod.LOGGER.info("Sending inactive state to all clients from stopCycle");
-        PowerTripMod.NETWORK.sendTimeRemainingToAll(server, 0, 0, 0, false);
+        PowerTripMod.NETWORK.publishCycleState(server);
         
         // Power cycle stopped
     }
@@ -304,6 +367,8 @@ public class PowerManager {
         
         // Set the new cycle duration
         CYCLE_DURATION = days;
+        stateStore.journal(CycleStateStore.DURATION, days);
+        markStateChanged();
         PowerTripMod.LOGGER.info("PowerTrip cycle duration set to " + days + " days");
         return true;
     }
@@ -322,6 +387,8 @@ public class PowerManager {
      */
     public void setAutostartEnabled(boolean enabled) {
         this.autostartEnabled = enabled;
+        stateStore.journal(CycleStateStore.AUTOSTART, enabled);
+        saveState();
         PowerTripMod.LOGGER.info("PowerTrip autostart " + (enabled ? "enabled" : "disabled"));
     }
     
@@ -332,4 +399,313 @@ public class PowerManager {
     public boolean isPowerGrantPending() {
         return isPowerGrantPending;
     }
+    
+    /**
+     * Gets the current transition phase of the power cycle
+     * @return The current phase
+     */
+    public CyclePhase getPhase() {
+        return phase;
+    }
+    
+    /**
+     * Sets the current transition phase - must be called on the server thread
+     * @param phase The new phase
+     */
+    public void setPhase(CyclePhase phase) {
+        if (this.phase != phase) {
+            Trace.log(TraceCategory.POWER, "Power cycle phase {} -> {}", this.phase, phase);
+            this.phase = phase;
+            markStateChanged();
+        }
+    }
+    
+    /**
+     * Checks if the roulette selection or reveal is in progress
+     * @return true if a winner is currently being selected or revealed
+     */
+    public boolean isRouletteActive() {
+        return phase.isRoulette();
+    }
+    
+    /**
+     * Gets the state version, which changes whenever the cycle state does
+     * @return The current state version
+     */
+    public long getStateVersion() {
+        return stateVersion;
+    }
+    
+    /**
+     * Records a state change and drops network payloads encoded from the old state
+     */
+    private void markStateChanged() {
+        stateVersion++;
+        PowerTripMod.NETWORK.invalidatePayloadCaches();
+        saveState();
+    }
+    
+    /**
+     * Queues a snapshot of the current state for the background writer
+     */
+    private void saveState() {
+        stateStore.requestSnapshot(new CycleStateStore.Snapshot(currentPowerPlayer, isRunning, cycleEndTime,
+                cycleDayStart, daysRemaining, CYCLE_DURATION, autostartEnabled, List.copyOf(grantedOperators.view()),
+                queuedWinner, stateStore.getJournalSeq()));
+    }
+    
+    /**
+     * Queues the playtime counters for the background writer
+     */
+    public void saveStats() {
+        stateStore.writeFile(STATS_FILE, playerStats.toBytes());
+    }
+    
+    /**
+     * Restores the cycle state saved with the world - called at server start, before the first tick
+     * A reign that was running when the server stopped (or crashed) continues where it left off
+     * @param server The Minecraft server
+     */
+    public void loadState(MinecraftServer server) {
+        Path directory = server.getSavePath(WorldSavePath.ROOT).resolve(PowerTripMod.MOD_ID);
+        CycleStateStore.Snapshot state = stateStore.open(directory);
+        reignHistory.open(directory.resolve("reign_history.bin"));
+        playerRegistry.setFile(directory.resolve("players.bin"));
+        playerStats.load(stateStore.readFile(STATS_FILE));
+        afkTracker.clear();
+        commandBudget.clear();
+        
+        // Start from defaults so nothing carries over from another world in the same session
+        currentPowerPlayer = null;
+        isRunning = false;
+        cycleEndTime = -1;
+        cycleDayStart = -1;
+        daysRemaining = CYCLE_DURATION = 7;
+        autostartEnabled = false;
+        justInitialized = false;
+        isPowerGrantPending = false;
+        phase = CyclePhase.IDLE;
+        grantedOperators.clear();
+        permissionOverlay.revokeAll();
+        queuedWinner = null;
+        
+        if (state != null) {
+            currentPowerPlayer = state.currentPowerPlayer();
+            isRunning = state.isRunning() && state.currentPowerPlayer() != null;
+            cycleEndTime = state.cycleEndTime();
+            cycleDayStart = state.cycleDayStart();
+            daysRemaining = state.daysRemaining();
+            CYCLE_DURATION = state.cycleDuration();
+            autostartEnabled = state.autostartEnabled();
+            grantedOperators.setAll(state.grantedOperators());
+            queuedWinner = isRunning ? null : state.queuedWinner();
+            
+            // A roulette in flight is lost, but a granted reign resumes
+            if (isRunning) {
+                phase = CyclePhase.GRANTED;
+                updateDaysRemaining(PowerTripMod.CLOCK.getTimeOfDay());
+                PowerTripMod.LOGGER.info("Restored reign of " + currentPowerPlayer + ", ending at world time " + cycleEndTime);
+            }
+        }
+        
+        // A reign the history still shows as ongoing did not survive the restart
+        if (!isRunning) {
+            recordReignEnd(server, ReignEndReason.RESTART);
+        }
+        reconcileOperators(server);
+        restoreLease(server);
+        reignRegistry.load(stateStore.readFile(ReignRegistry.FILE), PowerTripMod.CLOCK.getTimeOfDay());
+        markStateChanged();
+    }
+    
+    /**
+     * Leases power back to the ruler of a restored reign, which lasts until the saved cycle end
+     * @param server The Minecraft server
+     */
+    private void restoreLease(MinecraftServer server) {
+        if (!ModConfig.USE_PERMISSION_OVERLAY || !isRunning) {
+            return;
+        }
+        
+        ReignHistory.Reign openReign = reignHistory.getOpenReign();
+        UUID rulerId = openReign != null ? openReign.playerId() : null;
+        if (rulerId == null && server.getUserCache() != null) {
+            rulerId = server.getUserCache().findByName(currentPowerPlayer).map(GameProfile::getId).orElse(null);
+        }
+        if (rulerId == null) {
+            PowerTripMod.LOGGER.warn("Could not find restored ruler " + currentPowerPlayer + ", their powers are not restored");
+            return;
+        }
+        permissionOverlay.grant(rulerId, ModConfig.RULER_PERMISSION_LEVEL, cycleEndTime);
+    }
+    
+    /**
+     * Brings the granted operator index and ops.json back in line after a restart
+     * Grants missing from ops.json were taken back while the mod was not looking and are forgotten;
+     * grants that outlived their reign (a crash before ops.json was saved) are revoked
+     * @param server The Minecraft server
+     */
+    private void reconcileOperators(MinecraftServer server) {
+        ReignHistory.Reign openReign = reignHistory.getOpenReign();
+        for (UUID playerId : List.copyOf(grantedOperators.view())) {
+            if (!operators.isOperator(server, playerId)) {
+                grantedOperators.remove(playerId);
+                stateStore.journal(CycleStateStore.OP_REMOVE, playerId);
+            } else if (!isRunning || (openReign != null && !openReign.playerId().equals(playerId))) {
+                operators.revoke(playerId);
+                grantedOperators.remove(playerId);
+                stateStore.journal(CycleStateStore.OP_REMOVE, playerId);
+            }
+        }
+        
+        int revoked = operators.flush(server);
+        if (revoked > 0) {
+            PowerTripMod.LOGGER.info("Revoked " + revoked + " leftover PowerTrip operator grants");
+        }
+    }
+    
+    /**
+     * Drops a player from the granted operator index after someone else changed their status
+     * Called from the operator list mixin for /op, /deop and other mods
+     * @param playerId The player's UUID
+     */
+    public void onOperatorChangedExternally(UUID playerId) {
+        if (grantedOperators.remove(playerId)) {
+            Trace.log(TraceCategory.POWER, "Operator status of {} changed by hand, no longer tracked", playerId);
+            stateStore.journal(CycleStateStore.OP_REMOVE, playerId);
+            saveState();
+        }
+    }
+    
+    /**
+     * Holds the reign of a winner who was offline when drawn until they next join
+     * @param playerId The winner's UUID
+     * @param name The winner's name
+     * @param candidateCount Number of players they were drawn from
+     */
+    public void queueWinner(UUID playerId, String name, int candidateCount) {
+        queuedWinner = new CycleStateStore.QueuedWinner(playerId, name, candidateCount);
+        stateStore.journal(CycleStateStore.QUEUE, playerId, name, candidateCount);
+        markStateChanged();
+    }
+    
+    /**
+     * Gets the offline winner waiting for their next join
+     * @return The queued winner, or null if there is none
+     */
+    public CycleStateStore.QueuedWinner getQueuedWinner() {
+        return queuedWinner;
+    }
+    
+    /**
+     * Gets the tracker of idle players
+     * @return The AFK tracker
+     */
+    public AfkTracker getAfkTracker() {
+        return afkTracker;
+    }
+    
+    /**
+     * Gets the per-player playtime counters
+     * @return The player stats
+     */
+    public PlayerStats getPlayerStats() {
+        return playerStats;
+    }
+    
+    /**
+     * Gets the registry of every player who has joined the world
+     * @return The player registry
+     */
+    public PlayerRegistry getPlayerRegistry() {
+        return playerRegistry;
+    }
+    
+    /**
+     * Gets the engine that draws each cycle's winner
+     * @return The selection engine
+     */
+    public SelectionEngine getSelectionEngine() {
+        return selectionEngine;
+    }
+    
+    /**
+     * Gets the pipeline that decides who may win and with what weight
+     * @return The eligibility pipeline
+     */
+    public EligibilityPipeline getEligibilityPipeline() {
+        return eligibilityPipeline;
+    }
+    
+    /**
+     * Gets the reigns scoped to a team or dimension
+     * @return The reign registry
+     */
+    public ReignRegistry getReignRegistry() {
+        return reignRegistry;
+    }
+    
+    /**
+     * Gets the rulers' command time budgets
+     * @return The command budget
+     */
+    public CommandBudget getCommandBudget() {
+        return commandBudget;
+    }
+    
+    /**
+     * Gets the ruler's permission leases
+     * @return The permission overlay
+     */
+    public PermissionOverlay getPermissionOverlay() {
+        return permissionOverlay;
+    }
+    
+    /**
+     * Gets the players whose operator status PowerTrip granted
+     * @return The granted operator index
+     */
+    public GrantedOperators getGrantedOperators() {
+        return grantedOperators;
+    }
+    
+    /**
+     * Writes any pending state and stops the background writer - called at server shutdown
+     */
+    public void closeState() {
+        operators.drain();
+        saveStats();
+        stateStore.close();
+        reignHistory.close();
+        playerRegistry.close(System.currentTimeMillis());
+    }
+    
+    /**
+     * Records the start of a reign in the history
+     * @param server The Minecraft server
+     * @param player The new ruler
+     * @param candidateCount Number of players the ruler was picked from
+     */
+    public void recordReignStart(MinecraftServer server, ServerPlayerEntity player, int candidateCount) {
+        reignHistory.openReign(player.getUuid(), PowerTripMod.CLOCK.getGameTime(), candidateCount);
+    }
+    
+    /**
+     * Records the end of the ongoing reign in the history, if there is one
+     * @param server The Minecraft server
+     * @param reason Why the reign ended
+     */
+    public void recordReignEnd(MinecraftServer server, ReignEndReason reason) {
+        if (reignHistory.closeReign(PowerTripMod.CLOCK.getGameTime(), reason)) {
+            Trace.log(TraceCategory.POWER, "Reign ended: {}", reason);
+        }
+    }
+    
+    /**
+     * Gets the history of past reigns
+     * @return The reign history
+     */
+    public ReignHistory getReignHistory() {
+        return reignHistory;
+    }
 }
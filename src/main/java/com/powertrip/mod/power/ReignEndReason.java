@@ -0,0 +1,57 @@
+package com.powertrip.mod.power;
+
+/**
+ * How a reign in the history ended
+ * The ids are stored in the history file, so they must never change
+ */
+public enum ReignEndReason {
+    // The reign is still running
+    ONGOING(0, "ongoing"),
+    
+    // The cycle ran its full length
+    NATURAL(1, "ended"),
+    
+    // Stopped early with /powertrip stop
+    STOPPED(2, "stopped"),
+    
+    // Cut short by a server restart that could not resume it
+    RESTART(3, "lost to restart");
+    
+    private final int id;
+    private final String description;
+    
+    ReignEndReason(int id, String description) {
+        this.id = id;
+        this.description = description;
+    }
+    
+    /**
+     * Gets the id written to the history file
+     * @return The id
+     */
+    public int getId() {
+        return id;
+    }
+    
+    /**
+     * Gets the description shown in /powertrip history
+     * @return The description
+     */
+    public String getDescription() {
+        return description;
+    }
+    
+    /**
+     * Looks up a reason by its stored id
+     * @param id The stored id
+     * @return The reason, or RESTART for an unknown id
+     */
+    public static ReignEndReason byId(int id) {
+        for (ReignEndReason reason : values()) {
+            if (reason.id == id) {
+                return reason;
+            }
+        }
+        return RESTART;
+    }
+}
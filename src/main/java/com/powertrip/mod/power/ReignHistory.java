@@ -0,0 +1,354 @@
+package com.powertrip.mod.power;
+
+import com.powertrip.mod.PowerTripMod;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Append-only, memory-mapped history of every reign
+ *
+ * The file is a 16-byte header followed by fixed-width 40-byte records:
+ * player UUID, start tick, end tick, end reason and candidate count. Ticks are
+ * overworld game time, which only moves forward. A reign is appended when it
+ * begins, with end tick -1, and its end fields are filled in once when it ends.
+ * The record count in the header is the commit point, so a crash mid-append leaves
+ * the previous state intact.
+ *
+ * Queries never read the whole file. Records are in start order, so a sparse index
+ * holding every {@link #TIME_INDEX_STRIDE}th start tick narrows a time lookup to
+ * one stride by binary search. Each player's record numbers are kept in a
+ * posting list, so a player lookup reads only that player's records.
+ * Server thread only.
+ */
+public class ReignHistory {
+    private static final int MAGIC = 0x50545248; // "PTRH"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int COUNT_OFFSET = 8;
+    private static final int RECORD_SIZE = 40;
+    
+    // Record field offsets
+    private static final int UUID_MOST = 0;
+    private static final int UUID_LEAST = 8;
+    private static final int START_TICK = 16;
+    private static final int END_TICK = 24;
+    private static final int END_REASON = 32;
+    private static final int CANDIDATES = 36;
+    
+    // One time index entry per this many records
+    private static final int TIME_INDEX_STRIDE = 64;
+    
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    /**
+     * A single reign
+     * @param endTick Game time the reign ended, or -1 while it is ongoing
+     */
+    public record Reign(UUID playerId, long startTick, long endTick, ReignEndReason endReason, int candidateCount) {
+    }
+    
+    private FileChannel channel = null;
+    private MappedByteBuffer map = null;
+    private int capacity = 0;
+    private int count = 0;
+    
+    // Start tick of every TIME_INDEX_STRIDE-th record
+    private long[] timeIndex = new long[0];
+    
+    // Record numbers per player, in append order
+    private final Map<UUID, int[]> postings = new HashMap<>();
+    private final Map<UUID, Integer> postingSizes = new HashMap<>();
+    
+    /**
+     * Opens (or creates) the history file and builds the in-memory indexes
+     * @param file The history file
+     */
+    public void open(Path file) {
+        close();
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long fileSize = channel.size();
+            int storedRecords = fileSize > HEADER_SIZE ? (int) ((fileSize - HEADER_SIZE) / RECORD_SIZE) : 0;
+            remap(Math.max(INITIAL_CAPACITY, storedRecords));
+            
+            if (fileSize < HEADER_SIZE || map.getInt(0) != MAGIC) {
+                map.putInt(0, MAGIC);
+                map.putInt(4, FORMAT_VERSION);
+                map.putLong(COUNT_OFFSET, 0);
+                count = 0;
+            } else {
+                count = (int) Math.min(map.getLong(COUNT_OFFSET), storedRecords);
+            }
+        } catch (IOException e) {
+            PowerTripMod.LOGGER.error("Failed to open PowerTrip reign history", e);
+            close();
+            return;
+        }
+        
+        // One sequential pass over the UUID and start columns rebuilds both indexes
+        timeIndex = new long[count / TIME_INDEX_STRIDE + 1];
+        for (int i = 0; i < count; i++) {
+            int offset = recordOffset(i);
+            if (i % TIME_INDEX_STRIDE == 0) {
+                timeIndex[i / TIME_INDEX_STRIDE] = map.getLong(offset + START_TICK);
+            }
+            addPosting(new UUID(map.getLong(offset + UUID_MOST), map.getLong(offset + UUID_LEAST)), i);
+        }
+        PowerTripMod.LOGGER.info("Loaded PowerTrip reign history with " + count + " reigns");
+    }
+    
+    /**
+     * Checks whether the history file is open
+     * @return true if reigns can be recorded and queried
+     */
+    public boolean isOpen() {
+        return map != null;
+    }
+    
+    /**
+     * Gets the number of recorded reigns
+     * @return The reign count
+     */
+    public int size() {
+        return count;
+    }
+    
+    /**
+     * Records the start of a reign
+     * @param playerId The ruler's UUID
+     * @param startTick Game time the reign started
+     * @param candidateCount Number of players the ruler was picked from
+     */
+    public void openReign(UUID playerId, long startTick, int candidateCount) {
+        if (!isOpen()) {
+            return;
+        }
+        if (getOpenReign() != null) {
+            closeReign(startTick, ReignEndReason.RESTART);
+        }
+        
+        if (count == capacity && !grow()) {
+            return;
+        }
+        
+        int offset = recordOffset(count);
+        map.putLong(offset + UUID_MOST, playerId.getMostSignificantBits());
+        map.putLong(offset + UUID_LEAST, playerId.getLeastSignificantBits());
+        map.putLong(offset + START_TICK, startTick);
+        map.putLong(offset + END_TICK, -1);
+        map.putInt(offset + END_REASON, ReignEndReason.ONGOING.getId());
+        map.putInt(offset + CANDIDATES, candidateCount);
+        
+        // Indexes first, then the header count that makes the record visible after a restart
+        if (count % TIME_INDEX_STRIDE == 0) {
+            if (timeIndex.length <= count / TIME_INDEX_STRIDE) {
+                timeIndex = Arrays.copyOf(timeIndex, timeIndex.length * 2);
+            }
+            timeIndex[count / TIME_INDEX_STRIDE] = startTick;
+        }
+        addPosting(playerId, count);
+        count++;
+        map.putLong(COUNT_OFFSET, count);
+    }
+    
+    /**
+     * Records the end of the ongoing reign, if there is one
+     * @param endTick Game time the reign ended
+     * @param reason Why it ended
+     * @return true if an ongoing reign was closed
+     */
+    public boolean closeReign(long endTick, ReignEndReason reason) {
+        if (getOpenReign() == null) {
+            return false;
+        }
+        
+        int offset = recordOffset(count - 1);
+        map.putLong(offset + END_TICK, endTick);
+        map.putInt(offset + END_REASON, reason.getId());
+        return true;
+    }
+    
+    /**
+     * Gets the ongoing reign
+     * @return The newest reign if it has not ended, otherwise null
+     */
+    public Reign getOpenReign() {
+        if (!isOpen() || count == 0) {
+            return null;
+        }
+        Reign last = get(count - 1);
+        return last.endReason() == ReignEndReason.ONGOING ? last : null;
+    }
+    
+    /**
+     * Reads a single reign
+     * @param index The record number
+     * @return The reign
+     */
+    public Reign get(int index) {
+        int offset = recordOffset(index);
+        return new Reign(
+                new UUID(map.getLong(offset + UUID_MOST), map.getLong(offset + UUID_LEAST)),
+                map.getLong(offset + START_TICK),
+                map.getLong(offset + END_TICK),
+                ReignEndReason.byId(map.getInt(offset + END_REASON)),
+                map.getInt(offset + CANDIDATES));
+    }
+    
+    /**
+     * Gets a player's most recent reigns
+     * @param playerId The player's UUID
+     * @param limit Maximum number of reigns to return
+     * @return The reigns, newest first
+     */
+    public List<Reign> byPlayer(UUID playerId, int limit) {
+        List<Reign> reigns = new ArrayList<>();
+        int[] records = postings.get(playerId);
+        if (!isOpen() || records == null) {
+            return reigns;
+        }
+        
+        for (int i = postingSizes.get(playerId) - 1; i >= 0 && reigns.size() < limit; i--) {
+            reigns.add(get(records[i]));
+        }
+        return reigns;
+    }
+    
+    /**
+     * Counts a player's reigns
+     * @param playerId The player's UUID
+     * @return The number of recorded reigns
+     */
+    public int countByPlayer(UUID playerId) {
+        return postingSizes.getOrDefault(playerId, 0);
+    }
+    
+    /**
+     * Gets the rulers of the most recent reigns
+     * @param count How many reigns to look back
+     * @return Their UUIDs
+     */
+    public Set<UUID> recentRulers(int count) {
+        Set<UUID> rulers = new HashSet<>();
+        for (int i = size() - 1; i >= 0 && i >= size() - count; i--) {
+            rulers.add(get(i).playerId());
+        }
+        return rulers;
+    }
+    
+    /**
+     * Gets the most recent reigns that started at or after a given time
+     * @param sinceTick Game time to search from
+     * @param limit Maximum number of reigns to return
+     * @return The reigns, newest first
+     */
+    public List<Reign> since(long sinceTick, int limit) {
+        List<Reign> reigns = new ArrayList<>();
+        if (!isOpen()) {
+            return reigns;
+        }
+        
+        int first = firstStartingAtOrAfter(sinceTick);
+        for (int i = count - 1; i >= first && reigns.size() < limit; i--) {
+            reigns.add(get(i));
+        }
+        return reigns;
+    }
+    
+    /**
+     * Finds the first record whose start tick is at or after the given time
+     * Binary search over the sparse index, then a scan of at most one stride
+     */
+    private int firstStartingAtOrAfter(long tick) {
+        int strides = (count + TIME_INDEX_STRIDE - 1) / TIME_INDEX_STRIDE;
+        int low = 0;
+        int high = strides - 1;
+        int stride = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (timeIndex[mid] < tick) {
+                stride = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        
+        int end = Math.min(count, (stride + 1) * TIME_INDEX_STRIDE);
+        for (int i = stride * TIME_INDEX_STRIDE; i < end; i++) {
+            if (map.getLong(recordOffset(i) + START_TICK) >= tick) {
+                return i;
+            }
+        }
+        return end;
+    }
+    
+    private void addPosting(UUID playerId, int record) {
+        int size = postingSizes.getOrDefault(playerId, 0);
+        int[] records = postings.get(playerId);
+        if (records == null) {
+            records = new int[4];
+            postings.put(playerId, records);
+        } else if (size == records.length) {
+            records = Arrays.copyOf(records, size * 2);
+            postings.put(playerId, records);
+        }
+        records[size] = record;
+        postingSizes.put(playerId, size + 1);
+    }
+    
+    private boolean grow() {
+        try {
+            remap(capacity * 2);
+            return true;
+        } catch (IOException e) {
+            PowerTripMod.LOGGER.error("Failed to grow PowerTrip reign history", e);
+            return false;
+        }
+    }
+    
+    private void remap(int newCapacity) throws IOException {
+        // Mapping past the end of the file extends it
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) newCapacity * RECORD_SIZE);
+        capacity = newCapacity;
+    }
+    
+    private static int recordOffset(int index) {
+        return HEADER_SIZE + index * RECORD_SIZE;
+    }
+    
+    /**
+     * Flushes the mapping to disk and closes the file
+     */
+    public void close() {
+        if (map != null) {
+            map.force();
+            map = null;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                PowerTripMod.LOGGER.error("Failed to close PowerTrip reign history", e);
+            }
+            channel = null;
+        }
+        capacity = 0;
+        count = 0;
+        timeIndex = new long[0];
+        postings.clear();
+        postingSizes.clear();
+    }
+}
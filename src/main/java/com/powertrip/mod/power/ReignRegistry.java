@@ -0,0 +1,461 @@
+package com.powertrip.mod.power;
+
+import com.powertrip.mod.PowerTripMod;
+import com.powertrip.mod.config.ModConfig;
+import com.powertrip.mod.network.ReignAnchorPayload;
+import com.powertrip.mod.util.DeadlineQueue;
+import com.powertrip.mod.util.Trace;
+import com.powertrip.mod.util.TraceCategory;
+import com.powertrip.mod.util.WorldClock;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Rotating rulers scoped to a scoreboard team or a dimension, alongside the global reign
+ *
+ * Reigns are stored struct-of-arrays - one array per field, indexed by slot - and a
+ * reign's id is its slot + 1, since 0 is the global reign PowerManager runs. Every
+ * reign has exactly one deadline in a {@link DeadlineQueue} keyed on world time of
+ * day: its end while it has a ruler, or its next attempt to draw one while vacant. A
+ * tick therefore costs a single comparison however many reigns exist, and only the
+ * reigns whose deadline came up do any work. Rulers hold a {@link PermissionOverlay}
+ * lease tagged with their reign id; scoped reigns never touch ops.json. Each draw is
+ * uniform over the scope's online members, leaving out idle players, anyone already
+ * holding a lease and - if anyone else is left - the previous ruler. Server thread only.
+ */
+public class ReignRegistry {
+    public static final int GLOBAL_REIGN = 0;
+    public static final String FILE = "reigns.bin";
+    
+    private static final int FORMAT_VERSION = 1;
+    private static final int INITIAL_CAPACITY = 8;
+    
+    // One entry per slot; a null scope marks a free slot
+    private ReignScope[] scopes = new ReignScope[INITIAL_CAPACITY];
+    private String[] scopeKeys = new String[INITIAL_CAPACITY];
+    private int[] durationDays = new int[INITIAL_CAPACITY];
+    private long[] rulerMost = new long[INITIAL_CAPACITY];
+    private long[] rulerLeast = new long[INITIAL_CAPACITY];
+    private String[] rulerNames = new String[INITIAL_CAPACITY];
+    private long[] endTimes = new long[INITIAL_CAPACITY];
+    
+    // Slots in use are all below this
+    private int slotLimit = 0;
+    private int size = 0;
+    
+    private final DeadlineQueue deadlines = new DeadlineQueue(INITIAL_CAPACITY);
+    private final SplittableRandom random = new SplittableRandom();
+    private final PermissionOverlay overlay;
+    private final AfkTracker afkTracker;
+    private final CycleStateStore store;
+    
+    public ReignRegistry(PermissionOverlay overlay, AfkTracker afkTracker, CycleStateStore store) {
+        this.overlay = overlay;
+        this.afkTracker = afkTracker;
+        this.store = store;
+    }
+    
+    /**
+     * Adds a reign, which draws its first ruler on the next tick
+     * @param server The Minecraft server
+     * @param scope What the reign rules over
+     * @param key The team name or dimension id
+     * @param days Length of each reign in Minecraft days
+     * @param now Current world time of day
+     * @return The new reign's id, or -1 if a reign over that scope already exists
+     */
+    public int add(MinecraftServer server, ReignScope scope, String key, int days, long now) {
+        if (find(scope, key) >= 0) {
+            return -1;
+        }
+        
+        int slot = 0;
+        while (slot < slotLimit && scopes[slot] != null) {
+            slot++;
+        }
+        if (slot == scopes.length) {
+            grow();
+        }
+        scopes[slot] = scope;
+        scopeKeys[slot] = key;
+        durationDays[slot] = days;
+        clearRuler(slot);
+        slotLimit = Math.max(slotLimit, slot + 1);
+        size++;
+        
+        deadlines.schedule(slot, now);
+        publish(server, slot, now);
+        save();
+        return slot + 1;
+    }
+    
+    /**
+     * Removes a reign, taking its ruler's powers away
+     * @param server The Minecraft server
+     * @param reignId The reign's id
+     * @return true if the reign existed
+     */
+    public boolean remove(MinecraftServer server, int reignId) {
+        int slot = reignId - 1;
+        if (!isUsed(slot)) {
+            return false;
+        }
+        
+        revoke(server, slot);
+        deadlines.cancel(slot);
+        scopes[slot] = null;
+        scopeKeys[slot] = null;
+        rulerNames[slot] = null;
+        size--;
+        while (slotLimit > 0 && scopes[slotLimit - 1] == null) {
+            slotLimit--;
+        }
+        
+        PowerTripMod.NETWORK.publishReign(server, ReignAnchorPayload.removed(reignId));
+        save();
+        return true;
+    }
+    
+    /**
+     * Advances the reigns whose deadline has come up - a single comparison when none has
+     * @param server The Minecraft server
+     * @param now Current world time of day
+     */
+    public void tick(MinecraftServer server, long now) {
+        if (!deadlines.isDue(now)) {
+            return;
+        }
+        
+        int slot;
+        while ((slot = deadlines.pollDue(now)) != -1) {
+            advance(server, slot, now);
+        }
+        save();
+    }
+    
+    /**
+     * Re-arms the reigns after /time set, sleeping or other manipulation
+     * Reign ends are absolute and stay put; vacant reigns retry straight away, and clients re-anchor their countdowns
+     * @param server The Minecraft server
+     * @param now World time of day after the jump
+     */
+    public void onTimeJumped(MinecraftServer server, long now) {
+        for (int slot = 0; slot < slotLimit; slot++) {
+            if (scopes[slot] == null) {
+                continue;
+            }
+            if (endTimes[slot] < 0) {
+                deadlines.schedule(slot, now);
+            }
+            publish(server, slot, now);
+        }
+    }
+    
+    /**
+     * Ends the current reign, if any, and draws the next ruler
+     */
+    private void advance(MinecraftServer server, int slot, long now) {
+        UUID previous = rulerId(slot);
+        if (previous != null) {
+            String ended = rulerNames[slot];
+            revoke(server, slot);
+            broadcast(server, slot, ended + "'s reign over " + describeSlot(slot) + " has ended.");
+        }
+        
+        List<ServerPlayerEntity> members = new ArrayList<>();
+        ServerPlayerEntity fallback = null;
+        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+            if (!scopes[slot].contains(player, scopeKeys[slot])
+                    || ModConfig.EXCLUDE_AFK_PLAYERS && afkTracker.isIdle(player.getUuid())
+                    || overlay.hasLease(player.getUuid(), now)) {
+                continue;
+            }
+            if (player.getUuid().equals(previous)) {
+                fallback = player;
+            } else {
+                members.add(player);
+            }
+        }
+        if (members.isEmpty() && fallback != null) {
+            members.add(fallback);
+        }
+        
+        if (members.isEmpty()) {
+            Trace.log(TraceCategory.POWER, "Reign {} over {} has nobody to draw from, retrying later", slot + 1, describeSlot(slot));
+            deadlines.schedule(slot, now + ModConfig.SCOPED_REIGN_RETRY_TICKS);
+            publish(server, slot, now);
+            return;
+        }
+        
+        ServerPlayerEntity ruler = members.get(random.nextInt(members.size()));
+        long endTime = now + durationDays[slot] * WorldClock.TICKS_PER_DAY;
+        rulerMost[slot] = ruler.getUuid().getMostSignificantBits();
+        rulerLeast[slot] = ruler.getUuid().getLeastSignificantBits();
+        rulerNames[slot] = ruler.getName().getString();
+        endTimes[slot] = endTime;
+        overlay.grant(ruler.getUuid(), ModConfig.RULER_PERMISSION_LEVEL, endTime, slot + 1);
+        server.getPlayerManager().sendCommandTree(ruler);
+        deadlines.schedule(slot, endTime);
+        
+        PowerTripMod.LOGGER.info("Reign " + (slot + 1) + ": " + rulerNames[slot] + " now rules " + describeSlot(slot)
+                + " until world time " + endTime);
+        broadcast(server, slot, rulerNames[slot] + " now rules " + describeSlot(slot) + " for "
+                + durationDays[slot] + " day" + (durationDays[slot] > 1 ? "s" : "") + ".");
+        publish(server, slot, now);
+    }
+    
+    /**
+     * Takes the ruler's lease away and resends their command tree
+     */
+    private void revoke(MinecraftServer server, int slot) {
+        for (UUID playerId : overlay.revokeReign(slot + 1)) {
+            ServerPlayerEntity holder = server.getPlayerManager().getPlayer(playerId);
+            if (holder != null) {
+                server.getPlayerManager().sendCommandTree(holder);
+            }
+        }
+        clearRuler(slot);
+    }
+    
+    private void clearRuler(int slot) {
+        rulerMost[slot] = 0;
+        rulerLeast[slot] = 0;
+        rulerNames[slot] = "";
+        endTimes[slot] = -1;
+    }
+    
+    /**
+     * Tells the members of a reign's scope, and its ruler, about a change
+     */
+    private void broadcast(MinecraftServer server, int slot, String message) {
+        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+            if (scopes[slot].contains(player, scopeKeys[slot])) {
+                player.sendMessage(Text.literal("PowerTrip: " + message).formatted(Formatting.GOLD), false);
+            }
+        }
+    }
+    
+    private void publish(MinecraftServer server, int slot, long now) {
+        PowerTripMod.NETWORK.publishReign(server, anchor(slot, now));
+    }
+    
+    private ReignAnchorPayload anchor(int slot, long now) {
+        return new ReignAnchorPayload(slot + 1, false, scopes[slot].getId(), scopeKeys[slot], rulerNames[slot],
+                endTimes[slot], now);
+    }
+    
+    /**
+     * Builds the countdown anchor of every reign - sent to clients when they subscribe
+     * @param now Current world time of day
+     * @return One anchor per reign
+     */
+    public List<ReignAnchorPayload> anchors(long now) {
+        List<ReignAnchorPayload> anchors = new ArrayList<>(size);
+        for (int slot = 0; slot < slotLimit; slot++) {
+            if (scopes[slot] != null) {
+                anchors.add(anchor(slot, now));
+            }
+        }
+        return anchors;
+    }
+    
+    /**
+     * Gets the ids of every reign
+     * @return The reign ids, in ascending order
+     */
+    public int[] reignIds() {
+        int[] ids = new int[size];
+        int n = 0;
+        for (int slot = 0; slot < slotLimit; slot++) {
+            if (scopes[slot] != null) {
+                ids[n++] = slot + 1;
+            }
+        }
+        return ids;
+    }
+    
+    /**
+     * Describes a reign's scope, e.g. "team red"
+     * @param reignId The reign's id
+     * @return The description, or null if the reign does not exist
+     */
+    public String describe(int reignId) {
+        int slot = reignId - 1;
+        return isUsed(slot) ? describeSlot(slot) : null;
+    }
+    
+    /**
+     * Gets a reign's ruler
+     * @param reignId The reign's id
+     * @return The ruler's name, or empty while the reign is vacant
+     */
+    public String getRulerName(int reignId) {
+        return isUsed(reignId - 1) ? rulerNames[reignId - 1] : "";
+    }
+    
+    /**
+     * Gets when a reign's current ruler steps down
+     * @param reignId The reign's id
+     * @return World time of day, or -1 while the reign is vacant
+     */
+    public long getEndTime(int reignId) {
+        return isUsed(reignId - 1) ? endTimes[reignId - 1] : -1;
+    }
+    
+    /**
+     * Gets the length of a reign
+     * @param reignId The reign's id
+     * @return The length in Minecraft days
+     */
+    public int getDurationDays(int reignId) {
+        return isUsed(reignId - 1) ? durationDays[reignId - 1] : 0;
+    }
+    
+    /**
+     * Gets the number of scoped reigns
+     * @return The reign count
+     */
+    public int size() {
+        return size;
+    }
+    
+    private String describeSlot(int slot) {
+        return scopes[slot].getDescription() + " " + scopeKeys[slot];
+    }
+    
+    private boolean isUsed(int slot) {
+        return slot >= 0 && slot < slotLimit && scopes[slot] != null;
+    }
+    
+    private int find(ReignScope scope, String key) {
+        for (int slot = 0; slot < slotLimit; slot++) {
+            if (scopes[slot] == scope && scopeKeys[slot].equals(key)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+    
+    private UUID rulerId(int slot) {
+        return rulerMost[slot] == 0 && rulerLeast[slot] == 0 ? null : new UUID(rulerMost[slot], rulerLeast[slot]);
+    }
+    
+    private void grow() {
+        int capacity = scopes.length * 2;
+        scopes = Arrays.copyOf(scopes, capacity);
+        scopeKeys = Arrays.copyOf(scopeKeys, capacity);
+        durationDays = Arrays.copyOf(durationDays, capacity);
+        rulerMost = Arrays.copyOf(rulerMost, capacity);
+        rulerLeast = Arrays.copyOf(rulerLeast, capacity);
+        rulerNames = Arrays.copyOf(rulerNames, capacity);
+        endTimes = Arrays.copyOf(endTimes, capacity);
+    }
+    
+    /**
+     * Queues every reign for the background writer
+     */
+    private void save() {
+        store.writeFile(FILE, toBytes());
+    }
+    
+    private byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(size);
+            for (int slot = 0; slot < slotLimit; slot++) {
+                if (scopes[slot] == null) {
+                    continue;
+                }
+                out.writeInt(slot + 1);
+                out.writeByte(scopes[slot].getId());
+                out.writeUTF(scopeKeys[slot]);
+                out.writeInt(durationDays[slot]);
+                out.writeLong(rulerMost[slot]);
+                out.writeLong(rulerLeast[slot]);
+                out.writeUTF(rulerNames[slot]);
+                out.writeLong(endTimes[slot]);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Cannot happen with an in-memory stream
+        }
+        return bytes.toByteArray();
+    }
+    
+    /**
+     * Replaces every reign with previously saved ones and leases power back to their rulers
+     * A reign whose end passed while the server was down draws a new ruler on the first tick
+     * @param data The saved reigns, or null to start empty
+     * @param now Current world time of day
+     */
+    public void load(byte[] data, long now) {
+        Arrays.fill(scopes, null);
+        deadlines.clear();
+        slotLimit = 0;
+        size = 0;
+        if (data == null) {
+            return;
+        }
+        
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                PowerTripMod.LOGGER.warn("Unknown PowerTrip reign file format, starting without scoped reigns");
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int slot = in.readInt() - 1;
+                ReignScope scope = ReignScope.byId(in.readByte());
+                String key = in.readUTF();
+                int days = in.readInt();
+                long most = in.readLong();
+                long least = in.readLong();
+                String rulerName = in.readUTF();
+                long endTime = in.readLong();
+                if (scope == null || slot < 0) {
+                    continue;
+                }
+                
+                while (slot >= scopes.length) {
+                    grow();
+                }
+                scopes[slot] = scope;
+                scopeKeys[slot] = key;
+                durationDays[slot] = days;
+                rulerMost[slot] = most;
+                rulerLeast[slot] = least;
+                rulerNames[slot] = rulerName;
+                endTimes[slot] = endTime;
+                slotLimit = Math.max(slotLimit, slot + 1);
+                size++;
+                
+                UUID rulerId = rulerId(slot);
+                if (rulerId != null && endTime > now) {
+                    overlay.grant(rulerId, ModConfig.RULER_PERMISSION_LEVEL, endTime, slot + 1);
+                    deadlines.schedule(slot, endTime);
+                } else {
+                    clearRuler(slot);
+                    deadlines.schedule(slot, now);
+                }
+            }
+        } catch (IOException e) {
+            PowerTripMod.LOGGER.error("Failed to read PowerTrip reign file", e);
+        }
+        if (size > 0) {
+            PowerTripMod.LOGGER.info("Restored " + size + " scoped PowerTrip reigns");
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.powertrip.mod.power;
+
+import net.minecraft.scoreboard.Team;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+/**
+ * What a scoped reign rules over
+ * The scope key is the team name or the dimension id, e.g. "minecraft:the_nether".
+ * The ids are stored in the reign file and sent to clients, so they must never change.
+ */
+public enum ReignScope {
+    // Members of a scoreboard team
+    TEAM(0, "team"),
+    
+    // Players currently in a dimension
+    DIMENSION(1, "dimension");
+    
+    private final int id;
+    private final String description;
+    
+    ReignScope(int id, String description) {
+        this.id = id;
+        this.description = description;
+    }
+    
+    /**
+     * Gets the id written to the reign file
+     * @return The id
+     */
+    public int getId() {
+        return id;
+    }
+    
+    /**
+     * Gets the description shown in /powertrip reign list
+     * @return The description
+     */
+    public String getDescription() {
+        return description;
+    }
+    
+    /**
+     * Checks whether a player falls under this scope
+     * @param player The player
+     * @param key The team name or dimension id
+     * @return true if the player is on the team or in the dimension
+     */
+    public boolean contains(ServerPlayerEntity player, String key) {
+        Team team = player.getScoreboardTeam();
+        return matches(team != null ? team.getName() : null,
+                player.getServerWorld().getRegistryKey().getValue().toString(), key);
+    }
+    
+    /**
+     * Checks whether a player's team or dimension falls under this scope - usable on either side
+     * @param teamName The player's team name, or null without a team
+     * @param dimensionId The id of the player's dimension
+     * @param key The team name or dimension id
+     * @return true if the player is on the team or in the dimension
+     */
+    public boolean matches(String teamName, String dimensionId, String key) {
+        return switch (this) {
+            case TEAM -> key.equals(teamName);
+            case DIMENSION -> key.equals(dimensionId);
+        };
+    }
+    
+    /**
+     * Looks up a scope by its stored id
+     * @param id The stored id
+     * @return The scope, or null for an unknown id
+     */
+    public static ReignScope byId(int id) {
+        for (ReignScope scope : values()) {
+            if (scope.id == id) {
+                return scope;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,61 @@
+package com.powertrip.mod.power;
+
+import com.powertrip.mod.util.AliasTable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Picks the winner of each power cycle
+ *
+ * Candidates arrive already weighed by the {@link EligibilityPipeline}. Weights change
+ * every cycle (recency alone sees to that), so nothing is kept between draws: each draw
+ * sorts the candidates by UUID and builds a fresh alias table, O(n log n) for a draw
+ * that happens once per cycle. Because the order depends only on the candidates and
+ * not on who joined or left when, the winner follows from the candidate list and the
+ * cycle's seed alone, so every draw can be replayed from the log.
+ */
+public class SelectionEngine {
+    /**
+     * The outcome of a draw
+     * @param candidateCount Number of players in the draw
+     */
+    public record Selection(UUID playerId, String name, int candidateCount) {
+    }
+    
+    /**
+     * A player who may win, online or not
+     * @param weight Relative chance of winning, more than 0
+     */
+    public record Candidate(UUID playerId, String name, double weight) {
+    }
+    
+    /**
+     * Draws a winner from the given candidates
+     * @param players The players who may win, with their weights
+     * @param random The cycle's random source
+     * @return The winner, or null if nobody can win
+     */
+    public Selection select(List<Candidate> players, SplittableRandom random) {
+        List<Candidate> ordered = new ArrayList<>(players.size());
+        for (Candidate player : players) {
+            if (player.weight() > 0) {
+                ordered.add(player);
+            }
+        }
+        if (ordered.isEmpty()) {
+            return null;
+        }
+        ordered.sort(Comparator.comparing(Candidate::playerId));
+        
+        double[] weights = new double[ordered.size()];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = ordered.get(i).weight();
+        }
+        Candidate winner = ordered.get(new AliasTable(weights, weights.length).sample(random));
+        return new Selection(winner.playerId(), winner.name(), ordered.size());
+    }
+}
@@ -0,0 +1,90 @@
+package com.powertrip.mod.util;
+
+import java.util.SplittableRandom;
+
+/**
+ * Walker/Vose alias table for constant-time weighted sampling
+ *
+ * Building takes one pass over the weights; every sample afterwards costs one
+ * uniform index and one coin flip, however many entries there are. Entries with
+ * zero weight are never picked.
+ */
+public final class AliasTable {
+    private final int size;
+    private final double[] probability;
+    private final int[] alias;
+    
+    /**
+     * Builds the table
+     * @param weights Non-negative weights, at least one of them positive
+     * @param size Number of weights to use from the start of the array
+     */
+    public AliasTable(double[] weights, int size) {
+        this.size = size;
+        this.probability = new double[size];
+        this.alias = new int[size];
+        
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += weights[i];
+        }
+        
+        // Scale so the average weight is 1, then pair each light entry with a heavy one
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = weights[i] * size / total;
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        
+        while (smallCount > 0 && largeCount > 0) {
+            int light = small[--smallCount];
+            int heavy = large[--largeCount];
+            probability[light] = scaled[light];
+            alias[light] = heavy;
+            scaled[heavy] = scaled[heavy] + scaled[light] - 1.0;
+            if (scaled[heavy] < 1.0) {
+                small[smallCount++] = heavy;
+            } else {
+                large[largeCount++] = heavy;
+            }
+        }
+        
+        // Whatever is left is 1 up to rounding error
+        while (largeCount > 0) {
+            int i = large[--largeCount];
+            probability[i] = 1.0;
+            alias[i] = i;
+        }
+        while (smallCount > 0) {
+            int i = small[--smallCount];
+            probability[i] = 1.0;
+            alias[i] = i;
+        }
+    }
+    
+    /**
+     * Picks an entry with probability proportional to its weight
+     * @param random The random source
+     * @return The index of the picked entry
+     */
+    public int sample(SplittableRandom random) {
+        int column = random.nextInt(size);
+        return random.nextDouble() < probability[column] ? column : alias[column];
+    }
+    
+    /**
+     * Gets the number of entries
+     * @return The entry count
+     */
+    public int size() {
+        return size;
+    }
+}
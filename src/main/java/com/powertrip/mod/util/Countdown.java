@@ -0,0 +1,73 @@
+package com.powertrip.mod.util;
+
+/**
+ * Days/hours/minutes breakdown of the time left in a power cycle
+ * Shared by the server (status replies, reminders) and the client HUD so both round identically
+ */
+public record Countdown(int days, int hours, int minutes) {
+    public static final int DEFAULT_TICKS_PER_DAY = 24000;
+    public static final Countdown NONE = new Countdown(0, 0, 0);
+    
+    /**
+     * Computes the countdown for a standard 24000-tick day
+     * @param ticksRemaining World ticks until the cycle ends
+     * @return The countdown
+     */
+    public static Countdown fromTicks(long ticksRemaining) {
+        return fromTicks(ticksRemaining, DEFAULT_TICKS_PER_DAY);
+    }
+    
+    /**
+     * Computes the countdown
+     * @param ticksRemaining World ticks until the cycle ends
+     * @param ticksPerDay Length of a Minecraft day in world ticks
+     * @return The countdown, or NONE if time has run out
+     */
+    public static Countdown fromTicks(long ticksRemaining, int ticksPerDay) {
+        if (ticksRemaining <= 0) {
+            return NONE;
+        }
+        
+        int daysRemaining = daysFromTicks(ticksRemaining, ticksPerDay);
+        long ticksPerHour = ticksPerDay / 24;
+        
+        // Calculate hours remaining if less than 1 day
+        int hoursRemaining = 0;
+        int minutesRemaining = 0;
+        if (daysRemaining < 1) {
+            if (ticksRemaining < ticksPerHour) {
+                // Less than 1 hour remains - show minutes instead
+                minutesRemaining = (int) Math.max(0, ceilDiv(ticksRemaining * 60, ticksPerHour));
+            } else {
+                // Otherwise, round up to the next hour
+                hoursRemaining = (int) ceilDiv(ticksRemaining, ticksPerHour);
+            }
+        } else if (daysRemaining == 1) {
+            // If exactly 1 day left, show 24 hours instead of 0
+            hoursRemaining = 24;
+        }
+        
+        return new Countdown(daysRemaining, hoursRemaining, minutesRemaining);
+    }
+    
+    /**
+     * Computes the whole days remaining, rounding up except when that would show the last day as a full one
+     * @param ticksRemaining World ticks until the cycle ends
+     * @param ticksPerDay Length of a Minecraft day in world ticks
+     * @return The days remaining
+     */
+    public static int daysFromTicks(long ticksRemaining, int ticksPerDay) {
+        int exactDays = (int) (ticksRemaining / ticksPerDay);
+        long remainingTicks = ticksRemaining % ticksPerDay;
+        
+        // Round up when more than an hour is left over, but never on the last day
+        if (remainingTicks > ticksPerDay / 24 && exactDays > 0) {
+            exactDays += 1;
+        }
+        return exactDays;
+    }
+    
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+}
@@ -0,0 +1,211 @@
+package com.powertrip.mod.util;
+
+import java.util.Arrays;
+
+/**
+ * Indexed min-heap of deadlines keyed on a monotonic clock (world time or server ticks)
+ *
+ * Each deadline is registered under a small integer id, so rescheduling or cancelling
+ * it is O(log n) and checking whether anything is due on a given tick is O(1).
+ * A tick with nothing due therefore only costs a single comparison.
+ */
+public class DeadlineQueue {
+    private static final int NOT_QUEUED = -1;
+    
+    // Deadline for each id (only meaningful while the id is queued)
+    private long[] deadlines;
+    // Heap of ids ordered by their deadline
+    private int[] heap;
+    // Position of each id inside the heap, or NOT_QUEUED
+    private int[] positions;
+    private int size = 0;
+    
+    public DeadlineQueue() {
+        this(8);
+    }
+    
+    public DeadlineQueue(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        this.deadlines = new long[capacity];
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        Arrays.fill(positions, NOT_QUEUED);
+    }
+    
+    /**
+     * Registers or moves a deadline
+     * @param id The deadline id (must be non-negative)
+     * @param deadline The clock value at which the deadline becomes due
+     */
+    public void schedule(int id, long deadline) {
+        ensureCapacity(id + 1);
+        
+        int position = positions[id];
+        if (position == NOT_QUEUED) {
+            // New entry - append and sift up
+            deadlines[id] = deadline;
+            heap[size] = id;
+            positions[id] = size;
+            siftUp(size++);
+            return;
+        }
+        
+        // Existing entry - move it in whichever direction the new deadline requires
+        long previous = deadlines[id];
+        deadlines[id] = deadline;
+        if (deadline < previous) {
+            siftUp(position);
+        } else if (deadline > previous) {
+            siftDown(position);
+        }
+    }
+    
+    /**
+     * Removes a deadline if it is queued
+     * @param id The deadline id
+     * @return true if the deadline was queued
+     */
+    public boolean cancel(int id) {
+        if (!isScheduled(id)) {
+            return false;
+        }
+        removeAt(positions[id]);
+        return true;
+    }
+    
+    /**
+     * Checks whether a deadline is currently queued
+     * @param id The deadline id
+     * @return true if queued
+     */
+    public boolean isScheduled(int id) {
+        return id >= 0 && id < positions.length && positions[id] != NOT_QUEUED;
+    }
+    
+    /**
+     * Gets the deadline registered for an id
+     * @param id The deadline id
+     * @return The deadline, or Long.MAX_VALUE if the id is not queued
+     */
+    public long getDeadline(int id) {
+        return isScheduled(id) ? deadlines[id] : Long.MAX_VALUE;
+    }
+    
+    /**
+     * Gets the earliest queued deadline
+     * @return The earliest deadline, or Long.MAX_VALUE if nothing is queued
+     */
+    public long peekDeadline() {
+        return size == 0 ? Long.MAX_VALUE : deadlines[heap[0]];
+    }
+    
+    /**
+     * Checks whether at least one deadline is due - O(1)
+     * @param now The current clock value
+     * @return true if the earliest deadline is at or before now
+     */
+    public boolean isDue(long now) {
+        return size > 0 && deadlines[heap[0]] <= now;
+    }
+    
+    /**
+     * Removes and returns the earliest due deadline
+     * @param now The current clock value
+     * @return The id of the due deadline, or -1 if nothing is due
+     */
+    public int pollDue(long now) {
+        if (!isDue(now)) {
+            return -1;
+        }
+        int id = heap[0];
+        removeAt(0);
+        return id;
+    }
+    
+    /**
+     * Gets the number of queued deadlines
+     * @return The queue size
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Removes every queued deadline
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = NOT_QUEUED;
+        }
+        size = 0;
+    }
+    
+    private void removeAt(int position) {
+        int id = heap[position];
+        positions[id] = NOT_QUEUED;
+        size--;
+        if (position == size) {
+            return;
+        }
+        
+        // Move the last entry into the hole and restore heap order
+        int last = heap[size];
+        heap[position] = last;
+        positions[last] = position;
+        siftDown(position);
+        if (heap[position] == last) {
+            siftUp(position);
+        }
+    }
+    
+    private void siftUp(int position) {
+        int id = heap[position];
+        long deadline = deadlines[id];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            int parentId = heap[parent];
+            if (deadlines[parentId] <= deadline) {
+                break;
+            }
+            heap[position] = parentId;
+            positions[parentId] = position;
+            position = parent;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+    
+    private void siftDown(int position) {
+        int id = heap[position];
+        long deadline = deadlines[id];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = (position << 1) + 1;
+            int right = child + 1;
+            if (right < size && deadlines[heap[right]] < deadlines[heap[child]]) {
+                child = right;
+            }
+            int childId = heap[child];
+            if (deadline <= deadlines[childId]) {
+                break;
+            }
+            heap[position] = childId;
+            positions[childId] = position;
+            position = child;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+    
+    private void ensureCapacity(int required) {
+        if (required <= positions.length) {
+            return;
+        }
+        int capacity = Math.max(required, positions.length * 2);
+        int oldLength = positions.length;
+        deadlines = Arrays.copyOf(deadlines, capacity);
+        heap = Arrays.copyOf(heap, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        Arrays.fill(positions, oldLength, capacity, NOT_QUEUED);
+    }
+}
@@ -0,0 +1,184 @@
+package com.powertrip.mod.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic frame sequence for the roulette animation
+ *
+ * Built from a 64-bit seed, so the server and every client derive the same name
+ * changes, click pitches and final name from nothing more than the seed and the
+ * candidate list. Names change every 5 ticks for the first 60% of the animation,
+ * every 10 ticks (advancing half the time) up to 80% and every 20 ticks (advancing
+ * a quarter of the time) after that. The starting index is chosen so the last
+ * advance lands on the winner.
+ */
+public final class RouletteTimeline {
+    private final int durationTicks;
+    private final int startIndex;
+    
+    // One entry per name change event, in tick order
+    private final int[] eventTicks;
+    private final int[] eventNameIndex;
+    private final float[] eventPitch;
+    
+    private RouletteTimeline(int durationTicks, int startIndex, int[] eventTicks, int[] eventNameIndex, float[] eventPitch) {
+        this.durationTicks = durationTicks;
+        this.startIndex = startIndex;
+        this.eventTicks = eventTicks;
+        this.eventNameIndex = eventNameIndex;
+        this.eventPitch = eventPitch;
+    }
+    
+    /**
+     * Generates the timeline
+     * @param seed The seed shared by server and clients
+     * @param nameCount Number of names in the roulette
+     * @param winnerIndex Index of the winner in the names, or -1 to land anywhere
+     * @param durationTicks Length of the animation in ticks
+     * @return The timeline
+     */
+    public static RouletteTimeline create(long seed, int nameCount, int winnerIndex, int durationTicks) {
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom advances = root.split();
+        SplittableRandom pitches = root.split();
+        
+        // Upper bound: one event every 5 ticks
+        int capacity = durationTicks / 5 + 1;
+        int[] ticks = new int[capacity];
+        int[] offsets = new int[capacity];
+        float[] pitch = new float[capacity];
+        
+        int count = 0;
+        int advanced = 0;
+        int tick = 0;
+        while (true) {
+            tick += changeDelay(tick, durationTicks);
+            if (tick >= durationTicks) {
+                break;
+            }
+            
+            int progress = (int) ((tick * 100L) / durationTicks);
+            boolean advance;
+            if (progress > 80) {
+                advance = advances.nextInt(4) < 1; // 25% chance to advance
+            } else if (progress > 60) {
+                advance = advances.nextInt(2) == 0; // 50% chance to advance
+            } else {
+                advance = true;
+            }
+            if (advance) {
+                advanced++;
+            }
+            
+            ticks[count] = tick;
+            offsets[count] = advanced;
+            pitch[count] = 0.75F + (float) pitches.nextDouble() * 0.5F;
+            count++;
+        }
+        
+        // Work backwards from the winner so the final advance stops on them
+        int startIndex = 0;
+        if (nameCount > 0) {
+            startIndex = winnerIndex >= 0 && winnerIndex < nameCount
+                    ? Math.floorMod(winnerIndex - advanced, nameCount)
+                    : root.nextInt(nameCount);
+        }
+        
+        int[] nameIndex = new int[count];
+        for (int i = 0; i < count; i++) {
+            nameIndex[i] = nameCount > 0 ? (startIndex + offsets[i]) % nameCount : 0;
+        }
+        
+        return new RouletteTimeline(durationTicks, startIndex,
+                Arrays.copyOf(ticks, count), nameIndex, Arrays.copyOf(pitch, count));
+    }
+    
+    /**
+     * Gets the names a roulette runs over, with the winner added at the end if they are
+     * not among them (e.g. an offline winner), so the animation still stops on the winner
+     * @param names The names to show
+     * @param winner The winner's name
+     * @return The names, the winner among them
+     */
+    public static List<String> withWinner(List<String> names, String winner) {
+        if (winner == null || names.contains(winner)) {
+            return names;
+        }
+        List<String> all = new ArrayList<>(names.size() + 1);
+        all.addAll(names);
+        all.add(winner);
+        return all;
+    }
+    
+    private static int changeDelay(int tick, int durationTicks) {
+        int progress = (int) ((tick * 100L) / durationTicks);
+        if (progress > 80) {
+            return 20; // Slow near the end (1 second per name)
+        } else if (progress > 60) {
+            return 10; // Medium speed in the middle (2 names per second)
+        }
+        return 5; // Fast cycling at the start (4 names per second)
+    }
+    
+    /**
+     * Gets the animation length
+     * @return The duration in ticks
+     */
+    public int getDurationTicks() {
+        return durationTicks;
+    }
+    
+    /**
+     * Gets the name index shown before the first change
+     * @return The starting index
+     */
+    public int getStartIndex() {
+        return startIndex;
+    }
+    
+    /**
+     * Gets the number of name change events
+     * @return The event count
+     */
+    public int getEventCount() {
+        return eventTicks.length;
+    }
+    
+    /**
+     * Gets the animation tick of a change event
+     * @param event The event number
+     * @return The tick
+     */
+    public int getEventTick(int event) {
+        return eventTicks[event];
+    }
+    
+    /**
+     * Gets the name index shown from a change event on
+     * @param event The event number
+     * @return The name index
+     */
+    public int getNameIndex(int event) {
+        return eventNameIndex[event];
+    }
+    
+    /**
+     * Gets the click pitch for a change event
+     * @param event The event number
+     * @return The pitch
+     */
+    public float getPitch(int event) {
+        return eventPitch[event];
+    }
+    
+    /**
+     * Gets the name index shown once the animation has run its course
+     * @return The final name index
+     */
+    public int getFinalIndex() {
+        return eventNameIndex.length > 0 ? eventNameIndex[eventNameIndex.length - 1] : startIndex;
+    }
+}
@@ -0,0 +1,48 @@
+package com.powertrip.mod.util;
+
+import com.powertrip.mod.config.ModConfig;
+import net.minecraft.server.MinecraftServer;
+
+/**
+ * Tells whether the server is lagging, from its own recent tick times
+ *
+ * Reads the server's average milliseconds per tick over its last 100 ticks. The
+ * server counts as lagging once that average goes above
+ * {@link ModConfig#LAG_MSPT_THRESHOLD}, and stops counting as lagging only when it
+ * drops below {@link ModConfig#LAG_RECOVERY_PERCENT} of the threshold, so work held
+ * back during a spike is not released and held back again on alternate checks.
+ * Only read when there is work that could be held back. Server thread only.
+ */
+public class TickLoad {
+    private boolean lagging = false;
+    private long lastMspt = 0;
+    
+    /**
+     * Checks whether the server is lagging right now
+     * @param server The Minecraft server
+     * @return true while recent ticks take too long
+     */
+    public boolean isLagging(MinecraftServer server) {
+        long nanos = server.getAverageNanosPerTick();
+        lastMspt = nanos / 1_000_000;
+        long threshold = ModConfig.LAG_MSPT_THRESHOLD * 1_000_000L;
+        lagging = nanos > (lagging ? threshold * ModConfig.LAG_RECOVERY_PERCENT / 100 : threshold);
+        return lagging;
+    }
+    
+    /**
+     * Gets the average tick time seen by the last check
+     * @return Milliseconds per tick
+     */
+    public long getLastMspt() {
+        return lastMspt;
+    }
+    
+    /**
+     * Forgets the lag state, e.g. for a newly loaded world
+     */
+    public void reset() {
+        lagging = false;
+        lastMspt = 0;
+    }
+}
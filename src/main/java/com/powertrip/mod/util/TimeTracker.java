@@ -2,23 +2,24 @@ package com.powertrip.mod.util;
 
 import com.powertrip.mod.PowerTripMod;
 import com.powertrip.mod.config.ModConfig;
-import net.minecraft.server.MinecraftServer;
-import net.minecraft.world.level.LevelProperties;
 
 /**
  * Utility class to track Minecraft time/days and determine when cycles should occur
  */
 public class TimeTracker {
-    private static final int TICKS_PER_DAY = 24000;
+    private final WorldClock clock;
     private long lastCycleDay = -1;
     
+    public TimeTracker(WorldClock clock) {
+        this.clock = clock;
+    }
+    
     /**
      * Checks if a new power cycle should be triggered
-     * @param server The Minecraft server instance
      * @return True if a new cycle should begin
      */
-    public boolean shouldTriggerCycle(MinecraftServer server) {
-        long currentDay = getCurrentMinecraftDay(server);
+    public boolean shouldTriggerCycle() {
+        long currentDay = clock.getDay();
         
         // First server start - initialize but don't trigger immediately
         if (lastCycleDay == -1) {
@@ -38,46 +39,34 @@ public class TimeTracker {
     }
     
     /**
-     * Legacy method kept for compatibility
-     * @param server The Minecraft server instance
-     * @param worldTime The current absolute world time in ticks
-     * @return True if a new cycle should begin
+     * Gets the world time at which the next scheduled cycle becomes due
+     * @return The absolute world time of the next cycle, or -1 if the tracker is not initialized
      */
-    public boolean shouldTriggerCycle(MinecraftServer server, long worldTime) {
-        return shouldTriggerCycle(server);
+    public long getNextCycleTime() {
+        if (lastCycleDay == -1) {
+            return -1;
+        }
+        return (lastCycleDay + ModConfig.DAYS_BETWEEN_CYCLES) * WorldClock.TICKS_PER_DAY;
     }
     
     /**
      * Gets the current Minecraft day
-     * @param server The Minecraft server instance
-     * @return The current day number
-     */
-    public long getCurrentMinecraftDay(MinecraftServer server) {
-        LevelProperties worldData = (LevelProperties)server.getOverworld().getLevelProperties();
-        long dayTime = worldData.getTimeOfDay();
-        return dayTime / TICKS_PER_DAY;
-    }
-    
-    /**
-     * Gets the current day (alias for getCurrentMinecraftDay)
-     * @param server The Minecraft server instance
-     * @return The current day number
+     * @return The current day number, as of this tick's clock sample
      */
-    public long getCurrentDay(MinecraftServer server) {
-        return getCurrentMinecraftDay(server);
+    public long getCurrentDay() {
+        return clock.getDay();
     }
     
     /**
      * Gets days remaining until next cycle
-     * @param server The Minecraft server instance
      * @return Days remaining until next cycle
      */
-    public int getDaysUntilNextCycle(MinecraftServer server) {
+    public int getDaysUntilNextCycle() {
         if (lastCycleDay == -1) {
             return ModConfig.DAYS_BETWEEN_CYCLES;
         }
         
-        long currentDay = getCurrentMinecraftDay(server);
+        long currentDay = clock.getDay();
         long daysElapsed = currentDay - lastCycleDay;
         
         return (int) Math.max(0, ModConfig.DAYS_BETWEEN_CYCLES - daysElapsed);
@@ -0,0 +1,331 @@
+package com.powertrip.mod.util;
+
+import com.powertrip.mod.PowerTripMod;
+import com.powertrip.mod.config.ModConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Level-gated diagnostic tracing for PowerTrip
+ *
+ * Events are recorded into a fixed-size in-memory ring buffer instead of the log.
+ * Messages use "{}" placeholders and are only formatted when the buffer is dumped,
+ * and the fixed-arity overloads take primitives, so a disabled category costs a
+ * single volatile read and no allocation. Recording into an enabled category
+ * does not allocate either.
+ */
+public final class Trace {
+    private static final int CAPACITY = ModConfig.TRACE_BUFFER_SIZE;
+    private static final int MAX_ARGS = 3;
+    
+    private static final byte KIND_NONE = 0;
+    private static final byte KIND_LONG = 1;
+    private static final byte KIND_DOUBLE = 2;
+    private static final byte KIND_OBJECT = 3;
+    
+    // Ring buffer stored column-wise so recording never allocates
+    private static final long[] times = new long[CAPACITY];
+    private static final TraceCategory[] categories = new TraceCategory[CAPACITY];
+    private static final String[] messages = new String[CAPACITY];
+    private static final byte[] kinds = new byte[CAPACITY * MAX_ARGS];
+    private static final long[] primitives = new long[CAPACITY * MAX_ARGS];
+    private static final Object[] objects = new Object[CAPACITY * MAX_ARGS];
+    
+    private static final Object LOCK = new Object();
+    private static int next = 0;
+    private static int count = 0;
+    
+    private Trace() {
+    }
+    
+    /**
+     * Records an event without arguments
+     * @param category The trace category
+     * @param message The message, with "{}" placeholders for the arguments
+     */
+    public static void log(TraceCategory category, String message) {
+        if (!category.isEnabled()) {
+            return;
+        }
+        synchronized (LOCK) {
+            claim(category, message);
+        }
+    }
+    
+    /**
+     * Records an event with one numeric argument
+     */
+    public static void log(TraceCategory category, String message, long a) {
+        if (!category.isEnabled()) {
+            return;
+        }
+        synchronized (LOCK) {
+            int slot = claim(category, message);
+            if (slot >= 0) {
+                putLong(slot, 0, a);
+            }
+        }
+    }
+    
+    /**
+     * Records an event with two numeric arguments
+     */
+    public static void log(TraceCategory category, String message, long a, long b) {
+        if (!category.isEnabled()) {
+            return;
+        }
+        synchronized (LOCK) {
+            int slot = claim(category, message);
+            if (slot >= 0) {
+                putLong(slot, 0, a);
+                putLong(slot, 1, b);
+            }
+        }
+    }
+    
+    /**
+     * Records an event with three numeric arguments
+     */
+    public static void log(TraceCategory category, String message, long a, long b, long c) {
+        if (!category.isEnabled()) {
+            return;
+        }
+        synchronized (LOCK) {
+            int slot = claim(category, message);
+            if (slot >= 0) {
+                putLong(slot, 0, a);
+                putLong(slot, 1, b);
+                putLong(slot, 2, c);
+            }
+        }
+    }
+    
+    /**
+     * Records an event with one decimal argument
+     */
+    public static void log(TraceCategory category, String message, double a) {
+        if (!category.isEnabled()) {
+            return;
+        }
+        synchronized (LOCK) {
+            int slot = claim(category, message);
+            if (slot >= 0) {
+                putDouble(slot, 0, a);
+            }
+        }
+    }
+    
+    /**
+     * Records an event with one object argument (stored by reference, formatted at dump time)
+     */
+    public static void log(TraceCategory category, String message, Object a) {
+        if (!category.isEnabled()) {
+            return;
+        }
+        synchronized (LOCK) {
+            int slot = claim(category, message);
+            if (slot >= 0) {
+                putObject(slot, 0, a);
+            }
+        }
+    }
+    
+    /**
+     * Records an event with an object and a numeric argument
+     */
+    public static void log(TraceCategory category, String message, Object a, long b) {
+        if (!category.isEnabled()) {
+            return;
+        }
+        synchronized (LOCK) {
+            int slot = claim(category, message);
+            if (slot >= 0) {
+                putObject(slot, 0, a);
+                putLong(slot, 1, b);
+            }
+        }
+    }
+    
+    /**
+     * Records an event with a numeric and an object argument
+     */
+    public static void log(TraceCategory category, String message, long a, Object b) {
+        if (!category.isEnabled()) {
+            return;
+        }
+        synchronized (LOCK) {
+            int slot = claim(category, message);
+            if (slot >= 0) {
+                putLong(slot, 0, a);
+                putObject(slot, 1, b);
+            }
+        }
+    }
+    
+    /**
+     * Records an event with two object arguments
+     */
+    public static void log(TraceCategory category, String message, Object a, Object b) {
+        if (!category.isEnabled()) {
+            return;
+        }
+        synchronized (LOCK) {
+            int slot = claim(category, message);
+            if (slot >= 0) {
+                putObject(slot, 0, a);
+                putObject(slot, 1, b);
+            }
+        }
+    }
+    
+    /**
+     * Records an event with two numeric arguments and an object argument
+     */
+    public static void log(TraceCategory category, String message, long a, long b, Object c) {
+        if (!category.isEnabled()) {
+            return;
+        }
+        synchronized (LOCK) {
+            int slot = claim(category, message);
+            if (slot >= 0) {
+                putLong(slot, 0, a);
+                putLong(slot, 1, b);
+                putObject(slot, 2, c);
+            }
+        }
+    }
+    
+    /**
+     * Records an event with a numeric and two object arguments
+     */
+    public static void log(TraceCategory category, String message, long a, Object b, Object c) {
+        if (!category.isEnabled()) {
+            return;
+        }
+        synchronized (LOCK) {
+            int slot = claim(category, message);
+            if (slot >= 0) {
+                putLong(slot, 0, a);
+                putObject(slot, 1, b);
+                putObject(slot, 2, c);
+            }
+        }
+    }
+    
+    /**
+     * Formats every buffered event, oldest first, writes them to the log and empties the buffer
+     * @return The formatted events
+     */
+    public static List<String> dump() {
+        List<String> lines;
+        synchronized (LOCK) {
+            lines = new ArrayList<>(count);
+            int start = (next - count + CAPACITY) % CAPACITY;
+            for (int i = 0; i < count; i++) {
+                lines.add(format((start + i) % CAPACITY));
+            }
+            clear();
+        }
+        
+        for (String line : lines) {
+            PowerTripMod.LOGGER.info("[TRACE] " + line);
+        }
+        return lines;
+    }
+    
+    /**
+     * Gets the number of events currently buffered
+     * @return The buffered event count
+     */
+    public static int size() {
+        synchronized (LOCK) {
+            return count;
+        }
+    }
+    
+    /**
+     * Discards every buffered event
+     */
+    public static void clear() {
+        synchronized (LOCK) {
+            Arrays.fill(messages, null);
+            Arrays.fill(categories, null);
+            Arrays.fill(objects, null);
+            next = 0;
+            count = 0;
+        }
+    }
+    
+    /**
+     * Claims the next ring buffer slot, honouring the category's sampling rate
+     * @return The slot index, or -1 if the event was sampled out
+     */
+    private static int claim(TraceCategory category, String message) {
+        if (category.seen++ % category.getSampleEvery() != 0) {
+            return -1;
+        }
+        
+        int slot = next;
+        next = (next + 1) % CAPACITY;
+        if (count < CAPACITY) {
+            count++;
+        }
+        
+        times[slot] = System.currentTimeMillis();
+        categories[slot] = category;
+        messages[slot] = message;
+        int base = slot * MAX_ARGS;
+        for (int i = 0; i < MAX_ARGS; i++) {
+            kinds[base + i] = KIND_NONE;
+            objects[base + i] = null;
+        }
+        return slot;
+    }
+    
+    private static void putLong(int slot, int arg, long value) {
+        kinds[slot * MAX_ARGS + arg] = KIND_LONG;
+        primitives[slot * MAX_ARGS + arg] = value;
+    }
+    
+    private static void putDouble(int slot, int arg, double value) {
+        kinds[slot * MAX_ARGS + arg] = KIND_DOUBLE;
+        primitives[slot * MAX_ARGS + arg] = Double.doubleToRawLongBits(value);
+    }
+    
+    private static void putObject(int slot, int arg, Object value) {
+        kinds[slot * MAX_ARGS + arg] = KIND_OBJECT;
+        objects[slot * MAX_ARGS + arg] = value;
+    }
+    
+    /**
+     * Expands "{}" placeholders of a buffered event - only called when dumping
+     */
+    private static String format(int slot) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(times[slot]).append(" [").append(categories[slot].getName()).append("] ");
+        
+        String message = messages[slot];
+        int base = slot * MAX_ARGS;
+        int arg = 0;
+        int from = 0;
+        int placeholder;
+        while ((placeholder = message.indexOf("{}", from)) >= 0) {
+            builder.append(message, from, placeholder);
+            if (arg < MAX_ARGS && kinds[base + arg] != KIND_NONE) {
+                switch (kinds[base + arg]) {
+                    case KIND_LONG -> builder.append(primitives[base + arg]);
+                    case KIND_DOUBLE -> builder.append(Double.longBitsToDouble(primitives[base + arg]));
+                    default -> builder.append(objects[base + arg]);
+                }
+            } else {
+                builder.append("{}");
+            }
+            arg++;
+            from = placeholder + 2;
+        }
+        builder.append(message, from, message.length());
+        return builder.toString();
+    }
+}
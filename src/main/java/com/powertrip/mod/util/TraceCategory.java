@@ -0,0 +1,86 @@
+package com.powertrip.mod.util;
+
+/**
+ * Named categories for PowerTrip diagnostic tracing
+ * Every category is disabled by default and can be toggled with /powertrip trace
+ */
+public enum TraceCategory {
+    // Countdown and world time calculations
+    TIME("time"),
+    
+    // PowerManager state changes and day bookkeeping
+    POWER("power"),
+    
+    // Packets sent and received
+    NETWORK("network"),
+    
+    // Client-side roulette animation
+    ANIMATION("animation");
+    
+    private final String name;
+    
+    // Written from the command thread, read on the tick path
+    private volatile boolean enabled = false;
+    private volatile int sampleEvery = 1;
+    
+    // Events seen while enabled, used for sampling (guarded by Trace's lock)
+    long seen = 0;
+    
+    TraceCategory(String name) {
+        this.name = name;
+    }
+    
+    /**
+     * Gets the name used in commands and dumps
+     * @return The category name
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Checks whether events in this category are recorded
+     * @return true if enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Enables or disables recording for this category
+     * @param enabled Whether to record events
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    /**
+     * Gets the sampling rate - only one in every N events is recorded
+     * @return The sampling rate
+     */
+    public int getSampleEvery() {
+        return sampleEvery;
+    }
+    
+    /**
+     * Sets the sampling rate
+     * @param sampleEvery Record one in every N events (1 records everything)
+     */
+    public void setSampleEvery(int sampleEvery) {
+        this.sampleEvery = Math.max(1, sampleEvery);
+    }
+    
+    /**
+     * Looks up a category by its command name
+     * @param name The category name
+     * @return The category, or null if none matches
+     */
+    public static TraceCategory byName(String name) {
+        for (TraceCategory category : values()) {
+            if (category.name.equals(name)) {
+                return category;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,183 @@
+package com.powertrip.mod.util;
+
+import net.minecraft.server.MinecraftServer;
+
+import java.util.function.LongSupplier;
+
+/**
+ * The world time, read once per tick and shared by every subsystem
+ *
+ * {@link #sample} is called at the start of each end-of-tick pass; everything that
+ * needs the time during the tick reads the cached values instead of going back to
+ * the world properties. A jump reported mid-tick by the TimeJumped event is folded in
+ * straight away through {@link #onTimeJumped}. The clock also works out the derived values callers kept
+ * recomputing - day number, ticks into the day, the change since the previous
+ * sample and whether that change was a jump rather than normal passage of time.
+ * The time comes from a pluggable {@link Source}, so a simulation can drive the
+ * clock without a world. Server thread only.
+ */
+public class WorldClock {
+    public static final long TICKS_PER_DAY = 24000;
+    
+    /**
+     * Where the clock reads the time from
+     */
+    public interface Source {
+        /**
+         * Reads the time of day, which /time set and sleeping move
+         * @param server The Minecraft server
+         * @return The absolute time of day in ticks
+         */
+        long timeOfDay(MinecraftServer server);
+        
+        /**
+         * Reads the game time, which only ever advances by one per tick
+         * @param server The Minecraft server
+         * @return The game time in ticks
+         */
+        long gameTime(MinecraftServer server);
+        
+        /**
+         * The overworld's clock - the default
+         */
+        Source OVERWORLD = new Source() {
+            @Override
+            public long timeOfDay(MinecraftServer server) {
+                return server.getOverworld().getTimeOfDay();
+            }
+            
+            @Override
+            public long gameTime(MinecraftServer server) {
+                return server.getOverworld().getTime();
+            }
+        };
+        
+        /**
+         * A clock that ignores the server, for tests and simulations
+         * @param timeOfDay Supplies the time of day
+         * @param gameTime Supplies the game time
+         * @return The source
+         */
+        static Source synthetic(LongSupplier timeOfDay, LongSupplier gameTime) {
+            return new Source() {
+                @Override
+                public long timeOfDay(MinecraftServer server) {
+                    return timeOfDay.getAsLong();
+                }
+                
+                @Override
+                public long gameTime(MinecraftServer server) {
+                    return gameTime.getAsLong();
+                }
+            };
+        }
+    }
+    
+    private Source source = Source.OVERWORLD;
+    
+    private long timeOfDay = 0;
+    private long gameTime = 0;
+    private long delta = 0;
+    private boolean jumped = false;
+    private boolean sampled = false;
+    
+    /**
+     * Replaces the time source and starts sampling afresh
+     * @param source The new source
+     */
+    public void setSource(Source source) {
+        this.source = source;
+        this.sampled = false;
+    }
+    
+    /**
+     * Reads the time for this tick
+     * A normal tick moves the time of day by exactly one, or zero with the daylight cycle
+     * frozen; anything else is /time set, sleeping or other manipulation and counts as a jump.
+     * @param server The Minecraft server
+     */
+    public void sample(MinecraftServer server) {
+        long previous = timeOfDay;
+        timeOfDay = source.timeOfDay(server);
+        gameTime = source.gameTime(server);
+        delta = sampled ? timeOfDay - previous : 0;
+        jumped = sampled && (delta < 0 || delta > 1);
+        sampled = true;
+    }
+    
+    /**
+     * Takes a jump in the time of day without waiting for the next sample
+     * @param oldTime The time of day before the jump
+     * @param newTime The time of day after the jump
+     */
+    public void onTimeJumped(long oldTime, long newTime) {
+        timeOfDay = newTime;
+        delta = newTime - oldTime;
+        jumped = true;
+    }
+    
+    /**
+     * Reads the time without reporting a jump - for a world that just loaded
+     * @param server The Minecraft server
+     */
+    public void reset(MinecraftServer server) {
+        sampled = false;
+        sample(server);
+    }
+    
+    /**
+     * Gets the time of day as of the last sample
+     * @return The absolute time of day in ticks
+     */
+    public long getTimeOfDay() {
+        return timeOfDay;
+    }
+    
+    /**
+     * Gets the game time as of the last sample
+     * @return The game time in ticks
+     */
+    public long getGameTime() {
+        return gameTime;
+    }
+    
+    /**
+     * Gets the current Minecraft day
+     * @return The day number, counted from the time of day
+     */
+    public long getDay() {
+        return timeOfDay / TICKS_PER_DAY;
+    }
+    
+    /**
+     * Gets how far into the current day the world is
+     * @return Ticks since the start of the day
+     */
+    public long getTicksIntoDay() {
+        return timeOfDay % TICKS_PER_DAY;
+    }
+    
+    /**
+     * Gets how much the time of day moved since the previous sample
+     * @return The change in ticks; negative if time was set back
+     */
+    public long getDelta() {
+        return delta;
+    }
+    
+    /**
+     * Checks whether the time of day jumped since the previous sample
+     * @return true if the change was anything but a normal tick
+     */
+    public boolean hasJumped() {
+        return jumped;
+    }
+    
+    /**
+     * Checks whether the clock has read the time since it was created or its source changed
+     * @return true once the first sample was taken
+     */
+    public boolean isSampled() {
+        return sampled;
+    }
+}
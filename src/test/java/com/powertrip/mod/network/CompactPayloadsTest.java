@@ -0,0 +1,159 @@
+package com.powertrip.mod.network;
+
+import com.powertrip.mod.util.Countdown;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round trips and size regressions for the version-2 (compact) payload codecs
+ */
+class CompactPayloadsTest {
+    private static final List<String> NAMES = List.of("Alex", "Steve", "Notch", "jeb_");
+    
+    private static <T> T roundTrip(PacketCodec<PacketByteBuf, T> codec, T value) {
+        PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+        codec.encode(buf, value);
+        T decoded = codec.decode(buf);
+        assertEquals(0, buf.readableBytes(), "decoder left bytes unread");
+        return decoded;
+    }
+    
+    private static <T> int size(PacketCodec<PacketByteBuf, T> codec, T value) {
+        PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+        codec.encode(buf, value);
+        return buf.readableBytes();
+    }
+    
+    // Roulette
+    
+    @Test
+    void rouletteRoundTripsBeginning() {
+        NetworkHandler.RoulettePayload payload = new NetworkHandler.RoulettePayload(NAMES, "Notch", true);
+        assertEquals(payload, roundTrip(CompactPayloads.Roulette.FIELD_CODEC, new CompactPayloads.Roulette(payload)).payload());
+    }
+    
+    @Test
+    void rouletteRoundTripsEnding() {
+        NetworkHandler.RoulettePayload payload = new NetworkHandler.RoulettePayload(NAMES, "Alex", false);
+        assertEquals(payload, roundTrip(CompactPayloads.Roulette.FIELD_CODEC, new CompactPayloads.Roulette(payload)).payload());
+    }
+    
+    @Test
+    void rouletteRoundTripsWinnerMissingFromList() {
+        NetworkHandler.RoulettePayload payload = new NetworkHandler.RoulettePayload(NAMES, "Herobrine", true);
+        assertEquals(payload, roundTrip(CompactPayloads.Roulette.FIELD_CODEC, new CompactPayloads.Roulette(payload)).payload());
+    }
+    
+    @Test
+    void rouletteRoundTripsEmptyList() {
+        NetworkHandler.RoulettePayload payload = new NetworkHandler.RoulettePayload(List.of(), "Alex", false);
+        assertEquals(payload, roundTrip(CompactPayloads.Roulette.FIELD_CODEC, new CompactPayloads.Roulette(payload)).payload());
+    }
+    
+    @Test
+    void rouletteIsSmallerThanLegacy() {
+        NetworkHandler.RoulettePayload payload = new NetworkHandler.RoulettePayload(NAMES, "Notch", true);
+        int legacy = size(NetworkHandler.RoulettePayload.FIELD_CODEC, payload);
+        int compact = size(CompactPayloads.Roulette.FIELD_CODEC, new CompactPayloads.Roulette(payload));
+        
+        // Flags byte and VarInt count replace the int count and boolean; the winner is a one-byte index, not a name
+        assertEquals(legacy - 3 - ("Notch".length() + 1) + 1, compact);
+    }
+    
+    // Time remaining
+    
+    @Test
+    void timeRemainingRoundTripsAllFields() {
+        TimeRemainingPayload payload = new TimeRemainingPayload(5, 7, 42, true);
+        assertEquals(payload, roundTrip(CompactPayloads.TimeRemaining.FIELD_CODEC, new CompactPayloads.TimeRemaining(payload)).payload());
+    }
+    
+    @Test
+    void timeRemainingRoundTripsZeroHours() {
+        TimeRemainingPayload payload = new TimeRemainingPayload(2, 0, 15, true);
+        assertEquals(payload, roundTrip(CompactPayloads.TimeRemaining.FIELD_CODEC, new CompactPayloads.TimeRemaining(payload)).payload());
+    }
+    
+    @Test
+    void timeRemainingRoundTripsZeroMinutes() {
+        TimeRemainingPayload payload = new TimeRemainingPayload(0, 3, 0, true);
+        assertEquals(payload, roundTrip(CompactPayloads.TimeRemaining.FIELD_CODEC, new CompactPayloads.TimeRemaining(payload)).payload());
+    }
+    
+    @Test
+    void timeRemainingRoundTripsInactive() {
+        TimeRemainingPayload payload = new TimeRemainingPayload(0, 0, 0, false);
+        assertEquals(payload, roundTrip(CompactPayloads.TimeRemaining.FIELD_CODEC, new CompactPayloads.TimeRemaining(payload)).payload());
+    }
+    
+    @Test
+    void timeRemainingIsSmallerThanLegacy() {
+        TimeRemainingPayload full = new TimeRemainingPayload(5, 7, 42, true);
+        TimeRemainingPayload daysOnly = new TimeRemainingPayload(5, 0, 0, true);
+        
+        // Legacy is always three ints and a boolean
+        assertEquals(13, size(TimeRemainingPayload.FIELD_CODEC, full));
+        assertEquals(13, size(TimeRemainingPayload.FIELD_CODEC, daysOnly));
+        
+        // Flags byte plus one VarInt per non-zero field
+        assertEquals(4, size(CompactPayloads.TimeRemaining.FIELD_CODEC, new CompactPayloads.TimeRemaining(full)));
+        assertEquals(2, size(CompactPayloads.TimeRemaining.FIELD_CODEC, new CompactPayloads.TimeRemaining(daysOnly)));
+    }
+    
+    // Cycle anchor
+    
+    @Test
+    void cycleAnchorRoundTripsActive() {
+        CycleAnchorPayload payload = new CycleAnchorPayload(17, true, 1_200_000, 1_032_000, Countdown.DEFAULT_TICKS_PER_DAY);
+        assertEquals(payload, roundTrip(CompactPayloads.CycleAnchor.FIELD_CODEC, new CompactPayloads.CycleAnchor(payload)).payload());
+    }
+    
+    @Test
+    void cycleAnchorRoundTripsInactive() {
+        CycleAnchorPayload payload = new CycleAnchorPayload(3, false, -1, 0, Countdown.DEFAULT_TICKS_PER_DAY);
+        assertEquals(payload, roundTrip(CompactPayloads.CycleAnchor.FIELD_CODEC, new CompactPayloads.CycleAnchor(payload)).payload());
+    }
+    
+    @Test
+    void cycleAnchorRoundTripsCustomDayLength() {
+        CycleAnchorPayload payload = new CycleAnchorPayload(9, true, 50_000, 20_000, 12_000);
+        assertEquals(payload, roundTrip(CompactPayloads.CycleAnchor.FIELD_CODEC, new CompactPayloads.CycleAnchor(payload)).payload());
+    }
+    
+    @Test
+    void cycleAnchorClampsOverdueEndToWorldTime() {
+        CycleAnchorPayload payload = new CycleAnchorPayload(4, true, 1_000, 5_000, Countdown.DEFAULT_TICKS_PER_DAY);
+        CycleAnchorPayload decoded = roundTrip(CompactPayloads.CycleAnchor.FIELD_CODEC, new CompactPayloads.CycleAnchor(payload)).payload();
+        assertEquals(5_000, decoded.worldTime());
+        assertEquals(5_000, decoded.cycleEndTime());
+    }
+    
+    @Test
+    void cycleAnchorIsSmallerThanLegacy() {
+        CycleAnchorPayload active = new CycleAnchorPayload(17, true, 1_200_000, 1_032_000, Countdown.DEFAULT_TICKS_PER_DAY);
+        CycleAnchorPayload inactive = new CycleAnchorPayload(17, false, -1, 0, Countdown.DEFAULT_TICKS_PER_DAY);
+        CycleAnchorPayload custom = new CycleAnchorPayload(17, true, 1_200_000, 1_032_000, 12_000);
+        
+        // Legacy: VarLong sequence, boolean, two longs and an int
+        assertEquals(22, size(CycleAnchorPayload.FIELD_CODEC, active));
+        
+        // Sequence, flags, VarLong world time (3 bytes) and VarLong ticks remaining (3 bytes)
+        assertEquals(8, size(CompactPayloads.CycleAnchor.FIELD_CODEC, new CompactPayloads.CycleAnchor(active)));
+        
+        // Inactive anchors carry no times at all
+        assertEquals(2, size(CompactPayloads.CycleAnchor.FIELD_CODEC, new CompactPayloads.CycleAnchor(inactive)));
+        
+        // A custom day length costs its VarInt, and nothing otherwise
+        assertEquals(10, size(CompactPayloads.CycleAnchor.FIELD_CODEC, new CompactPayloads.CycleAnchor(custom)));
+        
+        assertTrue(size(CompactPayloads.CycleAnchor.FIELD_CODEC, new CompactPayloads.CycleAnchor(custom))
+                < size(CycleAnchorPayload.FIELD_CODEC, custom));
+    }
+}